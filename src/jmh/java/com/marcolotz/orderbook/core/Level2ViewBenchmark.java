@@ -0,0 +1,77 @@
+package com.marcolotz.orderbook.core;
+
+import com.marcolotz.orderbook.core.orderbook.BookImplementation;
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import com.marcolotz.orderbook.port.Side;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/***
+ * SimpleLevel2View driven through its primitive API on both sides: each invocation applies one event of the synthetic workload,
+ * including the order directory lookups and the order pool.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class Level2ViewBenchmark {
+
+    @Param({"TREE", "ARRAY"})
+    private BookImplementation implementation;
+
+    @Param({"10000", "100000"})
+    private int orders;
+
+    @Param({"10", "1000"})
+    private int levels;
+
+    @Param({"0.1", "0.45"})
+    private double cancelRatio;
+
+    @Param({"0", "10000"})
+    private int touchDistance;
+
+    private SyntheticWorkload workload;
+    private SimpleLevel2View level2View;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = SyntheticWorkload.generate(orders, levels, cancelRatio, touchDistance, Side.ASK, Side.BID);
+        level2View = new SimpleLevel2View(PriceCodec.ofScale(2), implementation.create(Side.ASK), implementation.create(Side.BID));
+        for (int id = 0; id < workload.getInitialOrders(); id++) {
+            level2View.onNewOrder(workload.sideOf(id), workload.getInitialPrice(id), workload.getInitialQuantity(id), id);
+        }
+    }
+
+    @Benchmark
+    public void processEvent() {
+        final int event = cursor;
+        cursor = event + 1 == workload.length() ? 0 : event + 1;
+        final long orderId = workload.orderId(event);
+        switch (workload.type(event)) {
+            case SyntheticWorkload.ADD:
+                level2View.onNewOrder(workload.sideOf(orderId), workload.price(event), workload.quantity(event), orderId);
+                break;
+            case SyntheticWorkload.CANCEL:
+                level2View.onCancelOrder(orderId);
+                break;
+            default:
+                level2View.onReplaceOrder(workload.price(event), workload.quantity(event), orderId);
+        }
+    }
+}
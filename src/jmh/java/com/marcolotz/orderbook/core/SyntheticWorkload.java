@@ -0,0 +1,212 @@
+package com.marcolotz.orderbook.core;
+
+import com.marcolotz.orderbook.port.Side;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/***
+ * Pre-generated stream of order events used by the benchmarks, so that no random numbers nor objects are created while measuring.
+ *
+ * The book starts with "orders" resting orders spread over "levels" price levels from the touch. The stream then adds, cancels and
+ * replaces orders:
+ * - a "cancelRatio" share of the events are cancels of random resting orders, and the same share are new orders - so the size of the book
+ * stays around its initial size;
+ * - the remaining events are replaces: half reduce the quantity on the same price, half move the order to another price;
+ * - new and repriced orders land "touchDistance" ticks away from the touch, spread over "levels" price levels.
+ *
+ * The stream ends with the events that bring the book back to its initial state, so it can be replayed in a loop for as long as the
+ * benchmark runs. Order ids are dense and start at 0 - callers can index orders by id on an array.
+ */
+public class SyntheticWorkload {
+
+    public static final byte ADD = 0;
+    public static final byte CANCEL = 1;
+    public static final byte REPLACE = 2;
+
+    // best ask in ticks, the best bid is one tick below
+    public static final long TOUCH = 1_000_000;
+
+    private static final int EVENTS = 1 << 20;
+    private static final long SEED = 42;
+
+    private final Side[] sides;
+    private final int initialOrders;
+    private final long[] initialPrices;
+    private final long[] initialQuantities;
+
+    private byte[] types;
+    private long[] orderIds;
+    private long[] prices;
+    private long[] quantities;
+    private int length;
+    private long maxOrderId;
+
+    private SyntheticWorkload(final Side[] sides, final int initialOrders) {
+        this.sides = sides;
+        this.initialOrders = initialOrders;
+        this.initialPrices = new long[initialOrders];
+        this.initialQuantities = new long[initialOrders];
+        final int capacity = EVENTS + 2 * initialOrders;
+        this.types = new byte[capacity];
+        this.orderIds = new long[capacity];
+        this.prices = new long[capacity];
+        this.quantities = new long[capacity];
+    }
+
+    /***
+     * @param orders        number of resting orders at the start of the stream
+     * @param levels        number of price levels the orders are spread over
+     * @param cancelRatio   share of cancels (and of new orders) on the stream, between 0 and 0.5
+     * @param touchDistance distance in ticks from the touch where new and repriced orders land
+     * @param sides         sides of the orders - order id n is on side n % sides.length
+     */
+    public static SyntheticWorkload generate(final int orders, final int levels, final double cancelRatio, final int touchDistance,
+                                             final Side... sides) {
+        if (cancelRatio < 0 || cancelRatio > 0.5) {
+            throw new IllegalArgumentException("Cancel ratio must be between 0 and 0.5: " + cancelRatio);
+        }
+        final SyntheticWorkload workload = new SyntheticWorkload(sides, orders);
+        final Random random = new Random(SEED);
+
+        final int maxOrders = orders + EVENTS;
+        final long[] priceById = new long[maxOrders];
+        final long[] quantityById = new long[maxOrders];
+        // initial orders whose price or quantity changed, they are put back at the end of the stream
+        final boolean[] modified = new boolean[orders];
+        // resting order ids, unordered
+        long[] live = new long[Math.max(16, orders)];
+        final int[] livePosition = new int[maxOrders];
+        int liveCount = 0;
+
+        for (int id = 0; id < orders; id++) {
+            priceById[id] = workload.priceAt(id, random.nextInt(Math.max(1, levels)));
+            quantityById[id] = quantity(random);
+            workload.initialPrices[id] = priceById[id];
+            workload.initialQuantities[id] = quantityById[id];
+            livePosition[id] = liveCount;
+            live[liveCount++] = id;
+        }
+
+        int nextOrderId = orders;
+        for (int event = 0; event < EVENTS; event++) {
+            final double draw = random.nextDouble();
+            if (liveCount > 0 && draw < cancelRatio) {
+                final long orderId = live[random.nextInt(liveCount)];
+                liveCount = removeLive(live, livePosition, liveCount, orderId);
+                if (orderId < orders) {
+                    modified[(int) orderId] = true;
+                }
+                workload.append(CANCEL, orderId, priceById[(int) orderId], quantityById[(int) orderId]);
+            } else if (liveCount == 0 || draw < 2 * cancelRatio) {
+                final int orderId = nextOrderId++;
+                priceById[orderId] = workload.priceAt(orderId, touchDistance + random.nextInt(Math.max(1, levels)));
+                quantityById[orderId] = quantity(random);
+                if (liveCount == live.length) {
+                    live = Arrays.copyOf(live, live.length << 1);
+                }
+                livePosition[orderId] = liveCount;
+                live[liveCount++] = orderId;
+                workload.append(ADD, orderId, priceById[orderId], quantityById[orderId]);
+            } else {
+                final int orderId = (int) live[random.nextInt(liveCount)];
+                if (random.nextBoolean()) {
+                    quantityById[orderId] = 1 + random.nextInt((int) quantityById[orderId]);
+                } else {
+                    priceById[orderId] = workload.priceAt(orderId, touchDistance + random.nextInt(Math.max(1, levels)));
+                    quantityById[orderId] = quantity(random);
+                }
+                if (orderId < orders) {
+                    modified[orderId] = true;
+                }
+                workload.append(REPLACE, orderId, priceById[orderId], quantityById[orderId]);
+            }
+        }
+
+        // back to the initial book: cancel everything that is not an untouched initial order, then add the initial orders back
+        for (int i = 0; i < liveCount; i++) {
+            final long orderId = live[i];
+            if (orderId >= orders || modified[(int) orderId]) {
+                workload.append(CANCEL, orderId, priceById[(int) orderId], quantityById[(int) orderId]);
+            }
+        }
+        for (int id = 0; id < orders; id++) {
+            if (modified[id]) {
+                workload.append(ADD, id, workload.initialPrices[id], workload.initialQuantities[id]);
+            }
+        }
+        workload.maxOrderId = nextOrderId - 1;
+        return workload;
+    }
+
+    public Side sideOf(final long orderId) {
+        return sides[(int) (orderId % sides.length)];
+    }
+
+    public int getInitialOrders() {
+        return initialOrders;
+    }
+
+    public long getInitialPrice(final int orderId) {
+        return initialPrices[orderId];
+    }
+
+    public long getInitialQuantity(final int orderId) {
+        return initialQuantities[orderId];
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public long getMaxOrderId() {
+        return maxOrderId;
+    }
+
+    public byte type(final int event) {
+        return types[event];
+    }
+
+    public long orderId(final int event) {
+        return orderIds[event];
+    }
+
+    public long price(final int event) {
+        return prices[event];
+    }
+
+    public long quantity(final int event) {
+        return quantities[event];
+    }
+
+    private long priceAt(final long orderId, final int distanceFromTouch) {
+        return sideOf(orderId) == Side.ASK ? TOUCH + distanceFromTouch : TOUCH - 1 - distanceFromTouch;
+    }
+
+    private static long quantity(final Random random) {
+        return 100L * (1 + random.nextInt(10));
+    }
+
+    private static int removeLive(final long[] live, final int[] livePosition, final int liveCount, final long orderId) {
+        final int position = livePosition[(int) orderId];
+        final long last = live[liveCount - 1];
+        live[position] = last;
+        livePosition[(int) last] = position;
+        return liveCount - 1;
+    }
+
+    private void append(final byte type, final long orderId, final long price, final long quantity) {
+        if (length == types.length) {
+            final int capacity = length << 1;
+            types = Arrays.copyOf(types, capacity);
+            orderIds = Arrays.copyOf(orderIds, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+        }
+        types[length] = type;
+        orderIds[length] = orderId;
+        prices[length] = price;
+        quantities[length] = quantity;
+        length++;
+    }
+}
@@ -0,0 +1,25 @@
+package com.marcolotz.orderbook.core.orderbook;
+
+import com.marcolotz.orderbook.port.OrderBook;
+import com.marcolotz.orderbook.port.Side;
+
+/***
+ * OrderBook implementations compared by the benchmarks.
+ */
+public enum BookImplementation {
+
+    TREE {
+        @Override
+        public OrderBook create(final Side side) {
+            return new TreeOrderBook(side);
+        }
+    },
+    ARRAY {
+        @Override
+        public OrderBook create(final Side side) {
+            return new ArrayOrderBook(side);
+        }
+    };
+
+    public abstract OrderBook create(Side side);
+}
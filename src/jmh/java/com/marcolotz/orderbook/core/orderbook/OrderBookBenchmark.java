@@ -0,0 +1,86 @@
+package com.marcolotz.orderbook.core.orderbook;
+
+import com.marcolotz.orderbook.core.SyntheticWorkload;
+import com.marcolotz.orderbook.core.model.Order;
+import com.marcolotz.orderbook.port.OrderBook;
+import com.marcolotz.orderbook.port.Side;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/***
+ * A single side of the book driven directly, without the order directory of the view: each invocation applies one event of the
+ * synthetic workload and reads the top of the book.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class OrderBookBenchmark {
+
+    @Param({"TREE", "ARRAY"})
+    private BookImplementation implementation;
+
+    @Param({"10000", "100000"})
+    private int orders;
+
+    @Param({"10", "1000"})
+    private int levels;
+
+    @Param({"0.1", "0.45"})
+    private double cancelRatio;
+
+    @Param({"0", "10000"})
+    private int touchDistance;
+
+    private SyntheticWorkload workload;
+    private OrderBook book;
+    // orders are owned by the caller of the book - indexed by id, as the workload ids are dense
+    private Order[] orderById;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = SyntheticWorkload.generate(orders, levels, cancelRatio, touchDistance, Side.ASK);
+        book = implementation.create(Side.ASK);
+        orderById = new Order[(int) workload.getMaxOrderId() + 1];
+        for (int id = 0; id < orderById.length; id++) {
+            orderById[id] = new Order();
+        }
+        for (int id = 0; id < workload.getInitialOrders(); id++) {
+            book.addOrder(orderById[id].set(id, Side.ASK, workload.getInitialQuantity(id), workload.getInitialPrice(id)));
+        }
+    }
+
+    @Benchmark
+    public Order processEvent() {
+        final int event = cursor;
+        cursor = event + 1 == workload.length() ? 0 : event + 1;
+        final long orderId = workload.orderId(event);
+        final Order order = orderById[(int) orderId];
+        switch (workload.type(event)) {
+            case SyntheticWorkload.ADD:
+                book.addOrder(order.set(orderId, Side.ASK, workload.quantity(event), workload.price(event)));
+                break;
+            case SyntheticWorkload.CANCEL:
+                book.removeOrder(order);
+                break;
+            default:
+                book.replaceOrder(order, workload.price(event), workload.quantity(event));
+        }
+        return book.getTopOrder();
+    }
+}
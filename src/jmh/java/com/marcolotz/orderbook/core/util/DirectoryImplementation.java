@@ -0,0 +1,69 @@
+package com.marcolotz.orderbook.core.util;
+
+import com.marcolotz.orderbook.core.model.Order;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/***
+ * Order directory implementations compared by the benchmarks: the primitive map of the view, and the boxed map it replaced.
+ */
+public enum DirectoryImplementation {
+
+    LONG_OBJECT_HASH_MAP {
+        @Override
+        public Directory create(final int expectedSize) {
+            final LongObjectHashMap<Order> map = new LongObjectHashMap<>(expectedSize);
+            return new Directory() {
+                @Override
+                public Order put(final long orderId, final Order order) {
+                    return map.put(orderId, order);
+                }
+
+                @Override
+                public Order get(final long orderId) {
+                    return map.get(orderId);
+                }
+
+                @Override
+                public Order remove(final long orderId) {
+                    return map.remove(orderId);
+                }
+            };
+        }
+    },
+    HASH_MAP {
+        @Override
+        public Directory create(final int expectedSize) {
+            final Map<Long, Order> map = new HashMap<>((int) (expectedSize / 0.75f) + 1);
+            return new Directory() {
+                @Override
+                public Order put(final long orderId, final Order order) {
+                    return map.put(orderId, order);
+                }
+
+                @Override
+                public Order get(final long orderId) {
+                    return map.get(orderId);
+                }
+
+                @Override
+                public Order remove(final long orderId) {
+                    return map.remove(orderId);
+                }
+            };
+        }
+    };
+
+    public abstract Directory create(int expectedSize);
+
+    // a single implementation is loaded per fork, so the calls stay monomorphic
+    public interface Directory {
+
+        Order put(long orderId, Order order);
+
+        Order get(long orderId);
+
+        Order remove(long orderId);
+    }
+}
@@ -0,0 +1,110 @@
+package com.marcolotz.orderbook.core.util;
+
+import com.marcolotz.orderbook.core.model.Order;
+import com.marcolotz.orderbook.port.Side;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * The order directory on its own: LongObjectHashMap against the HashMap&lt;Long, Order&gt; it replaced, at a steady number of resting
+ * orders.
+ *
+ * churn() removes a random resting order and adds a new one with the next exchange id, as a cancel followed by a new order would - the
+ * sampled percentiles give the add/remove latency, and the GC profiler the allocation per operation (boxed keys and entry nodes for
+ * HashMap). lookup() finds a random resting order, as cancels, replaces and trades do.
+ *
+ * The memory retained per resting order by the directory (the orders themselves excluded) is measured from the heap after a GC, once per
+ * trial, and printed before the iterations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class OrderDirectoryBenchmark {
+
+    // exchange ids are large and sequential - far from the small Long values cached by the JDK
+    private static final long FIRST_ORDER_ID = 1_000_000_000L;
+    private static final int RANDOM_SLOTS = 1 << 20;
+
+    @Param({"LONG_OBJECT_HASH_MAP", "HASH_MAP"})
+    private DirectoryImplementation implementation;
+
+    @Param({"10000", "1000000"})
+    private int orders;
+
+    private DirectoryImplementation.Directory directory;
+    // id of the resting order of each slot
+    private long[] restingIds;
+    // random slots, replayed in a loop
+    private int[] slots;
+    private int cursor;
+    private long nextOrderId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random(42);
+        slots = new int[RANDOM_SLOTS];
+        for (int i = 0; i < RANDOM_SLOTS; i++) {
+            slots[i] = random.nextInt(orders);
+        }
+        restingIds = new long[orders];
+        final Order[] restingOrders = new Order[orders];
+        for (int slot = 0; slot < orders; slot++) {
+            restingIds[slot] = FIRST_ORDER_ID + slot;
+            restingOrders[slot] = new Order(restingIds[slot], Side.ASK, 10, 100);
+        }
+        nextOrderId = FIRST_ORDER_ID + orders;
+
+        final long heapBefore = usedHeap();
+        directory = implementation.create(orders);
+        for (int slot = 0; slot < orders; slot++) {
+            directory.put(restingIds[slot], restingOrders[slot]);
+        }
+        final long heapAfter = usedHeap();
+        System.out.printf("%n%s retains %.1f bytes per resting order%n", implementation, (heapAfter - heapBefore) / (double) orders);
+    }
+
+    @Benchmark
+    public Order churn() {
+        final int slot = nextSlot();
+        final Order order = directory.remove(restingIds[slot]);
+        final long orderId = nextOrderId++;
+        restingIds[slot] = orderId;
+        directory.put(orderId, order);
+        return order;
+    }
+
+    @Benchmark
+    public Order lookup() {
+        return directory.get(restingIds[nextSlot()]);
+    }
+
+    private int nextSlot() {
+        final int slot = slots[cursor];
+        cursor = (cursor + 1) & (RANDOM_SLOTS - 1);
+        return slot;
+    }
+
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,15 @@
+package com.marcolotz.orderbook;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/***
+ * Hosts a Level2View with its HTTP endpoints (latency metrics...). The feed handler is expected to drive the Level2View bean.
+ */
+@SpringBootApplication
+public class OrderBookApplication {
+
+    public static void main(final String[] args) {
+        SpringApplication.run(OrderBookApplication.class, args);
+    }
+}
@@ -0,0 +1,67 @@
+package com.marcolotz.orderbook.adapter.http;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.function.Function;
+
+/***
+ * Top of book and depth of the instruments, served from their BookSnapshotCache. Responses carry the version of the book as ETag: a
+ * client polling with If-None-Match gets an empty 304 until the book changes.
+ */
+@RestController
+@RequestMapping("/books/{instrumentId}")
+public class BookController {
+
+    private final InstrumentBooks instrumentBooks;
+
+    public BookController(final InstrumentBooks instrumentBooks) {
+        this.instrumentBooks = instrumentBooks;
+    }
+
+    @GetMapping("/top")
+    public ResponseEntity<byte[]> topOfBook(@PathVariable final long instrumentId,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) final String ifNoneMatch) {
+        return respond(instrumentId, ifNoneMatch, BookSnapshotCache::getTopOfBook);
+    }
+
+    @GetMapping("/depth")
+    public ResponseEntity<byte[]> depth(@PathVariable final long instrumentId,
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) final String ifNoneMatch) {
+        return respond(instrumentId, ifNoneMatch, BookSnapshotCache::getDepth);
+    }
+
+    private ResponseEntity<byte[]> respond(final long instrumentId, final String ifNoneMatch,
+                                           final Function<BookSnapshotCache, SerializedBook> view) {
+        final BookSnapshotCache snapshotCache = instrumentBooks.getSnapshotCache(instrumentId);
+        if (snapshotCache == null) {
+            return ResponseEntity.notFound().build();
+        }
+        final SerializedBook book = view.apply(snapshotCache);
+        if (matches(ifNoneMatch, book.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(book.getEtag()).build();
+        }
+        return ResponseEntity.ok().eTag(book.getEtag()).contentType(MediaType.APPLICATION_JSON).body(book.getBody());
+    }
+
+    // If-None-Match holds a list of ETags, or *
+    private static boolean matches(final String ifNoneMatch, final String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (final String candidate : ifNoneMatch.split(",")) {
+            final String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,19 @@
+package com.marcolotz.orderbook.adapter.http;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+/***
+ * Price level as sent over the network. In an update, a size of 0 means the level was deleted.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BookLevel {
+
+    private final BigDecimal price;
+    private final long size;
+}
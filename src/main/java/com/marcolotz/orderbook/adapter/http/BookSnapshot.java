@@ -0,0 +1,21 @@
+package com.marcolotz.orderbook.adapter.http;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/***
+ * Best levels of a book at a given version, from the best price to the worst.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BookSnapshot {
+
+    private final long instrumentId;
+    private final long version;
+    private final List<BookLevel> bids;
+    private final List<BookLevel> asks;
+}
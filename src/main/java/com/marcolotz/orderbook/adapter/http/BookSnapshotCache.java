@@ -0,0 +1,102 @@
+package com.marcolotz.orderbook.adapter.http;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marcolotz.orderbook.core.depth.Depth;
+import com.marcolotz.orderbook.core.depth.DepthSnapshot;
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import com.marcolotz.orderbook.port.Side;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/***
+ * Serialized top of book and depth of an instrument, keyed by the version of its DepthSnapshot.
+ *
+ * A request only compares the version of the cached body with the current one - a single volatile read - and serves the cached bytes when
+ * they match. The first request after a change copies the depth and serializes it, once for all the requests that follow: the cost of the
+ * endpoint grows with the number of book changes, not with the number of requests, and requests never touch the book itself.
+ */
+public class BookSnapshotCache {
+
+    private final long instrumentId;
+    private final DepthSnapshot depthSnapshot;
+    private final PriceCodec priceCodec;
+    private final ObjectMapper objectMapper;
+    // versions start from 0 again when the process restarts: the epoch keeps the ETags of a previous run from matching
+    private final String epoch = Long.toHexString(System.currentTimeMillis());
+
+    // guarded by this
+    private final Depth depth;
+    private volatile SerializedBook topOfBook;
+    private volatile SerializedBook fullDepth;
+
+    public BookSnapshotCache(final long instrumentId, final DepthSnapshot depthSnapshot, final PriceCodec priceCodec,
+                             final ObjectMapper objectMapper) {
+        this.instrumentId = instrumentId;
+        this.depthSnapshot = depthSnapshot;
+        this.priceCodec = priceCodec;
+        this.objectMapper = objectMapper;
+        this.depth = new Depth(depthSnapshot.getCapacity());
+    }
+
+    public SerializedBook getTopOfBook() {
+        final SerializedBook cached = topOfBook;
+        if (cached != null && cached.getVersion() == depthSnapshot.getVersion()) {
+            return cached;
+        }
+        refresh();
+        return topOfBook;
+    }
+
+    public SerializedBook getDepth() {
+        final SerializedBook cached = fullDepth;
+        if (cached != null && cached.getVersion() == depthSnapshot.getVersion()) {
+            return cached;
+        }
+        refresh();
+        return fullDepth;
+    }
+
+    private synchronized void refresh() {
+        // another request may have serialized the current version while this one was waiting for the lock
+        final SerializedBook cached = fullDepth;
+        if (cached != null && cached.getVersion() == depthSnapshot.getVersion()) {
+            return;
+        }
+        final long version = depthSnapshot.read(depth);
+        final String etag = "\"" + epoch + "-" + version + "\"";
+        topOfBook = new SerializedBook(version, etag, serialize(toSnapshot(1)));
+        fullDepth = new SerializedBook(version, etag, serialize(toSnapshot(depth.getCapacity())));
+    }
+
+    private BookSnapshot toSnapshot(final int levels) {
+        return toSnapshot(instrumentId, depth, levels, priceCodec);
+    }
+
+    /***
+     * @return the best levels of each side of the depth, up to the given number
+     */
+    static BookSnapshot toSnapshot(final long instrumentId, final Depth depth, final int levels, final PriceCodec priceCodec) {
+        return new BookSnapshot(instrumentId, depth.getVersion(), toLevels(depth, Side.BID, levels, priceCodec),
+            toLevels(depth, Side.ASK, levels, priceCodec));
+    }
+
+    private static List<BookLevel> toLevels(final Depth depth, final Side side, final int levels, final PriceCodec priceCodec) {
+        final int count = Math.min(levels, depth.getLevels(side));
+        final List<BookLevel> bookLevels = new ArrayList<>(count);
+        for (int level = 0; level < count; level++) {
+            bookLevels.add(new BookLevel(priceCodec.toPrice(depth.getPrice(side, level)), depth.getSize(side, level)));
+        }
+        return bookLevels;
+    }
+
+    private byte[] serialize(final BookSnapshot snapshot) {
+        try {
+            return objectMapper.writeValueAsBytes(snapshot);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.marcolotz.orderbook.adapter.http;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/***
+ * Levels of the window of a book that changed from previousVersion to version. A level that left the window - deleted, or pushed out by
+ * better levels - has a size of 0.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BookUpdate {
+
+    private final long instrumentId;
+    private final long previousVersion;
+    private final long version;
+    private final List<BookLevel> bids;
+    private final List<BookLevel> asks;
+}
@@ -0,0 +1,170 @@
+package com.marcolotz.orderbook.adapter.http;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marcolotz.orderbook.core.conflation.ConflatedUpdate;
+import com.marcolotz.orderbook.core.conflation.ConflatedUpdateListener;
+import com.marcolotz.orderbook.core.depth.Depth;
+import com.marcolotz.orderbook.core.depth.DepthSnapshot;
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import com.marcolotz.orderbook.port.Side;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * Streams the best levels of a book (the window of its DepthSnapshot) to WebSocket sessions, as deltas.
+ *
+ * A new session first receives the whole window as a BookSnapshot. After that, every time the version of the window changes, the sessions
+ * receive a BookUpdate with the levels that differ from the last window sent: new or resized levels with their size, and levels that left
+ * the window - deleted, or pushed out by better ones - with a size of 0. Each update carries the version it applies to (previousVersion)
+ * and the version it leads to: a client applies it only if previousVersion is the version of its book, and reconnects on a gap. Since the
+ * deltas are computed from the windows themselves, a level moving into the window when a better one is deleted is sent as well.
+ *
+ * Fed by a ConflatingConsumer, so it never holds back the book thread: the updates of the book only tell it to compare the window with the
+ * last one sent, and the windows in between are merged into one delta when the sessions can't keep up. The DepthSnapshot must be
+ * subscribed to the view before the ConflatingFanOut, so that it's up to date when an update is received. Each delta is serialized once
+ * for all the sessions.
+ */
+@Log4j2
+public class BookUpdateStream implements ConflatedUpdateListener {
+
+    private final long instrumentId;
+    private final DepthSnapshot depthSnapshot;
+    private final PriceCodec priceCodec;
+    private final ObjectMapper objectMapper;
+    // by session id
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    // orders the window sent to a new session with the deltas sent to the others
+    private final Object sendLock = new Object();
+    // guarded by sendLock: the last window sent to the sessions, and the one being compared with it
+    private Depth sent;
+    private Depth window;
+
+    public BookUpdateStream(final long instrumentId, final DepthSnapshot depthSnapshot, final PriceCodec priceCodec,
+                            final ObjectMapper objectMapper) {
+        this.instrumentId = instrumentId;
+        this.depthSnapshot = depthSnapshot;
+        this.priceCodec = priceCodec;
+        this.objectMapper = objectMapper;
+        this.sent = new Depth(depthSnapshot.getCapacity());
+        this.window = new Depth(depthSnapshot.getCapacity());
+    }
+
+    /***
+     * @param session session safe for concurrent sends, e.g. a ConcurrentWebSocketSessionDecorator
+     */
+    public void addSession(final WebSocketSession session) throws IOException {
+        synchronized (sendLock) {
+            // the other sessions are brought to the current window first, so the new one starts from the version they are at
+            sendChanges();
+            final BookSnapshot snapshot = BookSnapshotCache.toSnapshot(instrumentId, sent, sent.getCapacity(), priceCodec);
+            session.sendMessage(new TextMessage(serialize(snapshot)));
+            sessions.put(session.getId(), session);
+        }
+    }
+
+    public void removeSession(final WebSocketSession session) {
+        sessions.remove(session.getId());
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    @Override
+    public void onConflatedUpdate(final ConflatedUpdate update) {
+        synchronized (sendLock) {
+            sendChanges();
+        }
+    }
+
+    // guarded by sendLock
+    private void sendChanges() {
+        if (depthSnapshot.getVersion() == sent.getVersion()) { // changes outside of the window are not sent
+            return;
+        }
+        depthSnapshot.read(window);
+        if (!sessions.isEmpty()) {
+            final BookUpdate update = new BookUpdate(instrumentId, sent.getVersion(), window.getVersion(), changes(Side.BID),
+                changes(Side.ASK));
+            broadcast(new TextMessage(serialize(update)));
+        }
+        final Depth previous = sent;
+        sent = window;
+        window = previous;
+    }
+
+    // levels of the side that differ between the sent window and the current one - both are sorted from the best price to the worst
+    private List<BookLevel> changes(final Side side) {
+        final List<BookLevel> changes = new ArrayList<>();
+        final int sentLevels = sent.getLevels(side);
+        final int levels = window.getLevels(side);
+        int sentLevel = 0;
+        int level = 0;
+        while (sentLevel < sentLevels || level < levels) {
+            final int order;
+            if (sentLevel == sentLevels) {
+                order = 1;
+            } else if (level == levels) {
+                order = -1;
+            } else {
+                order = compareBetter(side, sent.getPrice(side, sentLevel), window.getPrice(side, level));
+            }
+            if (order < 0) { // no longer in the window
+                changes.add(new BookLevel(priceCodec.toPrice(sent.getPrice(side, sentLevel++)), 0));
+            } else if (order > 0) { // new in the window
+                changes.add(new BookLevel(priceCodec.toPrice(window.getPrice(side, level)), window.getSize(side, level++)));
+            } else {
+                if (sent.getSize(side, sentLevel) != window.getSize(side, level)) {
+                    changes.add(new BookLevel(priceCodec.toPrice(window.getPrice(side, level)), window.getSize(side, level)));
+                }
+                sentLevel++;
+                level++;
+            }
+        }
+        return changes;
+    }
+
+    // negative if the first price is better than the second one for the side
+    private static int compareBetter(final Side side, final long first, final long second) {
+        return side == Side.BID ? Long.compare(second, first) : Long.compare(first, second);
+    }
+
+    private void broadcast(final TextMessage message) {
+        for (final WebSocketSession session : sessions.values()) {
+            try {
+                session.sendMessage(message);
+            } catch (IOException | RuntimeException e) {
+                // e.g. a session over its send limits - the client has to reconnect and start from a new window
+                log.warn("Dropping session {} of instrument {}", session.getId(), instrumentId, e);
+                sessions.remove(session.getId());
+                close(session);
+            }
+        }
+    }
+
+    private byte[] serialize(final Object message) {
+        try {
+            return objectMapper.writeValueAsBytes(message);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void close(final WebSocketSession session) {
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Could not close session {}", session.getId(), e);
+        }
+    }
+}
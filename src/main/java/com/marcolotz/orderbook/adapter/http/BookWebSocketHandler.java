@@ -0,0 +1,56 @@
+package com.marcolotz.orderbook.adapter.http;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+/***
+ * WebSocket endpoint /books/{instrumentId}/updates: sends the best levels of the book, then the changes to them (see
+ * BookUpdateStream).
+ *
+ * Sessions are bounded: a client that does not read its messages within the send time limit, or lets more than the buffer size pile up,
+ * is disconnected instead of slowing down the others.
+ */
+@Log4j2
+public class BookWebSocketHandler extends TextWebSocketHandler {
+
+    private static final int SEND_TIME_LIMIT_MILLIS = 5_000;
+    private static final int BUFFER_SIZE_LIMIT = 1 << 20;
+
+    private final InstrumentBooks instrumentBooks;
+
+    public BookWebSocketHandler(final InstrumentBooks instrumentBooks) {
+        this.instrumentBooks = instrumentBooks;
+    }
+
+    @Override
+    public void afterConnectionEstablished(final WebSocketSession session) throws Exception {
+        final BookUpdateStream updateStream = findStream(session);
+        if (updateStream == null) {
+            session.close(CloseStatus.BAD_DATA.withReason("Unknown instrument"));
+            return;
+        }
+        updateStream.addSession(new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MILLIS, BUFFER_SIZE_LIMIT));
+    }
+
+    @Override
+    public void afterConnectionClosed(final WebSocketSession session, final CloseStatus status) {
+        final BookUpdateStream updateStream = findStream(session);
+        if (updateStream != null) {
+            updateStream.removeSession(session);
+        }
+    }
+
+    private BookUpdateStream findStream(final WebSocketSession session) {
+        // /books/{instrumentId}/updates
+        final String[] segments = session.getUri() == null ? new String[0] : session.getUri().getPath().split("/");
+        try {
+            return segments.length >= 2 ? instrumentBooks.getUpdateStream(Long.parseLong(segments[segments.length - 2])) : null;
+        } catch (NumberFormatException e) {
+            log.debug("Invalid instrument id in {}", session.getUri());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.marcolotz.orderbook.adapter.http;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marcolotz.orderbook.core.SimpleLevel2View;
+import com.marcolotz.orderbook.core.conflation.ConflatingConsumer;
+import com.marcolotz.orderbook.core.conflation.ConflatingFanOut;
+import com.marcolotz.orderbook.core.depth.DepthSnapshot;
+import com.marcolotz.orderbook.core.ring.WaitStrategy;
+import com.marcolotz.orderbook.core.util.PriceCodec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * Books served over the network, by instrument id: the snapshot cache behind the HTTP endpoints and the update stream behind the
+ * WebSocket one. Both serve the same window: the best depthLevels levels of each side.
+ *
+ * register() subscribes to the view, so it must be called before events flow (or by the book thread). Each instrument gets a thread
+ * pushing its updates to the WebSocket sessions, stopped by close().
+ */
+public class InstrumentBooks implements AutoCloseable {
+
+    private static final long STREAM_PARK_NANOS = 100_000;
+
+    private final ObjectMapper objectMapper;
+    private final int depthLevels;
+    private final Map<Long, BookSnapshotCache> snapshotCaches = new ConcurrentHashMap<>();
+    private final Map<Long, BookUpdateStream> updateStreams = new ConcurrentHashMap<>();
+    private final List<ConflatingConsumer> consumers = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+
+    /***
+     * @param depthLevels number of levels of each side served by the depth endpoint and the WebSocket stream
+     */
+    public InstrumentBooks(final ObjectMapper objectMapper, final int depthLevels) {
+        this.objectMapper = objectMapper;
+        this.depthLevels = depthLevels;
+    }
+
+    public synchronized void register(final long instrumentId, final SimpleLevel2View view, final PriceCodec priceCodec) {
+        if (snapshotCaches.containsKey(instrumentId)) {
+            throw new IllegalArgumentException("Instrument already registered: " + instrumentId);
+        }
+        final DepthSnapshot depthSnapshot = new DepthSnapshot(view, depthLevels);
+        view.subscribe(depthSnapshot);
+        final BookSnapshotCache snapshotCache = new BookSnapshotCache(instrumentId, depthSnapshot, priceCodec, objectMapper);
+        final BookUpdateStream updateStream = new BookUpdateStream(instrumentId, depthSnapshot, priceCodec, objectMapper);
+
+        // after the depth snapshot, so that the window is up to date when the stream is told about an update
+        final ConflatingFanOut fanOut = new ConflatingFanOut(view);
+        final ConflatingConsumer consumer = fanOut.addConsumer(updateStream, WaitStrategy.parking(STREAM_PARK_NANOS));
+        view.subscribe(fanOut);
+        final Thread thread = new Thread(consumer, "level2-stream-" + instrumentId);
+        thread.setDaemon(true);
+        thread.start();
+        consumers.add(consumer);
+        threads.add(thread);
+
+        snapshotCaches.put(instrumentId, snapshotCache);
+        updateStreams.put(instrumentId, updateStream);
+    }
+
+    /***
+     * @return the snapshot cache of the instrument, null if it's not registered
+     */
+    public BookSnapshotCache getSnapshotCache(final long instrumentId) {
+        return snapshotCaches.get(instrumentId);
+    }
+
+    /***
+     * @return the update stream of the instrument, null if it's not registered
+     */
+    public BookUpdateStream getUpdateStream(final long instrumentId) {
+        return updateStreams.get(instrumentId);
+    }
+
+    @Override
+    public synchronized void close() throws InterruptedException {
+        consumers.forEach(ConflatingConsumer::halt);
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        consumers.clear();
+        threads.clear();
+    }
+}
@@ -0,0 +1,25 @@
+package com.marcolotz.orderbook.adapter.http;
+
+import com.marcolotz.orderbook.core.latency.LatencyRecordingView;
+import com.marcolotz.orderbook.core.latency.LatencyReport;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/***
+ * Latency percentiles (p50/p99/p99.9/max, in nanoseconds) and rates of the view operations, over the interval since the previous call:
+ * a monitoring system scraping it every N seconds gets one interval per scrape.
+ */
+@RestController
+public class LatencyController {
+
+    private final LatencyRecordingView level2View;
+
+    public LatencyController(final LatencyRecordingView level2View) {
+        this.level2View = level2View;
+    }
+
+    @GetMapping("/metrics/latency")
+    public LatencyReport latency() {
+        return level2View.report();
+    }
+}
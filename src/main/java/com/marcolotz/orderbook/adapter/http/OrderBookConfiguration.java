@@ -0,0 +1,44 @@
+package com.marcolotz.orderbook.adapter.http;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marcolotz.orderbook.core.SimpleLevel2View;
+import com.marcolotz.orderbook.core.latency.LatencyRecordingView;
+import com.marcolotz.orderbook.core.orderbook.TreeOrderBook;
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import com.marcolotz.orderbook.port.Side;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class OrderBookConfiguration {
+
+    @Bean
+    public PriceCodec priceCodec(@Value("${orderbook.price-scale:2}") final int priceScale) {
+        return PriceCodec.ofScale(priceScale);
+    }
+
+    @Bean
+    public SimpleLevel2View simpleLevel2View(final PriceCodec priceCodec, @Value("${orderbook.strict:false}") final boolean strict) {
+        final SimpleLevel2View view = new SimpleLevel2View(priceCodec, new TreeOrderBook(Side.ASK), new TreeOrderBook(Side.BID));
+        view.setStrict(strict);
+        return view;
+    }
+
+    // the view to be fed: every operation is measured on its way to the book
+    @Bean
+    public LatencyRecordingView level2View(final SimpleLevel2View simpleLevel2View) {
+        return new LatencyRecordingView(simpleLevel2View);
+    }
+
+    // the book of the view is served as instrument orderbook.instrument-id
+    @Bean
+    public InstrumentBooks instrumentBooks(final ObjectMapper objectMapper, final SimpleLevel2View simpleLevel2View,
+                                           final PriceCodec priceCodec,
+                                           @Value("${orderbook.instrument-id:1}") final long instrumentId,
+                                           @Value("${orderbook.depth-levels:10}") final int depthLevels) {
+        final InstrumentBooks instrumentBooks = new InstrumentBooks(objectMapper, depthLevels);
+        instrumentBooks.register(instrumentId, simpleLevel2View, priceCodec);
+        return instrumentBooks;
+    }
+}
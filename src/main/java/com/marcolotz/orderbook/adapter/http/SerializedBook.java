@@ -0,0 +1,17 @@
+package com.marcolotz.orderbook.adapter.http;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/***
+ * JSON body of a BookSnapshot, serialized once and served as is to every request for the same version.
+ */
+@Getter
+@AllArgsConstructor
+public class SerializedBook {
+
+    private final long version;
+    // quoted, as sent in the ETag header
+    private final String etag;
+    private final byte[] body;
+}
@@ -0,0 +1,22 @@
+package com.marcolotz.orderbook.adapter.http;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfiguration implements WebSocketConfigurer {
+
+    private final InstrumentBooks instrumentBooks;
+
+    public WebSocketConfiguration(final InstrumentBooks instrumentBooks) {
+        this.instrumentBooks = instrumentBooks;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(final WebSocketHandlerRegistry registry) {
+        registry.addHandler(new BookWebSocketHandler(instrumentBooks), "/books/*/updates");
+    }
+}
@@ -0,0 +1,317 @@
+package com.marcolotz.orderbook.adapter.journal;
+
+import com.marcolotz.orderbook.adapter.snapshot.SnapshotLoader;
+import com.marcolotz.orderbook.adapter.snapshot.SnapshotWriter;
+import com.marcolotz.orderbook.core.SimpleLevel2View;
+import com.marcolotz.orderbook.core.ring.EventProcessor;
+import com.marcolotz.orderbook.core.ring.RingBuffer;
+import com.marcolotz.orderbook.core.ring.WaitStrategy;
+import com.marcolotz.orderbook.port.EventStatus;
+import com.marcolotz.orderbook.port.Level2View;
+import com.marcolotz.orderbook.port.Side;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/***
+ * Makes a SimpleLevel2View durable: every event accepted by the view is appended to a journal, and the book can be rebuilt after a crash
+ * from the latest checkpoint plus the tail of the journal.
+ *
+ * Events are applied to the view first, on the caller thread - a rejected event (see SimpleLevel2View.getLastStatus) is not journaled.
+ * Accepted events are handed to a journal thread through a ring buffer, so the caller never waits for the disk: the journal thread writes
+ * them into memory-mapped segments and forces them with group commits (GroupCommitPolicy). getDurableSequence() tells up to which event
+ * the journal is on the device, e.g. to acknowledge the feed. Only a full ring (the disk can't keep up) makes the caller wait.
+ *
+ * A journal failure (e.g. the disk is full) is fail-stop: the durable sequence stops advancing, and the next event or checkpoint throws
+ * an IllegalStateException without touching the view. Events accepted after the durable sequence may not be journaled - the view must be
+ * rebuilt with recover() once the disk is fixed.
+ *
+ * Layout of the directory:
+ * - checkpoint.snapshot: snapshot of the view (see SnapshotWriter), with the sequence of the last event it contains;
+ * - journal-[sequence].journal: segments of the journal, named after the sequence of their first record.
+ *
+ * Sequences count the accepted events since the directory was created. Batches are applied event by event, so that only the accepted
+ * events of a batch are journaled. Not thread safe, like the view.
+ */
+@Log4j2
+public class DurableLevel2View implements Level2View, AutoCloseable {
+
+    static final String CHECKPOINT_FILE = "checkpoint.snapshot";
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final int RING_CAPACITY = 1 << 16;
+
+    @Getter
+    private final SimpleLevel2View view;
+    private final Path directory;
+    private final RingBuffer<JournalEntry> ringBuffer;
+    private final JournalCommitter committer;
+    private final EventProcessor<JournalEntry> processor;
+    private final Thread journalThread;
+
+    // sequence of the last accepted event
+    @Getter
+    private long sequence;
+    // ring slot of the event being journaled, claimed once the view accepted the event
+    private long claimedSlot;
+
+    private DurableLevel2View(final SimpleLevel2View view, final Path directory, final GroupCommitPolicy policy, final long sequence)
+        throws IOException {
+        this.view = view;
+        this.directory = directory;
+        this.sequence = sequence;
+        this.committer = new JournalCommitter(directory, view.getPriceCodec(), policy, sequence);
+        final WaitStrategy waitStrategy = WaitStrategy.parking(50_000);
+        this.ringBuffer = new RingBuffer<>(JournalEntry::new, RING_CAPACITY, RingBuffer.ProducerType.SINGLE, waitStrategy);
+        this.processor = new EventProcessor<>(ringBuffer, committer, waitStrategy);
+        this.journalThread = new Thread(processor, "level2-journal");
+        journalThread.start();
+    }
+
+    /***
+     * Rebuilds the view from the directory - the latest checkpoint, if any, then the journal records after it - and starts journaling.
+     * The recovered state becomes the new checkpoint, so the replayed segments are removed. An empty directory starts an empty book.
+     *
+     * @param directory where the checkpoint and the journal are kept, created if needed
+     * @param view      empty view, with the tick size of the instrument
+     * @param policy    group commit of the journal
+     * @return the durable view, with the sequence of the last recovered event
+     * @throws IOException           if the directory can't be read or written
+     * @throws IllegalStateException if records are missing between the checkpoint and the journal
+     */
+    public static DurableLevel2View recover(final Path directory, final SimpleLevel2View view, final GroupCommitPolicy policy)
+        throws IOException {
+        Files.createDirectories(directory);
+        final Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        long sequence = Files.exists(checkpoint) ? new SnapshotLoader(checkpoint).load(view) : 0;
+        final long checkpointSequence = sequence;
+        for (final Path segment : listSegments(directory)) {
+            final long start = segmentStart(segment);
+            if (start > sequence) {
+                throw new IllegalStateException("Journal records " + sequence + " to " + start + " are missing, before " + segment);
+            }
+            sequence = Math.max(sequence, start + new JournalReplayer(segment).replay(view, sequence - start));
+        }
+        log.info("Recovered {} events from the checkpoint and {} from the journal", checkpointSequence, sequence - checkpointSequence);
+
+        new SnapshotWriter(checkpoint).write(view, sequence);
+        for (final Path segment : listSegments(directory)) {
+            Files.delete(segment);
+        }
+        return new DurableLevel2View(view, directory, policy, sequence);
+    }
+
+    /***
+     * Saves the view as the new checkpoint, and starts a new journal segment - the older segments are deleted by the journal thread once
+     * it reaches the checkpoint. Runs on the caller thread and takes as long as writing the snapshot.
+     */
+    public void checkpoint() throws IOException {
+        checkJournal();
+        new SnapshotWriter(directory.resolve(CHECKPOINT_FILE)).write(view, sequence);
+        final long slot = ringBuffer.next();
+        final JournalEntry entry = ringBuffer.get(slot);
+        entry.type = JournalEntry.ROTATE;
+        entry.sequence = sequence;
+        ringBuffer.publish(slot);
+    }
+
+    // sequence of the last event forced to the storage device
+    public long getDurableSequence() {
+        return committer.getDurableSequence();
+    }
+
+    @Override
+    public void onNewOrder(final Side side, final BigDecimal price, final long quantity, final long orderId) {
+        onNewOrder(side, view.getPriceCodec().toTicks(price), quantity, orderId);
+    }
+
+    @Override
+    public void onNewOrder(final Side side, final long price, final long quantity, final long orderId) {
+        checkJournal();
+        view.onNewOrder(side, price, quantity, orderId);
+        if (view.getLastStatus() != EventStatus.ACCEPTED) {
+            return;
+        }
+        final JournalEntry entry = claim(JournalFormat.NEW_ORDER);
+        entry.side = side;
+        entry.price = price;
+        entry.quantity = quantity;
+        entry.orderId = orderId;
+        publish();
+    }
+
+    @Override
+    public void onCancelOrder(final long orderId) {
+        checkJournal();
+        view.onCancelOrder(orderId);
+        if (view.getLastStatus() != EventStatus.ACCEPTED) {
+            return;
+        }
+        claim(JournalFormat.CANCEL_ORDER).orderId = orderId;
+        publish();
+    }
+
+    @Override
+    public void onReplaceOrder(final BigDecimal price, final long quantity, final long orderId) {
+        onReplaceOrder(view.getPriceCodec().toTicks(price), quantity, orderId);
+    }
+
+    @Override
+    public void onReplaceOrder(final long price, final long quantity, final long orderId) {
+        checkJournal();
+        view.onReplaceOrder(price, quantity, orderId);
+        if (view.getLastStatus() != EventStatus.ACCEPTED) {
+            return;
+        }
+        final JournalEntry entry = claim(JournalFormat.REPLACE_ORDER);
+        entry.price = price;
+        entry.quantity = quantity;
+        entry.orderId = orderId;
+        publish();
+    }
+
+    @Override
+    public void onTrade(final long quantity, final long restingOrderId) {
+        checkJournal();
+        view.onTrade(quantity, restingOrderId);
+        if (view.getLastStatus() != EventStatus.ACCEPTED) {
+            return;
+        }
+        final JournalEntry entry = claim(JournalFormat.TRADE);
+        entry.quantity = quantity;
+        entry.orderId = restingOrderId;
+        publish();
+    }
+
+    @Override
+    public long getSizeForPriceLevel(final Side side, final BigDecimal price) {
+        return view.getSizeForPriceLevel(side, price);
+    }
+
+    @Override
+    public long getSizeForPriceLevel(final Side side, final long price) {
+        return view.getSizeForPriceLevel(side, price);
+    }
+
+    @Override
+    public long getBookDepth(final Side side) {
+        return view.getBookDepth(side);
+    }
+
+    @Override
+    public BigDecimal getTopOfBook(final Side side) {
+        return view.getTopOfBook(side);
+    }
+
+    @Override
+    public long getTopOfBookTicks(final Side side) {
+        return view.getTopOfBookTicks(side);
+    }
+
+    @Override
+    public int getDepth(final Side side, final int levels, final BigDecimal[] prices, final long[] sizes) {
+        return view.getDepth(side, levels, prices, sizes);
+    }
+
+    @Override
+    public int getDepth(final Side side, final int levels, final long[] prices, final long[] sizes) {
+        return view.getDepth(side, levels, prices, sizes);
+    }
+
+    @Override
+    public long getSizeBetween(final Side side, final BigDecimal fromPrice, final BigDecimal toPrice) {
+        return view.getSizeBetween(side, fromPrice, toPrice);
+    }
+
+    @Override
+    public long getSizeBetween(final Side side, final long fromPrice, final long toPrice) {
+        return view.getSizeBetween(side, fromPrice, toPrice);
+    }
+
+    @Override
+    public long getCumulativeSize(final Side side, final BigDecimal price) {
+        return view.getCumulativeSize(side, price);
+    }
+
+    @Override
+    public long getCumulativeSize(final Side side, final long price) {
+        return view.getCumulativeSize(side, price);
+    }
+
+    @Override
+    public BigDecimal getFillPrice(final Side side, final long quantity) {
+        return view.getFillPrice(side, quantity);
+    }
+
+    @Override
+    public long getFillPriceTicks(final Side side, final long quantity) {
+        return view.getFillPriceTicks(side, quantity);
+    }
+
+    @Override
+    public BigDecimal getSweepVwap(final Side side, final long quantity) {
+        return view.getSweepVwap(side, quantity);
+    }
+
+    /***
+     * Stops the journal thread once everything accepted is written, and commits it.
+     *
+     * @throws IOException if the journal failed
+     */
+    @Override
+    public void close() throws IOException, InterruptedException {
+        processor.halt();
+        journalThread.join();
+        committer.close();
+    }
+
+    // one volatile read per event
+    private void checkJournal() {
+        final RuntimeException failure = committer.getFailure();
+        if (failure != null) {
+            throw new IllegalStateException("The journal failed after sequence " + committer.getDurableSequence()
+                + ", the view must be recovered", failure);
+        }
+    }
+
+    private JournalEntry claim(final byte type) {
+        claimedSlot = ringBuffer.next();
+        final JournalEntry entry = ringBuffer.get(claimedSlot);
+        entry.type = type;
+        return entry;
+    }
+
+    private void publish() {
+        sequence++;
+        ringBuffer.publish(claimedSlot);
+    }
+
+    static Path segmentPath(final Path directory, final long start) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, start, SEGMENT_SUFFIX));
+    }
+
+    static long segmentStart(final Path segment) {
+        final String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    // segments of the directory, by sequence of their first record
+    static List<Path> listSegments(final Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(file -> {
+                    final String name = file.getFileName().toString();
+                    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                })
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+}
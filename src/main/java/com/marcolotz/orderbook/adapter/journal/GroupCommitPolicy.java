@@ -0,0 +1,33 @@
+package com.marcolotz.orderbook.adapter.journal;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+/***
+ * When the journal forces its records to the storage device. A force (fsync) costs the same for one record or thousands, so records are
+ * committed in groups: as soon as maxRecords are pending, or once the oldest pending record waited for maxDelay.
+ *
+ * A maxDelay of zero commits whenever the journal catches up with the events - the group is whatever arrived meanwhile.
+ */
+@Getter
+@ToString
+public class GroupCommitPolicy {
+
+    private final int maxRecords;
+    private final long maxDelayNanos;
+
+    public GroupCommitPolicy(final int maxRecords, final Duration maxDelay) {
+        if (maxRecords <= 0 || maxDelay.isNegative()) {
+            throw new IllegalArgumentException("Invalid group commit: " + maxRecords + " records, " + maxDelay);
+        }
+        this.maxRecords = maxRecords;
+        this.maxDelayNanos = maxDelay.toNanos();
+    }
+
+    // forces every record on its own: nothing accepted is ever lost, at the cost of one fsync per event
+    public static GroupCommitPolicy everyRecord() {
+        return new GroupCommitPolicy(1, Duration.ZERO);
+    }
+}
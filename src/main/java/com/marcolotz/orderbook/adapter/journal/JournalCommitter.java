@@ -0,0 +1,170 @@
+package com.marcolotz.orderbook.adapter.journal;
+
+import com.marcolotz.orderbook.core.ring.EventHandler;
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/***
+ * Journal thread of DurableLevel2View: appends the accepted events to the current segment and forces them following the group commit
+ * policy. Once a group is forced, its last sequence becomes durable.
+ *
+ * On rotation (after a checkpoint), the current segment is committed and closed, a segment starting at the checkpoint sequence is opened,
+ * and the older segments are deleted - the checkpoint already contains all their records.
+ *
+ * Failures are fail-stop: a record missing from the journal would make recovery replay the following ones against the wrong book. The
+ * first error (e.g. the disk is full) is latched, nothing is written after it and the durable sequence stops advancing - the view throws
+ * it on its next event.
+ */
+@Log4j2
+class JournalCommitter implements EventHandler<JournalEntry> {
+
+    private final Path directory;
+    private final PriceCodec priceCodec;
+    private final GroupCommitPolicy policy;
+
+    private JournalWriter writer;
+    private long segmentStart;
+    // sequence of the last record appended
+    private long written;
+    private int pending;
+    private long firstPendingNanos;
+    private volatile long durableSequence;
+    // first error of the journal thread, null while the journal is healthy
+    private volatile RuntimeException failure;
+
+    JournalCommitter(final Path directory, final PriceCodec priceCodec, final GroupCommitPolicy policy, final long sequence)
+        throws IOException {
+        this.directory = directory;
+        this.priceCodec = priceCodec;
+        this.policy = policy;
+        this.written = sequence;
+        this.durableSequence = sequence;
+        openSegment(sequence);
+    }
+
+    @Override
+    public void onEvent(final JournalEntry entry, final long ringSequence, final boolean endOfBatch) {
+        if (failure != null) {
+            return;
+        }
+        try {
+            append(entry, endOfBatch);
+        } catch (RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onIdle() {
+        if (failure == null && pending > 0 && isDelayExpired()) {
+            try {
+                commit();
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+        }
+    }
+
+    long getDurableSequence() {
+        return durableSequence;
+    }
+
+    RuntimeException getFailure() {
+        return failure;
+    }
+
+    /***
+     * Commits what is pending and closes the segment. Only called once the journal thread is stopped.
+     *
+     * @throws IOException if the journal failed before - what was pending is not committed
+     */
+    void close() throws IOException {
+        if (failure != null) {
+            final IOException exception = new IOException("The journal failed after sequence " + durableSequence, failure);
+            try {
+                writer.close();
+            } catch (IOException | RuntimeException e) {
+                exception.addSuppressed(e);
+            }
+            throw exception;
+        }
+        commit();
+        writer.close();
+    }
+
+    private void append(final JournalEntry entry, final boolean endOfBatch) {
+        switch (entry.type) {
+            case JournalFormat.NEW_ORDER:
+                writer.onNewOrder(entry.side, entry.price, entry.quantity, entry.orderId);
+                break;
+            case JournalFormat.CANCEL_ORDER:
+                writer.onCancelOrder(entry.orderId);
+                break;
+            case JournalFormat.REPLACE_ORDER:
+                writer.onReplaceOrder(entry.price, entry.quantity, entry.orderId);
+                break;
+            case JournalFormat.TRADE:
+                writer.onTrade(entry.quantity, entry.orderId);
+                break;
+            case JournalEntry.ROTATE:
+                rotate(entry.sequence);
+                return;
+            default:
+                throw new IllegalStateException("Unknown journal entry type: " + entry.type);
+        }
+        written++;
+        if (pending++ == 0) {
+            firstPendingNanos = System.nanoTime();
+        }
+        if (pending >= policy.getMaxRecords() || endOfBatch && isDelayExpired()) {
+            commit();
+        }
+    }
+
+    private void fail(final RuntimeException e) {
+        log.error("Journal failed after sequence {}, nothing is journaled anymore", durableSequence, e);
+        failure = e;
+    }
+
+    private boolean isDelayExpired() {
+        return System.nanoTime() - firstPendingNanos >= policy.getMaxDelayNanos();
+    }
+
+    private void commit() {
+        if (pending > 0) {
+            writer.flush();
+            pending = 0;
+        }
+        durableSequence = written;
+    }
+
+    private void rotate(final long sequence) {
+        if (sequence == segmentStart) {
+            // nothing was journaled since the segment started, the checkpoint already covers it
+            return;
+        }
+        try {
+            close();
+            final long previousStart = segmentStart;
+            openSegment(sequence);
+            for (final Path segment : DurableLevel2View.listSegments(directory)) {
+                if (DurableLevel2View.segmentStart(segment) <= previousStart) {
+                    Files.delete(segment);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not rotate the journal at " + sequence, e);
+        }
+        log.info("Journal rotated at sequence {}", sequence);
+    }
+
+    private void openSegment(final long sequence) throws IOException {
+        writer = new JournalWriter(DurableLevel2View.segmentPath(directory, sequence), priceCodec);
+        segmentStart = sequence;
+    }
+}
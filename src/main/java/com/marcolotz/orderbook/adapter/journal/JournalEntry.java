@@ -0,0 +1,20 @@
+package com.marcolotz.orderbook.adapter.journal;
+
+import com.marcolotz.orderbook.port.Side;
+
+/***
+ * Mutable slot of the ring buffer between the book thread and the journal thread: an accepted event (types of JournalFormat), or a
+ * request to start a new journal segment after a checkpoint.
+ */
+class JournalEntry {
+
+    // not a record type: starts a new segment whose first record is "sequence"
+    static final byte ROTATE = -1;
+
+    byte type;
+    Side side;
+    long price;
+    long quantity;
+    long orderId;
+    long sequence;
+}
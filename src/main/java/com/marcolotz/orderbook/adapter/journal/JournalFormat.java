@@ -0,0 +1,56 @@
+package com.marcolotz.orderbook.adapter.journal;
+
+import com.marcolotz.orderbook.port.Side;
+
+import java.nio.ByteOrder;
+
+/***
+ * Binary layout of the event journal.
+ *
+ * The file starts with a header of RECORD_SIZE bytes (magic number, format version and record size), followed by fixed-width records:
+ *
+ * <pre>
+ * offset  size  field
+ *      0     1  type      (NEW_ORDER, CANCEL_ORDER, REPLACE_ORDER, TRADE - 0 marks the end of the journal)
+ *      1     1  side      (ordinal of Side, only meaningful on NEW_ORDER)
+ *      2     6  padding
+ *      8     8  orderId
+ *     16     8  price     (ticks of the instrument, only meaningful on NEW_ORDER and REPLACE_ORDER)
+ *     24     8  quantity  (unused on CANCEL_ORDER)
+ * </pre>
+ *
+ * Records are 32 bytes and aligned on 32 bytes, so they never cross a cache line and the longs are always naturally aligned. All values
+ * are little endian.
+ */
+public final class JournalFormat {
+
+    public static final int RECORD_SIZE = 32;
+    public static final int HEADER_SIZE = RECORD_SIZE;
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    // "L2JOURNL" in ASCII
+    static final long MAGIC = 0x4C324A4F55524E4CL;
+    static final int VERSION = 1;
+
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 8;
+    static final int RECORD_SIZE_OFFSET = 12;
+
+    static final int TYPE_OFFSET = 0;
+    static final int SIDE_OFFSET = 1;
+    static final int ORDER_ID_OFFSET = 8;
+    static final int PRICE_OFFSET = 16;
+    static final int QUANTITY_OFFSET = 24;
+
+    public static final byte END_OF_JOURNAL = 0;
+    public static final byte NEW_ORDER = 1;
+    public static final byte CANCEL_ORDER = 2;
+    public static final byte REPLACE_ORDER = 3;
+    public static final byte TRADE = 4;
+
+    // Side.values() clones the array on every call
+    static final Side[] SIDES = Side.values();
+
+    private JournalFormat() {
+    }
+}
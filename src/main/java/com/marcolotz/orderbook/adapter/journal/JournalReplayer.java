@@ -0,0 +1,144 @@
+package com.marcolotz.orderbook.adapter.journal;
+
+import com.marcolotz.orderbook.port.Level2EventListener;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.BYTE_ORDER;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.CANCEL_ORDER;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.END_OF_JOURNAL;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.HEADER_SIZE;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.MAGIC;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.MAGIC_OFFSET;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.NEW_ORDER;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.ORDER_ID_OFFSET;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.PRICE_OFFSET;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.QUANTITY_OFFSET;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.RECORD_SIZE;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.RECORD_SIZE_OFFSET;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.REPLACE_ORDER;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.SIDES;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.SIDE_OFFSET;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.TRADE;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.TYPE_OFFSET;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.VERSION;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.VERSION_OFFSET;
+
+/***
+ * Replays a journal written by JournalWriter into any Level2EventListener, through its fixed-point (ticks) methods.
+ *
+ * The file is mapped read-only, region by region, and records are decoded with absolute reads on the mapped memory: there is no copy
+ * into heap buffers and no allocation per record - only one mapping per region. Replay speed is bounded by the page cache (or the disk),
+ * and by the listener itself.
+ */
+public class JournalReplayer {
+
+    // 1GB, a multiple of RECORD_SIZE
+    private static final long DEFAULT_REGION_SIZE = 1L << 30;
+
+    private final Path path;
+    private final long regionSize;
+
+    public JournalReplayer(final Path path) {
+        this(path, DEFAULT_REGION_SIZE);
+    }
+
+    JournalReplayer(final Path path, final long regionSize) {
+        if (regionSize <= 0 || regionSize % RECORD_SIZE != 0) {
+            throw new IllegalArgumentException("Region size must be a positive multiple of " + RECORD_SIZE + ": " + regionSize);
+        }
+        this.path = path;
+        this.regionSize = regionSize;
+    }
+
+    /***
+     * Dispatches every record of the journal to the listener, in the order they were written.
+     *
+     * @param listener receiver of the events
+     * @return number of records replayed
+     * @throws IOException              if the journal can't be read
+     * @throws IllegalArgumentException if the file is not a journal, or has an unknown record type
+     */
+    public long replay(final Level2EventListener listener) throws IOException {
+        return replay(listener, 0);
+    }
+
+    /***
+     * Dispatches the records of the journal to the listener, in the order they were written, after skipping the first ones - e.g. the
+     * records already contained in a checkpoint.
+     *
+     * @param listener    receiver of the events
+     * @param skipRecords number of records at the start of the journal that are not dispatched
+     * @return number of records in the journal, including the skipped ones
+     * @throws IOException              if the journal can't be read
+     * @throws IllegalArgumentException if the file is not a journal, or has an unknown record type
+     */
+    public long replay(final Level2EventListener listener, final long skipRecords) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IllegalArgumentException("Not a journal: " + path);
+            }
+            long records = 0;
+            for (long regionStart = 0; regionStart < size; regionStart += regionSize) {
+                final long length = Math.min(regionSize, size - regionStart);
+                final MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, length);
+                region.order(BYTE_ORDER);
+                int offset = 0;
+                if (regionStart == 0) {
+                    checkHeader(region);
+                    offset = HEADER_SIZE;
+                }
+                for (; offset + RECORD_SIZE <= region.limit(); offset += RECORD_SIZE) {
+                    if (records < skipRecords) {
+                        if (region.get(offset + TYPE_OFFSET) == END_OF_JOURNAL) {
+                            return records;
+                        }
+                    } else if (!dispatch(region, offset, listener)) {
+                        return records;
+                    }
+                    records++;
+                }
+            }
+            return records;
+        }
+    }
+
+    /***
+     * @return false at the end of the journal
+     */
+    private boolean dispatch(final MappedByteBuffer region, final int offset, final Level2EventListener listener) {
+        final byte type = region.get(offset + TYPE_OFFSET);
+        switch (type) {
+            case NEW_ORDER:
+                listener.onNewOrder(SIDES[region.get(offset + SIDE_OFFSET)], region.getLong(offset + PRICE_OFFSET),
+                    region.getLong(offset + QUANTITY_OFFSET), region.getLong(offset + ORDER_ID_OFFSET));
+                return true;
+            case CANCEL_ORDER:
+                listener.onCancelOrder(region.getLong(offset + ORDER_ID_OFFSET));
+                return true;
+            case REPLACE_ORDER:
+                listener.onReplaceOrder(region.getLong(offset + PRICE_OFFSET), region.getLong(offset + QUANTITY_OFFSET),
+                    region.getLong(offset + ORDER_ID_OFFSET));
+                return true;
+            case TRADE:
+                listener.onTrade(region.getLong(offset + QUANTITY_OFFSET), region.getLong(offset + ORDER_ID_OFFSET));
+                return true;
+            case END_OF_JOURNAL:
+                return false;
+            default:
+                throw new IllegalArgumentException("Unknown record type " + type + " on " + path);
+        }
+    }
+
+    private void checkHeader(final MappedByteBuffer region) {
+        if (region.getLong(MAGIC_OFFSET) != MAGIC || region.getInt(VERSION_OFFSET) != VERSION
+            || region.getInt(RECORD_SIZE_OFFSET) != RECORD_SIZE) {
+            throw new IllegalArgumentException("Not a journal, or unsupported version: " + path);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.marcolotz.orderbook.adapter.journal;
+
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import com.marcolotz.orderbook.port.Level2EventListener;
+import com.marcolotz.orderbook.port.Side;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.BYTE_ORDER;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.CANCEL_ORDER;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.HEADER_SIZE;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.MAGIC;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.MAGIC_OFFSET;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.NEW_ORDER;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.ORDER_ID_OFFSET;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.PRICE_OFFSET;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.QUANTITY_OFFSET;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.RECORD_SIZE;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.RECORD_SIZE_OFFSET;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.REPLACE_ORDER;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.SIDE_OFFSET;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.TRADE;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.TYPE_OFFSET;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.VERSION;
+import static com.marcolotz.orderbook.adapter.journal.JournalFormat.VERSION_OFFSET;
+
+/***
+ * Appends Level2 events to a memory-mapped journal file (see JournalFormat).
+ *
+ * The writer is itself a Level2EventListener, so a feed can be captured by sending its events here as well as to the view. Records are
+ * written straight into the mapped region with absolute puts - appending does not allocate nor call the kernel. The file is mapped in
+ * regions of a fixed size: only moving to the next region maps memory (and grows the file).
+ *
+ * Durability is left to the OS page cache unless flush() is called. On close, the file is truncated to the records written. A journal
+ * left by a crashed writer still replays: the unwritten tail of the last region is zeroed, which reads as the end of the journal.
+ *
+ * Not thread safe - there is a single writer per journal.
+ */
+public class JournalWriter implements Level2EventListener, Closeable {
+
+    // 64MB, a multiple of RECORD_SIZE
+    private static final long DEFAULT_REGION_SIZE = 64L << 20;
+
+    private final FileChannel channel;
+    private final PriceCodec priceCodec;
+    private final long regionSize;
+
+    private MappedByteBuffer region;
+    // file offset of the start of the current region
+    private long regionStart;
+    // offset of the next record in the current region
+    private int regionOffset;
+
+    @Getter
+    private long recordCount;
+
+    public JournalWriter(final Path path, final PriceCodec priceCodec) throws IOException {
+        this(path, priceCodec, DEFAULT_REGION_SIZE);
+    }
+
+    JournalWriter(final Path path, final PriceCodec priceCodec, final long regionSize) throws IOException {
+        if (regionSize <= 0 || regionSize % RECORD_SIZE != 0) {
+            throw new IllegalArgumentException("Region size must be a positive multiple of " + RECORD_SIZE + ": " + regionSize);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.priceCodec = priceCodec;
+        this.regionSize = regionSize;
+        mapRegion(0);
+        region.putLong(MAGIC_OFFSET, MAGIC);
+        region.putInt(VERSION_OFFSET, VERSION);
+        region.putInt(RECORD_SIZE_OFFSET, RECORD_SIZE);
+        regionOffset = HEADER_SIZE;
+    }
+
+    @Override
+    public void onNewOrder(final Side side, final BigDecimal price, final long quantity, final long orderId) {
+        onNewOrder(side, priceCodec.toTicks(price), quantity, orderId);
+    }
+
+    @Override
+    public void onNewOrder(final Side side, final long price, final long quantity, final long orderId) {
+        final int offset = nextRecord();
+        region.put(offset + SIDE_OFFSET, (byte) side.ordinal());
+        region.putLong(offset + ORDER_ID_OFFSET, orderId);
+        region.putLong(offset + PRICE_OFFSET, price);
+        region.putLong(offset + QUANTITY_OFFSET, quantity);
+        commit(offset, NEW_ORDER);
+    }
+
+    @Override
+    public void onCancelOrder(final long orderId) {
+        final int offset = nextRecord();
+        region.putLong(offset + ORDER_ID_OFFSET, orderId);
+        commit(offset, CANCEL_ORDER);
+    }
+
+    @Override
+    public void onReplaceOrder(final BigDecimal price, final long quantity, final long orderId) {
+        onReplaceOrder(priceCodec.toTicks(price), quantity, orderId);
+    }
+
+    @Override
+    public void onReplaceOrder(final long price, final long quantity, final long orderId) {
+        final int offset = nextRecord();
+        region.putLong(offset + ORDER_ID_OFFSET, orderId);
+        region.putLong(offset + PRICE_OFFSET, price);
+        region.putLong(offset + QUANTITY_OFFSET, quantity);
+        commit(offset, REPLACE_ORDER);
+    }
+
+    @Override
+    public void onTrade(final long quantity, final long restingOrderId) {
+        final int offset = nextRecord();
+        region.putLong(offset + ORDER_ID_OFFSET, restingOrderId);
+        region.putLong(offset + QUANTITY_OFFSET, quantity);
+        commit(offset, TRADE);
+    }
+
+    /***
+     * Forces the records written so far to the storage device.
+     */
+    public void flush() {
+        region.force();
+    }
+
+    /***
+     * Flushes the journal and truncates the file to the records written.
+     */
+    @Override
+    public void close() throws IOException {
+        region.force();
+        channel.truncate(regionStart + regionOffset);
+        channel.close();
+    }
+
+    /***
+     * @return offset of a free record in the current region, moving to the next region if the current one is full
+     */
+    private int nextRecord() {
+        if (regionOffset == regionSize) {
+            try {
+                mapRegion(regionStart + regionSize);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not extend the journal", e);
+            }
+        }
+        final int offset = regionOffset;
+        regionOffset += RECORD_SIZE;
+        return offset;
+    }
+
+    // a zero type marks the end of the journal. Plain puts give no ordering to another thread or process, and only force() makes records
+    // survive a crash: the journal is read once the writer is closed or gone, with the zeroed tail of the region as its end.
+    private void commit(final int offset, final byte type) {
+        region.put(offset + TYPE_OFFSET, type);
+        recordCount++;
+    }
+
+    private void mapRegion(final long start) throws IOException {
+        if (region != null) {
+            region.force();
+        }
+        region = channel.map(FileChannel.MapMode.READ_WRITE, start, regionSize);
+        region.order(BYTE_ORDER);
+        regionStart = start;
+        regionOffset = 0;
+    }
+}
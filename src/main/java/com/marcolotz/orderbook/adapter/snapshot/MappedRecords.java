@@ -0,0 +1,76 @@
+package com.marcolotz.orderbook.adapter.snapshot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.BYTE_ORDER;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.RECORD_SIZE;
+
+/***
+ * Sequential access to the records of a snapshot file after its header, mapped region by region. Only moving to the next region maps
+ * memory.
+ */
+class MappedRecords {
+
+    private final FileChannel channel;
+    private final FileChannel.MapMode mode;
+    private final long regionSize;
+    private final long fileSize;
+
+    private MappedByteBuffer region;
+    // file offset of the start of the current region
+    private long regionStart;
+    // offset of the next record in the current region
+    private int regionOffset;
+
+    MappedRecords(final FileChannel channel, final FileChannel.MapMode mode, final long regionSize, final long start, final long fileSize)
+        throws IOException {
+        if (regionSize <= 0 || regionSize % RECORD_SIZE != 0) {
+            throw new IllegalArgumentException("Region size must be a positive multiple of " + RECORD_SIZE + ": " + regionSize);
+        }
+        this.channel = channel;
+        this.mode = mode;
+        this.regionSize = regionSize;
+        this.fileSize = fileSize;
+        mapRegion(start);
+    }
+
+    /***
+     * @return offset in region() of the next record - region() must be read again after each call, as it may have moved
+     */
+    int next() {
+        if (regionOffset == region.limit()) {
+            if (regionStart + regionOffset >= fileSize) {
+                throw new IllegalArgumentException("Snapshot ends before its last record");
+            }
+            try {
+                mapRegion(regionStart + regionOffset);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not map the snapshot", e);
+            }
+        }
+        final int offset = regionOffset;
+        regionOffset += RECORD_SIZE;
+        return offset;
+    }
+
+    MappedByteBuffer region() {
+        return region;
+    }
+
+    void force() {
+        region.force();
+    }
+
+    private void mapRegion(final long start) throws IOException {
+        if (region != null && mode == FileChannel.MapMode.READ_WRITE) {
+            region.force();
+        }
+        region = channel.map(mode, start, Math.min(regionSize, fileSize - start));
+        region.order(BYTE_ORDER);
+        regionStart = start;
+        regionOffset = 0;
+    }
+}
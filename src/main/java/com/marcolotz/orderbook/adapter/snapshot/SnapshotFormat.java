@@ -0,0 +1,68 @@
+package com.marcolotz.orderbook.adapter.snapshot;
+
+import com.marcolotz.orderbook.port.Side;
+
+import java.nio.ByteOrder;
+
+/***
+ * Binary layout of a point-in-time snapshot of a book.
+ *
+ * The file starts with a header of HEADER_SIZE bytes:
+ *
+ * <pre>
+ * offset  size  field
+ *      0     8  magic          (written last: a snapshot without it is incomplete)
+ *      8     4  version
+ *     12     4  record size
+ *     16     8  sequence       (position on the feed of the last event applied to the book, e.g. number of journal records)
+ *     24     8  tick size      (unscaled value)
+ *     32     4  tick size      (scale)
+ *     36     4  padding
+ *     40     8  ASK levels
+ *     48     8  BID levels
+ *     56     8  orders
+ * </pre>
+ *
+ * followed by the levels of each side (ASK then BID) from the best price to the worst. Each level is a level record followed by one order
+ * record per order, in queue order:
+ *
+ * <pre>
+ * level record              order record
+ * offset  size  field       offset  size  field
+ *      0     8  price            0     8  orderId
+ *      8     8  orders           8     8  quantity
+ * </pre>
+ *
+ * Prices are in ticks of the instrument. Records are 16 bytes, so the longs are always naturally aligned. All values are little endian.
+ */
+public final class SnapshotFormat {
+
+    public static final int RECORD_SIZE = 16;
+    public static final int HEADER_SIZE = 4 * RECORD_SIZE;
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    // "L2SNAPSH" in ASCII
+    static final long MAGIC = 0x4C32534E41505348L;
+    static final int VERSION = 1;
+
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 8;
+    static final int RECORD_SIZE_OFFSET = 12;
+    static final int SEQUENCE_OFFSET = 16;
+    static final int TICK_SIZE_UNSCALED_OFFSET = 24;
+    static final int TICK_SIZE_SCALE_OFFSET = 32;
+    // followed by the level count of each side, by ordinal
+    static final int LEVEL_COUNT_OFFSET = 40;
+    static final int ORDER_COUNT_OFFSET = 56;
+
+    static final int PRICE_OFFSET = 0;
+    static final int LEVEL_ORDERS_OFFSET = 8;
+    static final int ORDER_ID_OFFSET = 0;
+    static final int QUANTITY_OFFSET = 8;
+
+    // Side.values() clones the array on every call
+    static final Side[] SIDES = Side.values();
+
+    private SnapshotFormat() {
+    }
+}
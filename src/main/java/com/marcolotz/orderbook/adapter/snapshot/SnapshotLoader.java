@@ -0,0 +1,145 @@
+package com.marcolotz.orderbook.adapter.snapshot;
+
+import com.marcolotz.orderbook.core.SimpleLevel2View;
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import com.marcolotz.orderbook.port.Side;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.BYTE_ORDER;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.HEADER_SIZE;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.LEVEL_COUNT_OFFSET;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.LEVEL_ORDERS_OFFSET;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.MAGIC;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.MAGIC_OFFSET;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.ORDER_COUNT_OFFSET;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.ORDER_ID_OFFSET;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.PRICE_OFFSET;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.QUANTITY_OFFSET;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.RECORD_SIZE;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.RECORD_SIZE_OFFSET;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.SEQUENCE_OFFSET;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.SIDES;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.TICK_SIZE_SCALE_OFFSET;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.TICK_SIZE_UNSCALED_OFFSET;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.VERSION;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.VERSION_OFFSET;
+
+/***
+ * Rebuilds a view from a snapshot written by SnapshotWriter.
+ *
+ * The header is read when the loader is created, so that the view can be sized for the snapshot before loading it:
+ *
+ * <pre>
+ * SnapshotLoader loader = new SnapshotLoader(path);
+ * SimpleLevel2View view = new SimpleLevel2View(loader.getPriceCodec(), new TreeOrderBook(ASK), new TreeOrderBook(BID),
+ *     (int) loader.getOrderCount());
+ * long sequence = loader.load(view); // replay the feed from there
+ * </pre>
+ *
+ * Loading only touches the resting orders, already sorted by price and queue position, and restores them without the checks of the event
+ * path (SimpleLevel2View.restoreOrder) - compared to replaying the day, cancelled and filled orders are never seen.
+ */
+public class SnapshotLoader {
+
+    // 1GB, a multiple of RECORD_SIZE
+    private static final long DEFAULT_REGION_SIZE = 1L << 30;
+
+    private final Path path;
+    private final long regionSize;
+
+    @Getter
+    private final long sequence;
+    @Getter
+    private final long orderCount;
+    private final BigDecimal tickSize;
+    private final long[] levelCounts = new long[SIDES.length];
+    private final long fileSize;
+
+    public SnapshotLoader(final Path path) throws IOException {
+        this(path, DEFAULT_REGION_SIZE);
+    }
+
+    SnapshotLoader(final Path path, final long regionSize) throws IOException {
+        this.path = path;
+        this.regionSize = regionSize;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            fileSize = channel.size();
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(BYTE_ORDER);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read the whole header
+            }
+            if (header.hasRemaining() || header.getLong(MAGIC_OFFSET) != MAGIC || header.getInt(VERSION_OFFSET) != VERSION
+                || header.getInt(RECORD_SIZE_OFFSET) != RECORD_SIZE) {
+                throw new IllegalArgumentException("Not a complete snapshot, or unsupported version: " + path);
+            }
+            sequence = header.getLong(SEQUENCE_OFFSET);
+            tickSize = BigDecimal.valueOf(header.getLong(TICK_SIZE_UNSCALED_OFFSET), header.getInt(TICK_SIZE_SCALE_OFFSET));
+            orderCount = header.getLong(ORDER_COUNT_OFFSET);
+            long records = orderCount;
+            for (final Side side : SIDES) {
+                levelCounts[side.ordinal()] = header.getLong(LEVEL_COUNT_OFFSET + Long.BYTES * side.ordinal());
+                records += levelCounts[side.ordinal()];
+            }
+            if (fileSize != HEADER_SIZE + records * RECORD_SIZE) {
+                throw new IllegalArgumentException("Snapshot size does not match its header: " + path);
+            }
+        }
+    }
+
+    // codec of the instrument the snapshot was taken from
+    public PriceCodec getPriceCodec() {
+        return new PriceCodec(tickSize);
+    }
+
+    /***
+     * Restores the snapshot into the view.
+     *
+     * @param view empty view, with the tick size of the snapshot
+     * @return sequence of the snapshot: position on the feed of the last event it contains
+     * @throws IOException              if the snapshot can't be read
+     * @throws IllegalArgumentException if the snapshot is inconsistent or was taken with another tick size
+     * @throws IllegalStateException    if the view is not empty
+     */
+    public long load(final SimpleLevel2View view) throws IOException {
+        if (view.getOrderCount() != 0) {
+            throw new IllegalStateException("Snapshots can only be loaded into an empty view");
+        }
+        if (view.getPriceCodec().getTickSize().compareTo(tickSize) != 0) {
+            throw new IllegalArgumentException(
+                "Snapshot tick size " + tickSize + " does not match the view: " + view.getPriceCodec().getTickSize());
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final MappedRecords records = new MappedRecords(channel, FileChannel.MapMode.READ_ONLY, regionSize, HEADER_SIZE, fileSize);
+            long orders = 0;
+            for (final Side side : SIDES) {
+                for (long level = 0; level < levelCounts[side.ordinal()]; level++) {
+                    int offset = records.next();
+                    MappedByteBuffer region = records.region();
+                    final long price = region.getLong(offset + PRICE_OFFSET);
+                    final long levelOrders = region.getLong(offset + LEVEL_ORDERS_OFFSET);
+                    for (long order = 0; order < levelOrders; order++) {
+                        offset = records.next();
+                        region = records.region();
+                        view.restoreOrder(side, price, region.getLong(offset + QUANTITY_OFFSET), region.getLong(offset + ORDER_ID_OFFSET));
+                    }
+                    orders += levelOrders;
+                }
+            }
+            if (orders != orderCount) {
+                throw new IllegalArgumentException("Snapshot has " + orders + " orders, " + orderCount + " expected: " + path);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return sequence;
+    }
+}
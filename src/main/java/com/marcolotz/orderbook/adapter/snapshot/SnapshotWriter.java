@@ -0,0 +1,112 @@
+package com.marcolotz.orderbook.adapter.snapshot;
+
+import com.marcolotz.orderbook.core.SimpleLevel2View;
+import com.marcolotz.orderbook.core.model.Order;
+import com.marcolotz.orderbook.port.Side;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.BYTE_ORDER;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.HEADER_SIZE;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.LEVEL_COUNT_OFFSET;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.LEVEL_ORDERS_OFFSET;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.MAGIC;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.MAGIC_OFFSET;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.ORDER_COUNT_OFFSET;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.ORDER_ID_OFFSET;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.PRICE_OFFSET;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.QUANTITY_OFFSET;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.RECORD_SIZE;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.RECORD_SIZE_OFFSET;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.SEQUENCE_OFFSET;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.SIDES;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.TICK_SIZE_SCALE_OFFSET;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.TICK_SIZE_UNSCALED_OFFSET;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.VERSION;
+import static com.marcolotz.orderbook.adapter.snapshot.SnapshotFormat.VERSION_OFFSET;
+
+/***
+ * Writes the resting orders of a view to a snapshot file (see SnapshotFormat).
+ *
+ * The size of the snapshot is known up-front (levels and orders are counted by the books), so the file is mapped and filled with absolute
+ * puts in a single pass over the levels - no serialization framework, no copy into heap buffers. The snapshot is written to a temporary
+ * file which replaces the target once complete and forced to the device: a crash while writing leaves the previous snapshot in place.
+ *
+ * The view must not change while the snapshot is written: call it from the thread applying the events.
+ */
+public class SnapshotWriter {
+
+    // 64MB, a multiple of RECORD_SIZE
+    private static final long DEFAULT_REGION_SIZE = 64L << 20;
+
+    private final Path path;
+    private final long regionSize;
+
+    public SnapshotWriter(final Path path) {
+        this(path, DEFAULT_REGION_SIZE);
+    }
+
+    SnapshotWriter(final Path path, final long regionSize) {
+        this.path = path;
+        this.regionSize = regionSize;
+    }
+
+    /***
+     * @param view     view to be saved
+     * @param sequence position on the feed of the last event applied to the view, returned by SnapshotLoader on restart
+     * @return number of orders written
+     * @throws IOException if the snapshot can't be written
+     */
+    public long write(final SimpleLevel2View view, final long sequence) throws IOException {
+        final long orders = view.getOrderCount();
+        long levels = 0;
+        for (final Side side : SIDES) {
+            levels += view.getBookDepth(side);
+        }
+        final long size = HEADER_SIZE + (levels + orders) * RECORD_SIZE;
+        final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.order(BYTE_ORDER);
+            final MappedRecords records = new MappedRecords(channel, FileChannel.MapMode.READ_WRITE, regionSize, HEADER_SIZE, size);
+            header.putInt(VERSION_OFFSET, VERSION);
+            header.putInt(RECORD_SIZE_OFFSET, RECORD_SIZE);
+            header.putLong(SEQUENCE_OFFSET, sequence);
+            final BigDecimal tickSize = view.getPriceCodec().getTickSize();
+            header.putLong(TICK_SIZE_UNSCALED_OFFSET, tickSize.unscaledValue().longValueExact());
+            header.putInt(TICK_SIZE_SCALE_OFFSET, tickSize.scale());
+            header.putLong(ORDER_COUNT_OFFSET, orders);
+            for (final Side side : SIDES) {
+                header.putLong(LEVEL_COUNT_OFFSET + Long.BYTES * side.ordinal(), view.getBookDepth(side));
+                try {
+                    view.forEachLevel(side, level -> {
+                        int offset = records.next();
+                        records.region().putLong(offset + PRICE_OFFSET, level.getPrice());
+                        records.region().putLong(offset + LEVEL_ORDERS_OFFSET, level.getOrderCount());
+                        for (Order order = level.getHead(); order != null; order = order.getNext()) {
+                            offset = records.next();
+                            records.region().putLong(offset + ORDER_ID_OFFSET, order.getId());
+                            records.region().putLong(offset + QUANTITY_OFFSET, order.getQuantity());
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            }
+            records.force();
+            header.putLong(MAGIC_OFFSET, MAGIC);
+            header.force();
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return orders;
+    }
+}
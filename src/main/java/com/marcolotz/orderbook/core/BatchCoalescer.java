@@ -0,0 +1,78 @@
+package com.marcolotz.orderbook.core;
+
+import com.marcolotz.orderbook.core.util.LongIntHashMap;
+import com.marcolotz.orderbook.core.util.LongObjectHashMap;
+import com.marcolotz.orderbook.port.EventBatch;
+
+import java.util.Arrays;
+
+/***
+ * Finds the orders that are added and cancelled within the same batch, without any other event in between (e.g. fleeting quotes during
+ * open/close bursts). Both events can be skipped: the order would be linked into the book and unlinked again, with no visible effect once
+ * the batch is applied.
+ *
+ * Pending adds are indexed by order id on a LongIntHashMap owned by the coalescer, cleared in O(1) for each batch, so the coalescer does
+ * not allocate after it has seen its largest batch. Not thread safe.
+ */
+class BatchCoalescer {
+
+    private static final int UNPAIRABLE = -1;
+
+    // order id -> index on the batch of its pending add, UNPAIRABLE once the order was modified or added again: it stays in the map until
+    // it's cancelled, so that later adds of the id are still seen as duplicates
+    private final LongIntHashMap pendingAdds = new LongIntHashMap(0);
+
+    private boolean[] skipped = new boolean[0];
+
+    /***
+     * @param batch   events to be applied
+     * @param resting orders resting before the batch - adding them again is a duplicate, which must not be hidden
+     * @return number of events to be skipped
+     */
+    int coalesce(final EventBatch batch, final LongObjectHashMap<?> resting) {
+        if (skipped.length < batch.capacity()) {
+            skipped = new boolean[batch.capacity()];
+        }
+        pendingAdds.ensureCapacity(batch.capacity());
+        pendingAdds.clear();
+        Arrays.fill(skipped, 0, batch.size(), false);
+        int skippedEvents = 0;
+        for (int index = 0; index < batch.size(); index++) {
+            final long orderId = batch.getOrderId(index);
+            switch (batch.getType(index)) {
+                case EventBatch.NEW_ORDER:
+                    final int pendingSlot = pendingAdds.find(orderId);
+                    if (pendingSlot >= 0) {
+                        // a second add of the same id is a duplicate, left to the view to reject: the first add must not be hidden
+                        pendingAdds.setValueAt(pendingSlot, UNPAIRABLE);
+                    } else if (!resting.containsKey(orderId)) {
+                        pendingAdds.put(orderId, index);
+                    }
+                    break;
+                case EventBatch.CANCEL_ORDER:
+                    final int slot = pendingAdds.find(orderId);
+                    if (slot >= 0) {
+                        final int addIndex = pendingAdds.valueAt(slot);
+                        if (addIndex != UNPAIRABLE) {
+                            skipped[addIndex] = true;
+                            skipped[index] = true;
+                            skippedEvents += 2;
+                        }
+                        pendingAdds.removeAt(slot);
+                    }
+                    break;
+                default:
+                    // the order was modified in between: it is not a pure add/cancel pair anymore
+                    final int modifiedSlot = pendingAdds.find(orderId);
+                    if (modifiedSlot >= 0) {
+                        pendingAdds.setValueAt(modifiedSlot, UNPAIRABLE);
+                    }
+            }
+        }
+        return skippedEvents;
+    }
+
+    boolean isSkipped(final int index) {
+        return skipped[index];
+    }
+}
@@ -0,0 +1,74 @@
+package com.marcolotz.orderbook.core;
+
+import com.marcolotz.orderbook.port.Level2Update;
+import com.marcolotz.orderbook.port.Level2UpdateListener;
+import com.marcolotz.orderbook.port.LevelChangeListener;
+import com.marcolotz.orderbook.port.Side;
+
+import java.util.Arrays;
+
+/***
+ * Collects the level changes reported by the books while an event is applied, and hands them to the subscribers as a single Level2Update
+ * once the event is done. A level changed more than once by the same event (e.g. an order re-queued on its own price) is only reported
+ * with its final state.
+ *
+ * Nothing is recorded while there are no subscribers. The subscribers array is copied on (un)subscribe, which is rare, so publishing is a
+ * plain array walk.
+ */
+class Level2DeltaPublisher implements LevelChangeListener {
+
+    // An event changes at most two levels
+    private static final int UPDATE_CAPACITY = 4;
+
+    private final Level2Update update = new Level2Update(UPDATE_CAPACITY);
+    private Level2UpdateListener[] subscribers = new Level2UpdateListener[0];
+    private long sequence;
+
+    void subscribe(final Level2UpdateListener subscriber) {
+        subscribers = Arrays.copyOf(subscribers, subscribers.length + 1);
+        subscribers[subscribers.length - 1] = subscriber;
+    }
+
+    void unsubscribe(final Level2UpdateListener subscriber) {
+        for (int i = 0; i < subscribers.length; i++) {
+            if (subscribers[i] == subscriber) {
+                final Level2UpdateListener[] remaining = new Level2UpdateListener[subscribers.length - 1];
+                System.arraycopy(subscribers, 0, remaining, 0, i);
+                System.arraycopy(subscribers, i + 1, remaining, i, remaining.length - i);
+                subscribers = remaining;
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void onLevelChange(final Side side, final long price, final long quantity, final int orderCount) {
+        if (subscribers.length > 0) {
+            update.putLevel(side, price, quantity, orderCount);
+        }
+    }
+
+    /***
+     * Drops the levels changed since the last call, without publishing them.
+     */
+    void discard() {
+        update.clear();
+    }
+
+    /***
+     * Publishes the levels changed since the last call, if any.
+     */
+    void publish() {
+        if (update.isEmpty()) {
+            return;
+        }
+        update.setSequence(++sequence);
+        try {
+            for (final Level2UpdateListener subscriber : subscribers) {
+                subscriber.onLevel2Update(update);
+            }
+        } finally {
+            update.clear();
+        }
+    }
+}
@@ -1,77 +1,275 @@
 package com.marcolotz.orderbook.core;
 
 import com.marcolotz.orderbook.core.exceptions.EmptyOrderBookException;
+import com.marcolotz.orderbook.core.exceptions.InsufficientLiquidityException;
 import com.marcolotz.orderbook.core.exceptions.InvalidOrderException;
 import com.marcolotz.orderbook.core.exceptions.InvalidTradeException;
 import com.marcolotz.orderbook.core.model.Order;
+import com.marcolotz.orderbook.core.model.PriceLevel;
+import com.marcolotz.orderbook.core.util.LongObjectHashMap;
+import com.marcolotz.orderbook.core.util.ObjectPool;
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import com.marcolotz.orderbook.port.EventBatch;
+import com.marcolotz.orderbook.port.EventStatus;
+import com.marcolotz.orderbook.port.Level2UpdateListener;
 import com.marcolotz.orderbook.port.Level2View;
+import com.marcolotz.orderbook.port.Level3Metrics;
 import com.marcolotz.orderbook.port.OrderBook;
+import com.marcolotz.orderbook.port.RejectionListener;
 import com.marcolotz.orderbook.port.Side;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.log4j.Log4j2;
 
 import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
 import java.util.Map;
-import java.util.Optional;
+import java.util.function.Consumer;
 
+/***
+ * Level 2 view over an ask and a bid OrderBook.
+ *
+ * Invalid events (late cancels, duplicate fills after a reconnect...) are frequent on real feeds. By default they are rejected without
+ * exception nor logging: the view is left untouched, getLastStatus() tells why, and each reason is counted and reported to the
+ * RejectionListener. Strict mode (setStrict) throws InvalidOrderException / InvalidTradeException instead, as well as counting them.
+ * Events with a BigDecimal price that is not a multiple of the tick size always throw InvalidOrderException. Queries don't: there is no
+ * level off the tick grid, so its size is 0, and the bounds of range queries are rounded inwards, to the levels the range holds.
+ */
 @Log4j2 // Nonblocking - Async logging
-public class SimpleLevel2View implements Level2View {
+public class SimpleLevel2View implements Level2View, Level3Metrics {
+
+    // The directory grows incrementally, there's no need to pre-allocate for the worst case
+    private static final int START_NUMBER_OF_ORDERS = 100_000;
 
     final Map<Side, OrderBook> orderServiceMap;
 
-    SimpleLevel2View(final OrderBook askBook, final OrderBook bidBook) {
+    // Single index of all resting orders on both sides: orderId -> resting order (which knows its side).
+    // Cancels, replaces and trades are resolved with one lookup instead of probing each book.
+    final LongObjectHashMap<Order> orderDirectory;
+
+    // Orders are acquired when added and released once they leave the book - the event path does not allocate
+    private final ObjectPool<Order> orderPool;
+
+    // Scratch space for the depth in ticks, before it's converted to BigDecimal
+    private long[] depthTicks = new long[0];
+
+    // Scratch space for the worst price and the notional of a sweep
+    private final long[] sweepResult = new long[2];
+
+    // Scratch space to find add/cancel pairs within a batch
+    private final BatchCoalescer batchCoalescer = new BatchCoalescer();
+
+    // Level changes reported by the books, published once per event
+    private final Level2DeltaPublisher deltaPublisher = new Level2DeltaPublisher();
+
+    // Rejections by status ordinal
+    private final long[] rejectedCounts = new long[EventStatus.values().length];
+    private RejectionListener rejectionListener = RejectionListener.NO_OP;
+    @Getter
+    private EventStatus lastStatus = EventStatus.ACCEPTED;
+    // side of the last event applied, null if it was rejected - e.g. to tell apart the sides of cancels, replaces and trades
+    @Getter
+    private Side lastSide;
+    @Getter
+    @Setter
+    private boolean strict;
+
+    // BigDecimal prices are converted to ticks on the edge, the books only deal with primitives
+    @Getter
+    private final PriceCodec priceCodec;
+
+    public SimpleLevel2View(final PriceCodec priceCodec, final OrderBook askBook, final OrderBook bidBook) {
+        this(priceCodec, askBook, bidBook, START_NUMBER_OF_ORDERS);
+    }
+
+    /***
+     * @param expectedOrders number of resting orders the directory and the order pool are sized for, e.g. the size of a snapshot
+     */
+    public SimpleLevel2View(final PriceCodec priceCodec, final OrderBook askBook, final OrderBook bidBook, final int expectedOrders) {
+        this.priceCodec = priceCodec;
         orderServiceMap = Map.of(
             Side.ASK, askBook,
             Side.BID, bidBook);
+        orderDirectory = new LongObjectHashMap<>(expectedOrders);
+        orderPool = new ObjectPool<>(Order::new, expectedOrders);
+        askBook.setLevelChangeListener(deltaPublisher);
+        bidBook.setLevelChangeListener(deltaPublisher);
+    }
+
+    /***
+     * Registers a subscriber of the incremental updates: after each event that changed the book, it receives the changed levels of both
+     * sides as a single update. Subscribers are called on the thread applying the events.
+     */
+    public void subscribe(final Level2UpdateListener subscriber) {
+        deltaPublisher.subscribe(subscriber);
+    }
+
+    public void unsubscribe(final Level2UpdateListener subscriber) {
+        deltaPublisher.unsubscribe(subscriber);
+    }
+
+    public void setRejectionListener(final RejectionListener listener) {
+        this.rejectionListener = listener;
+    }
+
+    /***
+     * @return number of events rejected with the status since the view was created
+     */
+    public long getRejectedCount(final EventStatus status) {
+        return rejectedCounts[status.ordinal()];
     }
 
     @Override
     public void onNewOrder(final Side side, final BigDecimal price, final long quantity, final long orderId) {
-        final Order order = new Order(orderId, quantity, price);
+        onNewOrder(side, priceCodec.toTicks(price), quantity, orderId);
+    }
+
+    @Override
+    public void onNewOrder(final Side side, final long price, final long quantity, final long orderId) {
+        if (orderDirectory.containsKey(orderId)) {
+            countRejection(EventStatus.DUPLICATE_ORDER, orderId);
+            if (strict) {
+                handleDuplicateOrderId(orderId);
+            }
+            return;
+        }
+        lastStatus = EventStatus.ACCEPTED;
+        lastSide = side;
+        final Order order = orderPool.acquire().set(orderId, side, quantity, price);
         orderServiceMap.get(side).addOrder(order);
+        orderDirectory.put(orderId, order);
+        deltaPublisher.publish();
     }
 
     @Override
     public void onCancelOrder(final long orderId) {
-        final Optional<OrderBook> orderServiceOpt = orderServiceMap.values().stream()
-            .filter(r -> r.containsOrder(orderId))
-            .findAny();
-        orderServiceOpt.ifPresentOrElse(r -> r.removeOrder(orderId), () -> handleInvalidOrderId(orderId));
+        final Order order = orderDirectory.remove(orderId);
+        if (order == null) {
+            countRejection(EventStatus.UNKNOWN_ORDER, orderId);
+            if (strict) {
+                handleInvalidOrderId(orderId);
+            }
+            return;
+        }
+        lastStatus = EventStatus.ACCEPTED;
+        lastSide = order.getSide();
+        orderServiceMap.get(order.getSide()).removeOrder(order);
+        orderPool.release(order);
+        deltaPublisher.publish();
     }
 
     @Override
     public void onReplaceOrder(final BigDecimal price, final long quantity, final long orderId) {
-        final Order order = new Order(orderId, quantity, price);
-        orderServiceMap.values().stream()
-            .filter(r -> r.containsOrder(orderId))
-            .findAny()
-            .ifPresentOrElse(r -> r.replaceOrder(order), () -> handleInvalidOrderId(orderId));
+        onReplaceOrder(priceCodec.toTicks(price), quantity, orderId);
+    }
+
+    @Override
+    public void onReplaceOrder(final long price, final long quantity, final long orderId) {
+        final Order order = orderDirectory.get(orderId);
+        if (order == null) {
+            countRejection(EventStatus.UNKNOWN_ORDER, orderId);
+            if (strict) {
+                handleInvalidOrderId(orderId);
+            }
+            return;
+        }
+        lastStatus = EventStatus.ACCEPTED;
+        lastSide = order.getSide();
+        orderServiceMap.get(order.getSide()).replaceOrder(order, price, quantity);
+        deltaPublisher.publish();
     }
 
     @Override
     public void onTrade(final long quantity, final long restingOrderId) {
-        final Optional<OrderBook> orderServiceOp = orderServiceMap.values().stream()
-            .filter(r -> r.containsOrder(restingOrderId))
-            .findAny();
-
-        if (orderServiceOp.isPresent()) {
-            final OrderBook orderBook = orderServiceOp.get();
-            final Order restingOrder = orderBook.getOrderById(restingOrderId);
-            final long leftOver = restingOrder.getQuantity() - quantity;
-            if (leftOver < 0) {
+        final Order restingOrder = orderDirectory.get(restingOrderId);
+        if (restingOrder == null) {
+            // never thrown, even in strict mode: trades on unknown orders have always been ignored
+            countRejection(EventStatus.UNKNOWN_RESTING_ORDER, restingOrderId);
+            return;
+        }
+        final OrderBook orderBook = orderServiceMap.get(restingOrder.getSide());
+        final long leftOver = restingOrder.getQuantity() - quantity;
+        if (leftOver < 0) {
+            countRejection(EventStatus.OVERFILL, restingOrderId);
+            if (strict) {
                 throw new InvalidTradeException(
                     "Could not perform a trade of " + quantity + " on a resting order with " + restingOrder.getQuantity());
             }
-            if (leftOver > 0) {
-                final Order updatedOrder = new Order(restingOrderId, leftOver, restingOrder.getPrice());
-                orderBook.replaceOrder(updatedOrder);
-            } else {
-                orderBook.removeOrder(restingOrderId);
+            return;
+        }
+        lastStatus = EventStatus.ACCEPTED;
+        lastSide = restingOrder.getSide();
+        if (leftOver > 0) {
+            orderBook.replaceOrder(restingOrder, restingOrder.getPrice(), leftOver);
+        } else {
+            orderBook.removeOrder(restingOrder);
+            orderDirectory.remove(restingOrderId);
+            orderPool.release(restingOrder);
+        }
+        deltaPublisher.publish();
+    }
+
+    /***
+     * Adds an order from a trusted source (e.g. a snapshot) to a view being restored: there is no duplicate check, and the change is not
+     * published to the subscribers - they are expected to start from the restored book. Orders of a level must be restored in queue order.
+     */
+    public void restoreOrder(final Side side, final long price, final long quantity, final long orderId) {
+        final Order order = orderPool.acquire().set(orderId, side, quantity, price);
+        orderServiceMap.get(side).addOrder(order);
+        orderDirectory.put(orderId, order);
+        deltaPublisher.discard();
+    }
+
+    /***
+     * Visits the levels of a side from the best price to the worst, with their orders in queue order (PriceLevel.getHead()). Must be
+     * called on the thread applying the events.
+     */
+    public void forEachLevel(final Side side, final Consumer<PriceLevel> visitor) {
+        orderServiceMap.get(side).forEachLevel(visitor);
+    }
+
+    // number of resting orders on both sides
+    public int getOrderCount() {
+        return orderDirectory.size();
+    }
+
+    /***
+     * Applies the batch in order, with two shortcuts:
+     * - orders added and cancelled within the batch (with nothing in between) are never linked into the books;
+     * - the books defer the removal of emptied price levels to the end of the batch, so a level that empties and fills again within the
+     * batch (e.g. churn at the touch) stays in place instead of being removed from and inserted again into the price index.
+     *
+     * An invalid event is rejected and the rest of the batch is applied. In strict mode, its exception is thrown instead and the rest of
+     * the batch is not applied.
+     */
+    @Override
+    public void onEvents(final EventBatch batch) {
+        batchCoalescer.coalesce(batch, orderDirectory);
+        final OrderBook askBook = orderServiceMap.get(Side.ASK);
+        final OrderBook bidBook = orderServiceMap.get(Side.BID);
+        askBook.beginBatch();
+        bidBook.beginBatch();
+        try {
+            for (int index = 0; index < batch.size(); index++) {
+                if (!batchCoalescer.isSkipped(index)) {
+                    batch.dispatch(this, index, index + 1);
+                }
             }
+        } finally {
+            askBook.endBatch();
+            bidBook.endBatch();
         }
     }
 
     @Override
     public long getSizeForPriceLevel(final Side side, final BigDecimal price) {
+        final long ticks = priceCodec.toTicks(price, RoundingMode.FLOOR);
+        return priceCodec.toPrice(ticks).compareTo(price) == 0 ? getSizeForPriceLevel(side, ticks) : 0;
+    }
+
+    @Override
+    public long getSizeForPriceLevel(final Side side, final long price) {
         return orderServiceMap.get(side).getSizeForPriceLevel(price);
     }
 
@@ -82,14 +280,133 @@ public class SimpleLevel2View implements Level2View {
 
     @Override
     public BigDecimal getTopOfBook(final Side side) {
-        return Optional.ofNullable(orderServiceMap.get(side))
-            .map(OrderBook::getTopOrder)
-            .map(Order::getPrice)
-            .orElseThrow(() -> new EmptyOrderBookException("No orders are available in the book"));
+        return priceCodec.toPrice(getTopOfBookTicks(side));
+    }
+
+    @Override
+    public long getTopOfBookTicks(final Side side) {
+        final Order topOrder = orderServiceMap.get(side).getTopOrder();
+        if (topOrder == null) {
+            throw new EmptyOrderBookException("No orders are available in the book");
+        }
+        return topOrder.getPrice();
+    }
+
+    @Override
+    public int getDepth(final Side side, final int levels, final BigDecimal[] prices, final long[] sizes) {
+        checkDepthBuffers(levels, prices.length, sizes.length);
+        final long[] ticks = depthTicks.length < levels ? (depthTicks = new long[levels]) : depthTicks;
+        final int filled = orderServiceMap.get(side).getDepth(levels, ticks, sizes);
+        for (int i = 0; i < filled; i++) {
+            prices[i] = priceCodec.toPrice(ticks[i]);
+        }
+        return filled;
+    }
+
+    @Override
+    public int getDepth(final Side side, final int levels, final long[] prices, final long[] sizes) {
+        checkDepthBuffers(levels, prices.length, sizes.length);
+        return orderServiceMap.get(side).getDepth(levels, prices, sizes);
+    }
+
+    @Override
+    public long getSizeBetween(final Side side, final BigDecimal fromPrice, final BigDecimal toPrice) {
+        final long lowPrice = priceCodec.toTicks(fromPrice.min(toPrice), RoundingMode.CEILING);
+        final long highPrice = priceCodec.toTicks(fromPrice.max(toPrice), RoundingMode.FLOOR);
+        // both bounds between the same two ticks: no level in the range
+        return lowPrice > highPrice ? 0 : getSizeBetween(side, lowPrice, highPrice);
+    }
+
+    @Override
+    public long getSizeBetween(final Side side, final long fromPrice, final long toPrice) {
+        return orderServiceMap.get(side).getSizeBetween(fromPrice, toPrice);
+    }
+
+    @Override
+    public long getCumulativeSize(final Side side, final BigDecimal price) {
+        // the levels run from the top of the book to the price: it's rounded towards the top
+        return getCumulativeSize(side, priceCodec.toTicks(price, side == Side.ASK ? RoundingMode.FLOOR : RoundingMode.CEILING));
+    }
+
+    @Override
+    public long getCumulativeSize(final Side side, final long price) {
+        return orderServiceMap.get(side).getCumulativeSize(price);
+    }
+
+    @Override
+    public BigDecimal getFillPrice(final Side side, final long quantity) {
+        return priceCodec.toPrice(getFillPriceTicks(side, quantity));
+    }
+
+    @Override
+    public long getFillPriceTicks(final Side side, final long quantity) {
+        sweep(side, quantity);
+        return sweepResult[0];
+    }
+
+    @Override
+    public BigDecimal getSweepVwap(final Side side, final long quantity) {
+        sweep(side, quantity);
+        return priceCodec.toPrice(sweepResult[1]).divide(BigDecimal.valueOf(quantity), MathContext.DECIMAL64);
+    }
+
+    @Override
+    public long getQuantityAhead(final long orderId) {
+        final Order order = findRestingOrder(orderId);
+        return orderServiceMap.get(order.getSide()).getQuantityAhead(order);
+    }
+
+    @Override
+    public int getQueuePosition(final long orderId) {
+        final Order order = findRestingOrder(orderId);
+        return orderServiceMap.get(order.getSide()).getQueuePosition(order);
+    }
+
+    @Override
+    public int getOrdersBehind(final long orderId) {
+        final Order order = findRestingOrder(orderId);
+        return orderServiceMap.get(order.getSide()).getOrdersBehind(order);
+    }
+
+    // Queries are not events: an unknown order is not a rejection, it's always thrown
+    private Order findRestingOrder(final long orderId) {
+        final Order order = orderDirectory.get(orderId);
+        if (order == null) {
+            throw new InvalidOrderException("Order not found: " + orderId);
+        }
+        return order;
+    }
+
+    private void sweep(final Side side, final long quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        }
+        if (!orderServiceMap.get(side).sweep(quantity, sweepResult)) {
+            throw new InsufficientLiquidityException("The " + side + " side holds less than " + quantity);
+        }
+    }
+
+    private static void checkDepthBuffers(final int levels, final int pricesLength, final int sizesLength) {
+        if (levels < 0 || pricesLength < levels || sizesLength < levels) {
+            throw new IllegalArgumentException("Buffers of " + pricesLength + " prices and " + sizesLength + " sizes can't hold " + levels
+                + " levels");
+        }
+    }
+
+    private void countRejection(final EventStatus status, final long orderId) {
+        lastStatus = status;
+        lastSide = null;
+        rejectedCounts[status.ordinal()]++;
+        rejectionListener.onRejected(status, orderId);
     }
 
     private void handleInvalidOrderId(final long orderId) {
         log.error("Could not find order ID {}", orderId);
         throw new InvalidOrderException("Order not found: " + orderId);
     }
+
+    private void handleDuplicateOrderId(final long orderId) {
+        log.error("Order ID {} is already resting in the book", orderId);
+        throw new InvalidOrderException("Duplicate order: " + orderId);
+    }
 }
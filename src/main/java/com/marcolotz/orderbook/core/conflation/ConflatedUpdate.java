@@ -0,0 +1,152 @@
+package com.marcolotz.orderbook.core.conflation;
+
+import com.marcolotz.orderbook.core.util.LongIntHashMap;
+import com.marcolotz.orderbook.port.Level2Update;
+import com.marcolotz.orderbook.port.Side;
+
+import java.util.Arrays;
+
+/***
+ * Latest state of every level changed by a run of Level2Updates, plus the latest top of book. Applying it to a mirror of the book has the
+ * same effect as applying each of the merged updates in order.
+ *
+ * Levels are indexed by (side, price) on a LongIntHashMap owned by the update, so merging is O(1) per changed level whatever the number of
+ * levels already merged. A level is only listed once: a level deleted and created again is reported with its latest state. The index is
+ * cleared in O(1), and only grows when more levels are merged than ever before.
+ *
+ * Not thread safe: ConflatingConsumer hands it from the book thread to the consumer thread under its lock.
+ */
+public class ConflatedUpdate {
+
+    private static final int INITIAL_LEVELS = 64;
+    private static final int SIDES = Side.values().length;
+
+    // columns of the merged levels, in order of first change
+    private Side[] sides;
+    private long[] prices;
+    private long[] quantities;
+    private int[] orderCounts;
+    private int size;
+
+    // (side, price) -> index on the columns
+    private final LongIntHashMap levelIndexes = new LongIntHashMap(INITIAL_LEVELS);
+
+    private long firstSequence;
+    private long lastSequence;
+    private int updateCount;
+
+    // top of book per side (ordinal), after the last merged update. A size of 0 means the side is empty.
+    private final long[] topPrices = new long[SIDES];
+    private final long[] topSizes = new long[SIDES];
+
+    public ConflatedUpdate() {
+        allocateColumns(INITIAL_LEVELS);
+    }
+
+    /***
+     * Merges an update into this one - O(levels of the update).
+     */
+    void merge(final Level2Update update) {
+        if (updateCount++ == 0) {
+            firstSequence = update.getSequence();
+        }
+        lastSequence = update.getSequence();
+        for (int i = 0; i < update.size(); i++) {
+            putLevel(update.getSide(i), update.getPrice(i), update.getQuantity(i), update.getOrderCount(i));
+        }
+    }
+
+    void setTopOfBook(final Side side, final long price, final long size) {
+        topPrices[side.ordinal()] = price;
+        topSizes[side.ordinal()] = size;
+    }
+
+    void clear() {
+        size = 0;
+        updateCount = 0;
+        levelIndexes.clear();
+    }
+
+    public boolean isEmpty() {
+        return updateCount == 0;
+    }
+
+    // number of Level2Updates merged into this one
+    public int getUpdateCount() {
+        return updateCount;
+    }
+
+    // sequence of the first and of the last merged Level2Update - a consumer can check that nothing was lost between deliveries
+    public long getFirstSequence() {
+        return firstSequence;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Side getSide(final int index) {
+        return sides[index];
+    }
+
+    public long getPrice(final int index) {
+        return prices[index];
+    }
+
+    public long getQuantity(final int index) {
+        return quantities[index];
+    }
+
+    public int getOrderCount(final int index) {
+        return orderCounts[index];
+    }
+
+    public boolean isDeleted(final int index) {
+        return orderCounts[index] == 0;
+    }
+
+    public boolean hasTopOfBook(final Side side) {
+        return topSizes[side.ordinal()] > 0;
+    }
+
+    // price in ticks of the best level of the side, only meaningful if hasTopOfBook(side)
+    public long getTopOfBookPrice(final Side side) {
+        return topPrices[side.ordinal()];
+    }
+
+    public long getTopOfBookSize(final Side side) {
+        return topSizes[side.ordinal()];
+    }
+
+    private void putLevel(final Side side, final long price, final long quantity, final int orderCount) {
+        // prices in ticks are far below 2^62, the lowest bit is free for the side
+        final long key = price << 1 | side.ordinal();
+        final int slot = levelIndexes.find(key);
+        if (slot >= 0) {
+            final int index = levelIndexes.valueAt(slot);
+            quantities[index] = quantity;
+            orderCounts[index] = orderCount;
+            return;
+        }
+        if (size == sides.length) {
+            allocateColumns(size << 1);
+        }
+        levelIndexes.put(key, size);
+        sides[size] = side;
+        prices[size] = price;
+        quantities[size] = quantity;
+        orderCounts[size] = orderCount;
+        size++;
+    }
+
+    private void allocateColumns(final int capacity) {
+        sides = sides == null ? new Side[capacity] : Arrays.copyOf(sides, capacity);
+        prices = prices == null ? new long[capacity] : Arrays.copyOf(prices, capacity);
+        quantities = quantities == null ? new long[capacity] : Arrays.copyOf(quantities, capacity);
+        orderCounts = orderCounts == null ? new int[capacity] : Arrays.copyOf(orderCounts, capacity);
+    }
+}
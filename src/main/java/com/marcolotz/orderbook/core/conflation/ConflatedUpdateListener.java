@@ -0,0 +1,11 @@
+package com.marcolotz.orderbook.core.conflation;
+
+/***
+ * Slow consumer of the book: receives the merged state of all the updates published since its previous delivery, on its own thread.
+ */
+@FunctionalInterface
+public interface ConflatedUpdateListener {
+
+    // The update is reused once the call returns - copy whatever needs to be kept.
+    void onConflatedUpdate(final ConflatedUpdate update);
+}
@@ -0,0 +1,95 @@
+package com.marcolotz.orderbook.core.conflation;
+
+import com.marcolotz.orderbook.core.ring.WaitStrategy;
+import com.marcolotz.orderbook.port.Level2Update;
+import com.marcolotz.orderbook.port.Side;
+import lombok.extern.log4j.Log4j2;
+
+/***
+ * Mailbox of a single slow consumer, double buffered:
+ * - the book thread merges every update into the pending buffer;
+ * - the consumer swaps the pending buffer with the one it has just delivered, and hands the merged state to its listener.
+ *
+ * The lock only guards a merge (O(levels of one update)) or a swap (O(1)), never the listener call, so a slow listener can't hold back
+ * the book thread. Whatever the event rate, the pending buffer holds at most one entry per level changed since the last delivery - there is
+ * no queue to grow.
+ *
+ * Can be polled from the consumer's own loop, or run on a dedicated thread until halt().
+ */
+@Log4j2
+public class ConflatingConsumer implements Runnable {
+
+    private final ConflatedUpdateListener listener;
+    private final WaitStrategy waitStrategy;
+    private final Object lock = new Object();
+    private ConflatedUpdate pending = new ConflatedUpdate();
+    private ConflatedUpdate delivering = new ConflatedUpdate();
+    private volatile boolean halted;
+
+    ConflatingConsumer(final ConflatedUpdateListener listener, final WaitStrategy waitStrategy) {
+        this.listener = listener;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /***
+     * Called by the book thread.
+     */
+    void offer(final Level2Update update, final long[] topPrices, final long[] topSizes) {
+        synchronized (lock) {
+            pending.merge(update);
+            for (final Side side : ConflatingFanOut.SIDES) {
+                pending.setTopOfBook(side, topPrices[side.ordinal()], topSizes[side.ordinal()]);
+            }
+        }
+    }
+
+    /***
+     * Delivers everything merged since the previous delivery, if anything.
+     *
+     * @return true if an update was delivered
+     */
+    public boolean poll() {
+        final ConflatedUpdate update;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return false;
+            }
+            update = pending;
+            pending = delivering;
+            delivering = update;
+        }
+        try {
+            listener.onConflatedUpdate(update);
+        } finally {
+            update.clear();
+        }
+        return true;
+    }
+
+    @Override
+    public void run() {
+        int attempt = 0;
+        while (true) {
+            // read before polling: anything offered before halt() is then delivered below
+            final boolean stopping = halted;
+            boolean delivered;
+            try {
+                delivered = poll();
+            } catch (RuntimeException e) {
+                log.error("Could not deliver conflated update", e);
+                delivered = true;
+            }
+            if (delivered) {
+                attempt = 0;
+            } else if (stopping) {
+                return;
+            } else {
+                waitStrategy.idle(attempt++);
+            }
+        }
+    }
+
+    public void halt() {
+        halted = true;
+    }
+}
@@ -0,0 +1,65 @@
+package com.marcolotz.orderbook.core.conflation;
+
+import com.marcolotz.orderbook.core.ring.WaitStrategy;
+import com.marcolotz.orderbook.port.Level2Metrics;
+import com.marcolotz.orderbook.port.Level2Update;
+import com.marcolotz.orderbook.port.Level2UpdateListener;
+import com.marcolotz.orderbook.port.Side;
+
+import java.util.Arrays;
+
+/***
+ * Fans the incremental updates of a view out to consumers that can't keep up with the event rate (risk, UI, logging...).
+ *
+ * Subscribed to the view (SimpleLevel2View.subscribe), it runs on the book thread: each update is merged into the mailbox of every
+ * consumer together with the top of book, read once per update from the view. Consumers drain their mailbox at their own pace and receive
+ * the latest state of every level changed in between - a slow consumer skips intermediate states instead of queueing them. A consumer only
+ * receives the changes made after it's added.
+ */
+public class ConflatingFanOut implements Level2UpdateListener {
+
+    static final Side[] SIDES = Side.values();
+
+    private final Level2Metrics view;
+    // copied on addConsumer, which is rare - the book thread only reads it
+    private volatile ConflatingConsumer[] consumers = new ConflatingConsumer[0];
+
+    // scratch space for the top of book, by side ordinal
+    private final long[] topPrices = new long[SIDES.length];
+    private final long[] topSizes = new long[SIDES.length];
+    private final long[] topPrice = new long[1];
+    private final long[] topSize = new long[1];
+
+    public ConflatingFanOut(final Level2Metrics view) {
+        this.view = view;
+    }
+
+    public synchronized ConflatingConsumer addConsumer(final ConflatedUpdateListener listener, final WaitStrategy waitStrategy) {
+        final ConflatingConsumer consumer = new ConflatingConsumer(listener, waitStrategy);
+        final ConflatingConsumer[] added = Arrays.copyOf(consumers, consumers.length + 1);
+        added[added.length - 1] = consumer;
+        consumers = added;
+        return consumer;
+    }
+
+    public synchronized void removeConsumer(final ConflatingConsumer consumer) {
+        consumers = Arrays.stream(consumers).filter(c -> c != consumer).toArray(ConflatingConsumer[]::new);
+    }
+
+    @Override
+    public void onLevel2Update(final Level2Update update) {
+        final ConflatingConsumer[] current = consumers;
+        if (current.length == 0) {
+            return;
+        }
+        for (final Side side : SIDES) {
+            // allocation free, and no exception on an empty side
+            final boolean empty = view.getDepth(side, 1, topPrice, topSize) == 0;
+            topPrices[side.ordinal()] = empty ? 0 : topPrice[0];
+            topSizes[side.ordinal()] = empty ? 0 : topSize[0];
+        }
+        for (final ConflatingConsumer consumer : current) {
+            consumer.offer(update, topPrices, topSizes);
+        }
+    }
+}
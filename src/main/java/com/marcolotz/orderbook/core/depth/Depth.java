@@ -0,0 +1,47 @@
+package com.marcolotz.orderbook.core.depth;
+
+import com.marcolotz.orderbook.port.Side;
+import lombok.Getter;
+
+/***
+ * Consistent copy of the best levels of both sides of a book, filled by DepthSnapshot.read(). Reusable: readers keep one instance and read
+ * into it again and again, so reading does not allocate.
+ *
+ * Prices are in ticks of the instrument, levels are ordered from the best price to the worst.
+ */
+public class Depth {
+
+    // version of the snapshot this copy was read from
+    @Getter
+    long version;
+    // by side ordinal
+    final int[] levels;
+    final long[][] prices;
+    final long[][] sizes;
+
+    public Depth(final int capacity) {
+        final int sides = Side.values().length;
+        this.levels = new int[sides];
+        this.prices = new long[sides][capacity];
+        this.sizes = new long[sides][capacity];
+    }
+
+    public int getCapacity() {
+        return prices[0].length;
+    }
+
+    /***
+     * @return number of levels copied for the side, at most the capacity
+     */
+    public int getLevels(final Side side) {
+        return levels[side.ordinal()];
+    }
+
+    public long getPrice(final Side side, final int level) {
+        return prices[side.ordinal()][level];
+    }
+
+    public long getSize(final Side side, final int level) {
+        return sizes[side.ordinal()][level];
+    }
+}
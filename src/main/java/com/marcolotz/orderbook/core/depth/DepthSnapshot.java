@@ -0,0 +1,165 @@
+package com.marcolotz.orderbook.core.depth;
+
+import com.marcolotz.orderbook.port.Level2Metrics;
+import com.marcolotz.orderbook.port.Level2Update;
+import com.marcolotz.orderbook.port.Level2UpdateListener;
+import com.marcolotz.orderbook.port.Side;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/***
+ * Best N levels of both sides of a book, published by the book thread and read by any number of other threads (e.g. a web layer) -
+ * guarded by a seqlock, as TopOfBookSnapshot.
+ *
+ * Subscribed to the view (SimpleLevel2View.subscribe), it re-reads the depth of a side only when an update touches one of its N best
+ * levels: changes deeper in the book cost a comparison per changed level. The version of the snapshot is the sequence of the last update
+ * that changed it, so readers can tell whether what they cached is still current by comparing a single long.
+ *
+ * Must be created by the book thread, or before events flow, since it reads the current depth of the view.
+ */
+public class DepthSnapshot implements Level2UpdateListener {
+
+    private static final Side[] SIDES = Side.values();
+
+    private static final VarHandle SEQLOCK;
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final int VERSION = 0;
+
+    static {
+        try {
+            SEQLOCK = MethodHandles.lookup().findVarHandle(DepthSnapshot.class, "seqlock", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Level2Metrics view;
+    private final int capacity;
+
+    // odd while a write is in progress - plain field, only accessed through the VarHandle with explicit modes
+    private long seqlock;
+    // version, then by side ordinal: number of levels, prices, sizes
+    private final long[] values;
+
+    // last published depth, only used by the book thread
+    private final Depth published;
+
+    public DepthSnapshot(final Level2Metrics view, final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The depth must hold at least one level: " + capacity);
+        }
+        this.view = view;
+        this.capacity = capacity;
+        this.values = new long[1 + SIDES.length * (1 + 2 * capacity)];
+        this.published = new Depth(capacity);
+        for (final Side side : SIDES) {
+            readSide(side);
+        }
+        publish(0);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public void onLevel2Update(final Level2Update update) {
+        boolean changed = false;
+        for (final Side side : SIDES) {
+            if (touchesDepth(update, side)) {
+                readSide(side);
+                changed = true;
+            }
+        }
+        if (changed) {
+            publish(update.getSequence());
+        }
+    }
+
+    /***
+     * @return version of the latest snapshot, without copying it - can be called by any thread
+     */
+    public long getVersion() {
+        return (long) VALUES.getAcquire(values, VERSION);
+    }
+
+    /***
+     * Copies a consistent depth into the target. Can be called by any thread.
+     *
+     * @param target copy to be filled, holding at least the capacity of this snapshot
+     * @return version of the snapshot that was read
+     */
+    public long read(final Depth target) {
+        if (target.getCapacity() < capacity) {
+            throw new IllegalArgumentException("A depth of " + target.getCapacity() + " levels can't hold " + capacity + " levels");
+        }
+        while (true) {
+            final long before = (long) SEQLOCK.getAcquire(this);
+            if ((before & 1) == 0) {
+                final long version = (long) VALUES.getOpaque(values, VERSION);
+                for (final Side side : SIDES) {
+                    final int offset = offsetOf(side);
+                    final int levels = (int) Math.min(capacity, Math.max(0, (long) VALUES.getOpaque(values, offset)));
+                    for (int level = 0; level < levels; level++) {
+                        target.prices[side.ordinal()][level] = (long) VALUES.getOpaque(values, offset + 1 + level);
+                        target.sizes[side.ordinal()][level] = (long) VALUES.getOpaque(values, offset + 1 + capacity + level);
+                    }
+                    target.levels[side.ordinal()] = levels;
+                }
+                // the values are read before the seqlock is checked again
+                VarHandle.loadLoadFence();
+                if ((long) SEQLOCK.getOpaque(this) == before) {
+                    target.version = version;
+                    return version;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    // a change can only move the N best levels if it's on one of them, or if the side has less than N levels
+    private boolean touchesDepth(final Level2Update update, final Side side) {
+        final int levels = published.getLevels(side);
+        for (int i = 0; i < update.size(); i++) {
+            if (update.getSide(i) == side
+                && (levels < capacity || !isWorse(side, update.getPrice(i), published.getPrice(side, levels - 1)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isWorse(final Side side, final long price, final long otherPrice) {
+        return side == Side.ASK ? price > otherPrice : price < otherPrice;
+    }
+
+    private void readSide(final Side side) {
+        published.levels[side.ordinal()] = view.getDepth(side, capacity, published.prices[side.ordinal()], published.sizes[side.ordinal()]);
+    }
+
+    private void publish(final long version) {
+        final long current = (long) SEQLOCK.get(this);
+        SEQLOCK.setOpaque(this, current + 1);
+        // the odd seqlock is visible before any of the values
+        VarHandle.storeStoreFence();
+        VALUES.setOpaque(values, VERSION, version);
+        for (final Side side : SIDES) {
+            final int offset = offsetOf(side);
+            final int levels = published.getLevels(side);
+            VALUES.setOpaque(values, offset, (long) levels);
+            for (int level = 0; level < levels; level++) {
+                VALUES.setOpaque(values, offset + 1 + level, published.getPrice(side, level));
+                VALUES.setOpaque(values, offset + 1 + capacity + level, published.getSize(side, level));
+            }
+        }
+        // the values are visible before the even seqlock
+        SEQLOCK.setRelease(this, current + 2);
+        published.version = version;
+    }
+
+    private int offsetOf(final Side side) {
+        return 1 + side.ordinal() * (1 + 2 * capacity);
+    }
+}
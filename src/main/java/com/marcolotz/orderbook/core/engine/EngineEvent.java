@@ -0,0 +1,24 @@
+package com.marcolotz.orderbook.core.engine;
+
+import com.marcolotz.orderbook.port.Level2View;
+
+/***
+ * Ring buffer slot of a shard: a Level2 event of an instrument, or a command run by the shard thread.
+ */
+class EngineEvent extends Level2Event {
+
+    // runs "task" on the shard thread
+    static final byte TASK = 5;
+    // registers "view" for the instrument
+    static final byte ADD_INSTRUMENT = 6;
+
+    long instrumentId;
+    Level2View view;
+    Runnable task;
+
+    void clear() {
+        side = null;
+        view = null;
+        task = null;
+    }
+}
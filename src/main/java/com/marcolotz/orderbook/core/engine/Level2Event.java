@@ -0,0 +1,40 @@
+package com.marcolotz.orderbook.core.engine;
+
+import com.marcolotz.orderbook.port.Level2EventListener;
+import com.marcolotz.orderbook.port.Side;
+
+/***
+ * Mutable Level2 event, used as a ring buffer slot between the thread decoding a feed and the thread updating the view.
+ */
+class Level2Event {
+
+    static final byte NEW_ORDER = 1;
+    static final byte CANCEL_ORDER = 2;
+    static final byte REPLACE_ORDER = 3;
+    static final byte TRADE = 4;
+
+    byte type;
+    Side side;
+    long price;
+    long quantity;
+    long orderId;
+
+    void applyTo(final Level2EventListener listener) {
+        switch (type) {
+            case NEW_ORDER:
+                listener.onNewOrder(side, price, quantity, orderId);
+                break;
+            case CANCEL_ORDER:
+                listener.onCancelOrder(orderId);
+                break;
+            case REPLACE_ORDER:
+                listener.onReplaceOrder(price, quantity, orderId);
+                break;
+            case TRADE:
+                listener.onTrade(quantity, orderId);
+                break;
+            default:
+                throw new IllegalStateException("Unknown event type: " + type);
+        }
+    }
+}
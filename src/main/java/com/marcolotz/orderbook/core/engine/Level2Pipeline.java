@@ -0,0 +1,125 @@
+package com.marcolotz.orderbook.core.engine;
+
+import com.marcolotz.orderbook.core.SimpleLevel2View;
+import com.marcolotz.orderbook.core.ring.EventProcessor;
+import com.marcolotz.orderbook.core.ring.RingBuffer;
+import com.marcolotz.orderbook.core.ring.WaitStrategy;
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import com.marcolotz.orderbook.port.Level2EventListener;
+import com.marcolotz.orderbook.port.Level2View;
+import com.marcolotz.orderbook.port.RejectionListener;
+import com.marcolotz.orderbook.port.Side;
+
+import java.math.BigDecimal;
+
+/***
+ * Puts a ring buffer in front of a Level2View: the producers (e.g. the thread decoding the feed) call this listener, and a dedicated
+ * consumer thread applies the events to the view. Decoding and book updates then run on different cores, with no locks and no allocation
+ * per event. BigDecimal prices are converted to ticks on the producer side, off the book thread.
+ *
+ * The view is owned by the consumer thread once the pipeline is started: it can be read again after close(). Invalid events (unknown or
+ * duplicate orders, overfills) are up to the view: a SimpleLevel2View rejects them without exceptions by default, only counting them -
+ * create the pipeline with a RejectionListener, or in strict mode, to be told about them. Exceptions thrown by the view are logged by the
+ * consumer and the event skipped.
+ */
+public class Level2Pipeline implements Level2EventListener, AutoCloseable {
+
+    private final PriceCodec priceCodec;
+    private final RingBuffer<Level2Event> ringBuffer;
+    private final EventProcessor<Level2Event> processor;
+    private final Thread consumerThread;
+
+    /***
+     * @param view         view updated by the consumer thread
+     * @param priceCodec   codec of the instrument, for the BigDecimal methods
+     * @param capacity     number of slots of the ring, a power of two
+     * @param producerType whether one or many threads publish events
+     * @param waitStrategy what the consumer does while there are no events, and producers while the ring is full
+     */
+    public Level2Pipeline(final Level2View view, final PriceCodec priceCodec, final int capacity,
+                          final RingBuffer.ProducerType producerType, final WaitStrategy waitStrategy) {
+        this.priceCodec = priceCodec;
+        this.ringBuffer = new RingBuffer<>(Level2Event::new, capacity, producerType, waitStrategy);
+        this.processor = new EventProcessor<>(ringBuffer, (event, sequence, endOfBatch) -> event.applyTo(view), waitStrategy);
+        this.consumerThread = new Thread(processor, "level2-pipeline");
+    }
+
+    /***
+     * Same as above, configuring how the view handles invalid events before the consumer thread owns it.
+     *
+     * @param strict            whether the view also throws on invalid events - logged by the consumer, see SimpleLevel2View.setStrict
+     * @param rejectionListener told about every invalid event, on the consumer thread
+     */
+    public Level2Pipeline(final SimpleLevel2View view, final PriceCodec priceCodec, final int capacity,
+                          final RingBuffer.ProducerType producerType, final WaitStrategy waitStrategy, final boolean strict,
+                          final RejectionListener rejectionListener) {
+        this(view, priceCodec, capacity, producerType, waitStrategy);
+        view.setStrict(strict);
+        view.setRejectionListener(rejectionListener);
+    }
+
+    public void start() {
+        consumerThread.start();
+    }
+
+    @Override
+    public void onNewOrder(final Side side, final BigDecimal price, final long quantity, final long orderId) {
+        onNewOrder(side, priceCodec.toTicks(price), quantity, orderId);
+    }
+
+    @Override
+    public void onNewOrder(final Side side, final long price, final long quantity, final long orderId) {
+        final long sequence = ringBuffer.next();
+        final Level2Event event = ringBuffer.get(sequence);
+        event.type = Level2Event.NEW_ORDER;
+        event.side = side;
+        event.price = price;
+        event.quantity = quantity;
+        event.orderId = orderId;
+        ringBuffer.publish(sequence);
+    }
+
+    @Override
+    public void onCancelOrder(final long orderId) {
+        final long sequence = ringBuffer.next();
+        final Level2Event event = ringBuffer.get(sequence);
+        event.type = Level2Event.CANCEL_ORDER;
+        event.orderId = orderId;
+        ringBuffer.publish(sequence);
+    }
+
+    @Override
+    public void onReplaceOrder(final BigDecimal price, final long quantity, final long orderId) {
+        onReplaceOrder(priceCodec.toTicks(price), quantity, orderId);
+    }
+
+    @Override
+    public void onReplaceOrder(final long price, final long quantity, final long orderId) {
+        final long sequence = ringBuffer.next();
+        final Level2Event event = ringBuffer.get(sequence);
+        event.type = Level2Event.REPLACE_ORDER;
+        event.price = price;
+        event.quantity = quantity;
+        event.orderId = orderId;
+        ringBuffer.publish(sequence);
+    }
+
+    @Override
+    public void onTrade(final long quantity, final long restingOrderId) {
+        final long sequence = ringBuffer.next();
+        final Level2Event event = ringBuffer.get(sequence);
+        event.type = Level2Event.TRADE;
+        event.quantity = quantity;
+        event.orderId = restingOrderId;
+        ringBuffer.publish(sequence);
+    }
+
+    /***
+     * Stops the consumer once the events already published are applied, and waits for it.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        processor.halt();
+        consumerThread.join();
+    }
+}
@@ -0,0 +1,76 @@
+package com.marcolotz.orderbook.core.engine;
+
+import com.marcolotz.orderbook.core.ring.EventProcessor;
+import com.marcolotz.orderbook.core.ring.RingBuffer;
+import com.marcolotz.orderbook.core.ring.WaitStrategy;
+import com.marcolotz.orderbook.core.util.LongObjectHashMap;
+import com.marcolotz.orderbook.port.Level2View;
+
+/***
+ * Set of instruments updated by a single thread.
+ *
+ * Events are published by any thread on the ring buffer of the shard and applied in order by the shard thread, which is the only one
+ * touching the views of the shard - the views and books themselves need no synchronization. A publisher waits while the ring is full
+ * (back pressure).
+ */
+class Shard {
+
+    private final LongObjectHashMap<Level2View> views = new LongObjectHashMap<>(0);
+    private final RingBuffer<EngineEvent> ringBuffer;
+    private final EventProcessor<EngineEvent> processor;
+
+    Shard(final int capacity, final WaitStrategy waitStrategy) {
+        ringBuffer = new RingBuffer<>(EngineEvent::new, capacity, RingBuffer.ProducerType.MULTI, waitStrategy);
+        processor = new EventProcessor<>(ringBuffer, (event, sequence, endOfBatch) -> {
+            try {
+                apply(event);
+            } finally {
+                event.clear();
+            }
+        }, waitStrategy);
+    }
+
+    /***
+     * @return sequence of a free event, to be filled and then published - waits while the ring is full
+     */
+    long claim() {
+        return ringBuffer.next();
+    }
+
+    EngineEvent event(final long sequence) {
+        return ringBuffer.get(sequence);
+    }
+
+    void publish(final long sequence) {
+        ringBuffer.publish(sequence);
+    }
+
+    EventProcessor<EngineEvent> getProcessor() {
+        return processor;
+    }
+
+    Level2View view(final long instrumentId) {
+        return views.get(instrumentId);
+    }
+
+    private void apply(final EngineEvent event) {
+        switch (event.type) {
+            case EngineEvent.TASK:
+                event.task.run();
+                return;
+            case EngineEvent.ADD_INSTRUMENT:
+                if (views.containsKey(event.instrumentId)) {
+                    throw new IllegalArgumentException("Instrument already registered: " + event.instrumentId);
+                }
+                views.put(event.instrumentId, event.view);
+                return;
+            default:
+                break;
+        }
+        final Level2View view = views.get(event.instrumentId);
+        if (view == null) {
+            throw new IllegalArgumentException("Unknown instrument: " + event.instrumentId);
+        }
+        event.applyTo(view);
+    }
+}
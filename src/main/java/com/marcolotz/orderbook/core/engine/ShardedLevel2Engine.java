@@ -0,0 +1,202 @@
+package com.marcolotz.orderbook.core.engine;
+
+import com.marcolotz.orderbook.core.SimpleLevel2View;
+import com.marcolotz.orderbook.core.ring.WaitStrategy;
+import com.marcolotz.orderbook.port.InstrumentEventListener;
+import com.marcolotz.orderbook.port.Level2View;
+import com.marcolotz.orderbook.port.RejectionListener;
+import com.marcolotz.orderbook.port.Side;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/***
+ * Multi-instrument engine: instruments are partitioned on shards, and each shard is updated by its own thread.
+ *
+ * Every instrument has its own Level2View, owned by a single shard (chosen by hashing the instrument id). Events are routed to the shard
+ * of their instrument and applied there, in the order they were published - a book is only ever touched by its shard thread, so books
+ * stay single threaded and lock free, while the instruments of different shards are processed in parallel. Throughput scales with the
+ * number of shards, up to the number of cores.
+ *
+ * Publishing is thread safe. Events of a single instrument must come from a single publisher (e.g. the feed handler of its venue) to
+ * keep their order. Views can only be read through query(), which runs on the shard thread.
+ *
+ * Events of an unknown instrument are logged and dropped by the shard. Invalid events of a known instrument (unknown or duplicate orders,
+ * overfills) are up to its view: a SimpleLevel2View rejects them without exceptions by default, only counting them - register it with
+ * a RejectionListener, or in strict mode, to be told about them (see addInstrument). Exceptions thrown by a view are logged by the shard
+ * and the event dropped.
+ */
+public class ShardedLevel2Engine implements InstrumentEventListener, AutoCloseable {
+
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+    private static final int DEFAULT_SHARD_CAPACITY = 64 * 1024;
+    private static final long DEFAULT_PARK_NANOS = 50_000;
+
+    private final Shard[] shards;
+    private final Thread[] threads;
+
+    public ShardedLevel2Engine(final int shardCount) {
+        this(shardCount, DEFAULT_SHARD_CAPACITY, WaitStrategy.parking(DEFAULT_PARK_NANOS));
+    }
+
+    /***
+     * @param shardCount    number of shards - and of threads
+     * @param shardCapacity number of events that can be pending on a shard before publishers wait, a power of two
+     * @param waitStrategy  what shard threads do while they have no events, and publishers while a shard is full. Busy spinning needs a
+     *                      core per shard.
+     */
+    public ShardedLevel2Engine(final int shardCount, final int shardCapacity, final WaitStrategy waitStrategy) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+        shards = new Shard[shardCount];
+        threads = new Thread[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(shardCapacity, waitStrategy);
+            threads[i] = new Thread(shards[i].getProcessor(), "level2-shard-" + i);
+        }
+    }
+
+    public void start() {
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+    }
+
+    /***
+     * Registers an instrument. The view is handed over to the shard thread - it must not be used by the caller anymore.
+     *
+     * @param instrumentId id of the instrument
+     * @param view         empty view for the instrument
+     */
+    public void addInstrument(final long instrumentId, final Level2View view) {
+        final Shard shard = shardOf(instrumentId);
+        final long sequence = shard.claim();
+        final EngineEvent event = shard.event(sequence);
+        event.type = EngineEvent.ADD_INSTRUMENT;
+        event.instrumentId = instrumentId;
+        event.view = view;
+        shard.publish(sequence);
+    }
+
+    /***
+     * Registers an instrument, configuring how its view handles invalid events before it's handed over to the shard thread.
+     *
+     * @param instrumentId      id of the instrument
+     * @param view              empty view for the instrument
+     * @param strict            whether the view also throws on invalid events - logged by the shard, see SimpleLevel2View.setStrict
+     * @param rejectionListener told about every invalid event of the instrument, on the shard thread
+     */
+    public void addInstrument(final long instrumentId, final SimpleLevel2View view, final boolean strict,
+                              final RejectionListener rejectionListener) {
+        view.setStrict(strict);
+        view.setRejectionListener(rejectionListener);
+        addInstrument(instrumentId, (Level2View) view);
+    }
+
+    @Override
+    public void onNewOrder(final long instrumentId, final Side side, final long price, final long quantity, final long orderId) {
+        final Shard shard = shardOf(instrumentId);
+        final long sequence = shard.claim();
+        final EngineEvent event = shard.event(sequence);
+        event.type = EngineEvent.NEW_ORDER;
+        event.instrumentId = instrumentId;
+        event.side = side;
+        event.price = price;
+        event.quantity = quantity;
+        event.orderId = orderId;
+        shard.publish(sequence);
+    }
+
+    @Override
+    public void onCancelOrder(final long instrumentId, final long orderId) {
+        final Shard shard = shardOf(instrumentId);
+        final long sequence = shard.claim();
+        final EngineEvent event = shard.event(sequence);
+        event.type = EngineEvent.CANCEL_ORDER;
+        event.instrumentId = instrumentId;
+        event.orderId = orderId;
+        shard.publish(sequence);
+    }
+
+    @Override
+    public void onReplaceOrder(final long instrumentId, final long price, final long quantity, final long orderId) {
+        final Shard shard = shardOf(instrumentId);
+        final long sequence = shard.claim();
+        final EngineEvent event = shard.event(sequence);
+        event.type = EngineEvent.REPLACE_ORDER;
+        event.instrumentId = instrumentId;
+        event.price = price;
+        event.quantity = quantity;
+        event.orderId = orderId;
+        shard.publish(sequence);
+    }
+
+    @Override
+    public void onTrade(final long instrumentId, final long quantity, final long restingOrderId) {
+        final Shard shard = shardOf(instrumentId);
+        final long sequence = shard.claim();
+        final EngineEvent event = shard.event(sequence);
+        event.type = EngineEvent.TRADE;
+        event.instrumentId = instrumentId;
+        event.quantity = quantity;
+        event.orderId = restingOrderId;
+        shard.publish(sequence);
+    }
+
+    /***
+     * Reads the view of an instrument on its shard thread, after all the events published before the query were applied.
+     *
+     * @param instrumentId id of the instrument
+     * @param query        read-only function of the view, it must not keep references to the view
+     * @return future completed with the result of the query, or exceptionally if the instrument is unknown
+     */
+    public <R> CompletableFuture<R> query(final long instrumentId, final Function<Level2View, R> query) {
+        final CompletableFuture<R> result = new CompletableFuture<>();
+        final Shard shard = shardOf(instrumentId);
+        final long sequence = shard.claim();
+        final EngineEvent event = shard.event(sequence);
+        event.type = EngineEvent.TASK;
+        event.instrumentId = instrumentId;
+        event.task = () -> {
+            final Level2View view = shard.view(instrumentId);
+            if (view == null) {
+                result.completeExceptionally(new IllegalArgumentException("Unknown instrument: " + instrumentId));
+                return;
+            }
+            try {
+                result.complete(query.apply(view));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        };
+        shard.publish(sequence);
+        return result;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /***
+     * Stops the shards once the events already published are applied, and waits for their threads.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        for (final Shard shard : shards) {
+            shard.getProcessor().halt();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    int shardIndexOf(final long instrumentId) {
+        // Fibonacci hashing spreads sequential instrument ids
+        return (int) Long.remainderUnsigned(instrumentId * GOLDEN_RATIO, shards.length);
+    }
+
+    private Shard shardOf(final long instrumentId) {
+        return shards[shardIndexOf(instrumentId)];
+    }
+}
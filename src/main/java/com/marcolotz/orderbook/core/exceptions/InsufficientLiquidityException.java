@@ -0,0 +1,8 @@
+package com.marcolotz.orderbook.core.exceptions;
+
+public class InsufficientLiquidityException extends RuntimeException {
+
+    public InsufficientLiquidityException(final String s) {
+        super(s);
+    }
+}
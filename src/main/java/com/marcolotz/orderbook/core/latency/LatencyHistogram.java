@@ -0,0 +1,65 @@
+package com.marcolotz.orderbook.core.latency;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/***
+ * Log-linear histogram of latencies in nanoseconds, in the spirit of HdrHistogram.
+ *
+ * Values below SUB_BUCKETS are counted exactly. Above that, every power of two is split in SUB_BUCKETS / 2 linear sub-buckets, so a value
+ * is known within 1/64 (~1.6%) of itself whatever its magnitude - enough for percentiles from tens of nanoseconds to tens of seconds in a
+ * few thousand counters. Finding the bucket of a value is a leading-zeros count and two shifts.
+ *
+ * Single writer, concurrent readers: record() is only called by the thread being measured, and never allocates nor locks. Counters are
+ * cumulative and published with opaque writes, so a reader sees each of them grow monotonically - it gets the counts of an interval by
+ * subtracting its previous copy (see LatencyInterval).
+ */
+public class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 7;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // ~68 seconds - longer latencies are counted as this one
+    static final long MAX_VALUE = (1L << 36) - 1;
+    static final int BUCKETS = indexOf(MAX_VALUE) + 1;
+
+    private static final VarHandle COUNTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] counts = new long[BUCKETS];
+
+    public void record(final long nanos) {
+        final int index = indexOf(Math.max(0, Math.min(nanos, MAX_VALUE)));
+        COUNTS.setOpaque(counts, index, (long) COUNTS.getOpaque(counts, index) + 1);
+    }
+
+    /***
+     * Copies the cumulative counts, from any thread.
+     *
+     * @param target array of at least BUCKETS counters
+     */
+    public void copyCounts(final long[] target) {
+        for (int index = 0; index < BUCKETS; index++) {
+            target[index] = (long) COUNTS.getOpaque(counts, index);
+        }
+    }
+
+    static int indexOf(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // value >>> shift is within [SUB_BUCKETS / 2, SUB_BUCKETS)
+        final int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << (SUB_BUCKET_BITS - 1)) + (int) (value >>> shift);
+    }
+
+    /***
+     * @return highest value counted in the bucket
+     */
+    static long highestValueOf(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = (index >> (SUB_BUCKET_BITS - 1)) - 1;
+        final long subBucket = index - ((long) shift << (SUB_BUCKET_BITS - 1));
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,65 @@
+package com.marcolotz.orderbook.core.latency;
+
+import com.marcolotz.orderbook.port.Side;
+
+/***
+ * Reader side of a LatencyHistogram: turns its cumulative counts into the summary of the interval since the previous call. Owned by a
+ * single reader.
+ */
+class LatencyInterval {
+
+    private final LatencyHistogram histogram;
+    private final ViewOperation operation;
+    private final Side side;
+    private long[] previous = new long[LatencyHistogram.BUCKETS];
+    private long[] current = new long[LatencyHistogram.BUCKETS];
+
+    LatencyInterval(final LatencyHistogram histogram, final ViewOperation operation, final Side side) {
+        this.histogram = histogram;
+        this.operation = operation;
+        this.side = side;
+    }
+
+    /***
+     * @return summary of the values recorded since the previous call, null if there are none
+     */
+    LatencySummary next(final double intervalSeconds) {
+        histogram.copyCounts(current);
+        long count = 0;
+        for (int index = 0; index < LatencyHistogram.BUCKETS; index++) {
+            count += current[index] - previous[index];
+        }
+        LatencySummary summary = null;
+        if (count > 0) {
+            final long p50Rank = rank(count, 0.5);
+            final long p99Rank = rank(count, 0.99);
+            final long p999Rank = rank(count, 0.999);
+            long p50 = 0;
+            long p99 = 0;
+            long p999 = 0;
+            long max = 0;
+            long seen = 0;
+            for (int index = 0; index < LatencyHistogram.BUCKETS; index++) {
+                final long inBucket = current[index] - previous[index];
+                if (inBucket > 0) {
+                    final long value = LatencyHistogram.highestValueOf(index);
+                    p50 = seen < p50Rank ? value : p50;
+                    p99 = seen < p99Rank ? value : p99;
+                    p999 = seen < p999Rank ? value : p999;
+                    max = value;
+                    seen += inBucket;
+                }
+            }
+            summary = new LatencySummary(operation, side, count, intervalSeconds > 0 ? count / intervalSeconds : 0, p50, p99, p999, max);
+        }
+        final long[] swap = previous;
+        previous = current;
+        current = swap;
+        return summary;
+    }
+
+    // number of values at or below the percentile
+    private static long rank(final long count, final double percentile) {
+        return Math.max(1, (long) Math.ceil(count * percentile));
+    }
+}
@@ -0,0 +1,298 @@
+package com.marcolotz.orderbook.core.latency;
+
+import com.marcolotz.orderbook.core.SimpleLevel2View;
+import com.marcolotz.orderbook.port.EventBatch;
+import com.marcolotz.orderbook.port.Level2View;
+import com.marcolotz.orderbook.port.Side;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/***
+ * Decorator measuring how long each operation of a Level2View takes, per operation and per side.
+ *
+ * New orders and queries carry their side. Cancels, replaces and trades only carry an order id: their side is resolved after the call
+ * from SimpleLevel2View.getLastSide when the delegate is a SimpleLevel2View. They are recorded without a side when the delegate is any
+ * other view or when the event is rejected, and so are batches, whose events may be on both sides.
+ *
+ * Each call costs two System.nanoTime() reads and one counter increment on a LatencyHistogram - no allocation, no lock - so it can stay
+ * on in production. Rejected events (exceptions) are measured as well. The view is used by a single thread, as usual, while report() can
+ * be called from any thread (e.g. an HTTP endpoint): it returns the latencies since its previous call.
+ */
+public class LatencyRecordingView implements Level2View {
+
+    private static final Side[] SIDES = Side.values();
+    private static final ViewOperation[] OPERATIONS = ViewOperation.values();
+    // slot of the operations without a side, after the sides
+    private static final int NO_SIDE = SIDES.length;
+
+    private final Level2View delegate;
+    // side of the event the delegate just applied, null if unknown
+    private final Supplier<Side> lastSide;
+    // by operation ordinal, then side ordinal or NO_SIDE
+    private final LatencyHistogram[][] histograms = new LatencyHistogram[OPERATIONS.length][SIDES.length + 1];
+    private final LatencyInterval[][] intervals = new LatencyInterval[OPERATIONS.length][SIDES.length + 1];
+    private long lastReportNanos = System.nanoTime();
+
+    public LatencyRecordingView(final SimpleLevel2View delegate) {
+        this(delegate, delegate::getLastSide);
+    }
+
+    // cancels, replaces and trades are recorded without a side
+    public LatencyRecordingView(final Level2View delegate) {
+        this(delegate, () -> null);
+    }
+
+    private LatencyRecordingView(final Level2View delegate, final Supplier<Side> lastSide) {
+        this.delegate = delegate;
+        this.lastSide = lastSide;
+        for (final ViewOperation operation : OPERATIONS) {
+            for (int slot = 0; slot <= NO_SIDE; slot++) {
+                final LatencyHistogram histogram = new LatencyHistogram();
+                histograms[operation.ordinal()][slot] = histogram;
+                intervals[operation.ordinal()][slot] = new LatencyInterval(histogram, operation, slot == NO_SIDE ? null : SIDES[slot]);
+            }
+        }
+    }
+
+    /***
+     * @return latencies of the operations called since the previous report (or since the view was created)
+     */
+    public synchronized LatencyReport report() {
+        final long now = System.nanoTime();
+        final double intervalSeconds = (now - lastReportNanos) / 1e9;
+        lastReportNanos = now;
+        final List<LatencySummary> summaries = new ArrayList<>();
+        for (final LatencyInterval[] operationIntervals : intervals) {
+            for (final LatencyInterval interval : operationIntervals) {
+                final LatencySummary summary = interval.next(intervalSeconds);
+                if (summary != null) {
+                    summaries.add(summary);
+                }
+            }
+        }
+        return new LatencyReport(intervalSeconds, summaries);
+    }
+
+    @Override
+    public void onNewOrder(final Side side, final BigDecimal price, final long quantity, final long orderId) {
+        final long start = System.nanoTime();
+        try {
+            delegate.onNewOrder(side, price, quantity, orderId);
+        } finally {
+            record(ViewOperation.NEW_ORDER, side.ordinal(), start);
+        }
+    }
+
+    @Override
+    public void onNewOrder(final Side side, final long price, final long quantity, final long orderId) {
+        final long start = System.nanoTime();
+        try {
+            delegate.onNewOrder(side, price, quantity, orderId);
+        } finally {
+            record(ViewOperation.NEW_ORDER, side.ordinal(), start);
+        }
+    }
+
+    @Override
+    public void onCancelOrder(final long orderId) {
+        final long start = System.nanoTime();
+        try {
+            delegate.onCancelOrder(orderId);
+        } finally {
+            record(ViewOperation.CANCEL_ORDER, lastSlot(), start);
+        }
+    }
+
+    @Override
+    public void onReplaceOrder(final BigDecimal price, final long quantity, final long orderId) {
+        final long start = System.nanoTime();
+        try {
+            delegate.onReplaceOrder(price, quantity, orderId);
+        } finally {
+            record(ViewOperation.REPLACE_ORDER, lastSlot(), start);
+        }
+    }
+
+    @Override
+    public void onReplaceOrder(final long price, final long quantity, final long orderId) {
+        final long start = System.nanoTime();
+        try {
+            delegate.onReplaceOrder(price, quantity, orderId);
+        } finally {
+            record(ViewOperation.REPLACE_ORDER, lastSlot(), start);
+        }
+    }
+
+    @Override
+    public void onTrade(final long quantity, final long restingOrderId) {
+        final long start = System.nanoTime();
+        try {
+            delegate.onTrade(quantity, restingOrderId);
+        } finally {
+            record(ViewOperation.TRADE, lastSlot(), start);
+        }
+    }
+
+    // a batch is measured as a whole - its events are not measured one by one
+    @Override
+    public void onEvents(final EventBatch batch) {
+        final long start = System.nanoTime();
+        try {
+            delegate.onEvents(batch);
+        } finally {
+            record(ViewOperation.EVENTS, NO_SIDE, start);
+        }
+    }
+
+    @Override
+    public long getSizeForPriceLevel(final Side side, final BigDecimal price) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getSizeForPriceLevel(side, price);
+        } finally {
+            record(ViewOperation.SIZE_FOR_PRICE_LEVEL, side.ordinal(), start);
+        }
+    }
+
+    @Override
+    public long getSizeForPriceLevel(final Side side, final long price) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getSizeForPriceLevel(side, price);
+        } finally {
+            record(ViewOperation.SIZE_FOR_PRICE_LEVEL, side.ordinal(), start);
+        }
+    }
+
+    @Override
+    public long getBookDepth(final Side side) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getBookDepth(side);
+        } finally {
+            record(ViewOperation.BOOK_DEPTH, side.ordinal(), start);
+        }
+    }
+
+    @Override
+    public BigDecimal getTopOfBook(final Side side) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getTopOfBook(side);
+        } finally {
+            record(ViewOperation.TOP_OF_BOOK, side.ordinal(), start);
+        }
+    }
+
+    @Override
+    public long getTopOfBookTicks(final Side side) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getTopOfBookTicks(side);
+        } finally {
+            record(ViewOperation.TOP_OF_BOOK, side.ordinal(), start);
+        }
+    }
+
+    @Override
+    public int getDepth(final Side side, final int levels, final BigDecimal[] prices, final long[] sizes) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getDepth(side, levels, prices, sizes);
+        } finally {
+            record(ViewOperation.DEPTH, side.ordinal(), start);
+        }
+    }
+
+    @Override
+    public int getDepth(final Side side, final int levels, final long[] prices, final long[] sizes) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getDepth(side, levels, prices, sizes);
+        } finally {
+            record(ViewOperation.DEPTH, side.ordinal(), start);
+        }
+    }
+
+    @Override
+    public long getSizeBetween(final Side side, final BigDecimal fromPrice, final BigDecimal toPrice) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getSizeBetween(side, fromPrice, toPrice);
+        } finally {
+            record(ViewOperation.SIZE_BETWEEN, side.ordinal(), start);
+        }
+    }
+
+    @Override
+    public long getSizeBetween(final Side side, final long fromPrice, final long toPrice) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getSizeBetween(side, fromPrice, toPrice);
+        } finally {
+            record(ViewOperation.SIZE_BETWEEN, side.ordinal(), start);
+        }
+    }
+
+    @Override
+    public long getCumulativeSize(final Side side, final BigDecimal price) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getCumulativeSize(side, price);
+        } finally {
+            record(ViewOperation.CUMULATIVE_SIZE, side.ordinal(), start);
+        }
+    }
+
+    @Override
+    public long getCumulativeSize(final Side side, final long price) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getCumulativeSize(side, price);
+        } finally {
+            record(ViewOperation.CUMULATIVE_SIZE, side.ordinal(), start);
+        }
+    }
+
+    @Override
+    public BigDecimal getFillPrice(final Side side, final long quantity) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getFillPrice(side, quantity);
+        } finally {
+            record(ViewOperation.SWEEP, side.ordinal(), start);
+        }
+    }
+
+    @Override
+    public long getFillPriceTicks(final Side side, final long quantity) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getFillPriceTicks(side, quantity);
+        } finally {
+            record(ViewOperation.SWEEP, side.ordinal(), start);
+        }
+    }
+
+    @Override
+    public BigDecimal getSweepVwap(final Side side, final long quantity) {
+        final long start = System.nanoTime();
+        try {
+            return delegate.getSweepVwap(side, quantity);
+        } finally {
+            record(ViewOperation.SWEEP, side.ordinal(), start);
+        }
+    }
+
+    private int lastSlot() {
+        final Side side = lastSide.get();
+        return side == null ? NO_SIDE : side.ordinal();
+    }
+
+    private void record(final ViewOperation operation, final int slot, final long start) {
+        histograms[operation.ordinal()][slot].record(System.nanoTime() - start);
+    }
+}
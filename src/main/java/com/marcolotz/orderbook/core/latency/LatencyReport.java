@@ -0,0 +1,19 @@
+package com.marcolotz.orderbook.core.latency;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/***
+ * Latencies of the operations called during an interval - operations that were not called are left out.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class LatencyReport {
+
+    private final double intervalSeconds;
+    private final List<LatencySummary> operations;
+}
@@ -0,0 +1,25 @@
+package com.marcolotz.orderbook.core.latency;
+
+import com.marcolotz.orderbook.port.Side;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/***
+ * Latency of one operation over an interval. Percentiles and max are in nanoseconds, within the precision of LatencyHistogram.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class LatencySummary {
+
+    private final ViewOperation operation;
+    // null for operations that don't have a side (cancel, replace, trade, batches)
+    private final Side side;
+    private final long count;
+    private final double ratePerSecond;
+    private final long p50;
+    private final long p99;
+    private final long p999;
+    private final long max;
+}
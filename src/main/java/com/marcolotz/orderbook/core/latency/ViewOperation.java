@@ -0,0 +1,20 @@
+package com.marcolotz.orderbook.core.latency;
+
+/***
+ * Operations of a Level2View measured by LatencyRecordingView.
+ */
+public enum ViewOperation {
+    NEW_ORDER,
+    CANCEL_ORDER,
+    REPLACE_ORDER,
+    TRADE,
+    EVENTS,
+    SIZE_FOR_PRICE_LEVEL,
+    BOOK_DEPTH,
+    TOP_OF_BOOK,
+    DEPTH,
+    SIZE_BETWEEN,
+    CUMULATIVE_SIZE,
+    // fill price and VWAP of a sweep
+    SWEEP
+}
@@ -1,13 +1,62 @@
 package com.marcolotz.orderbook.core.model;
 
-import lombok.Value;
+import com.marcolotz.orderbook.port.Side;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
 
-import java.math.BigDecimal;
-
-@Value
+/***
+ * Resting order.
+ *
+ * Orders are mutable and pooled (see ObjectPool) so that the event path does not create garbage: the view acquires an order when it is
+ * added and releases it once it leaves the book. The fields can only be set while the order is not resting in a price level - quantity
+ * changes of a resting order go through its PriceLevel, which keeps the level aggregates up to date.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@NoArgsConstructor
 public class Order {
 
-    long id;
+    private long id;
+    private Side side;
     long quantity;
-    BigDecimal price;
+    // price in ticks of the instrument - see PriceCodec
+    private long price;
+
+    // Intrusive links of the price level queue. Only mutated by PriceLevel, null while the order is not resting.
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    PriceLevel level;
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    Order previous;
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    Order next;
+    // arrival slot on the queue index of the level - only meaningful while resting
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    int slot;
+
+    public Order(final long id, final Side side, final long quantity, final long price) {
+        set(id, side, quantity, price);
+    }
+
+    /***
+     * Sets all the fields of an order that is not resting.
+     *
+     * @return this order
+     */
+    public Order set(final long id, final Side side, final long quantity, final long price) {
+        if (level != null) {
+            throw new IllegalStateException("Order " + this.id + " is resting in a price level");
+        }
+        this.id = id;
+        this.side = side;
+        this.quantity = quantity;
+        this.price = price;
+        return this;
+    }
 }
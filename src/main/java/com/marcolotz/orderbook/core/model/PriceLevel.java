@@ -1,15 +1,171 @@
 package com.marcolotz.orderbook.core.model;
 
-import lombok.RequiredArgsConstructor;
+import com.marcolotz.orderbook.core.util.FenwickTree;
+import com.marcolotz.orderbook.core.util.LongRedBlackTree;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
 
-import java.math.BigDecimal;
-import java.util.LinkedHashMap;
-import java.util.Map;
-
-@RequiredArgsConstructor
+/***
+ * Orders resting on a single price, in time priority.
+ *
+ * The queue is an intrusive doubly linked list: each order carries its own previous/next links, so there is no extra node or map entry per
+ * order. Appending, unlinking an order (reachable from the order directory) and reading the head are all O(1).
+ *
+ * The aggregated quantity and number of orders are kept up to date on every mutation, so L2 queries are a field read.
+ *
+ * For L3 queries (quantity and number of orders ahead of an order), each order also takes an arrival slot, and two Fenwick trees over the
+ * slots hold the quantity and the number of orders of each slot: adding, removing or resizing an order and the queries are O(log n). Slots
+ * of removed orders are not reused - once they run out, the queue is renumbered from 0 (compacted) with at least as many free slots as
+ * orders, so compaction is amortized over the adds. Queue order is still the linked list order, and so is slot order.
+ *
+ * Levels are pooled by the order books: a level is reset to a new price whenever it's taken from the pool.
+ */
+@Getter
+@NoArgsConstructor
 public class PriceLevel {
 
-    public final BigDecimal price;
-    // assuming number of price Limits (generally << N the number of orders)
-    public final Map<Long, Order> orderSequence = new LinkedHashMap<>(100);
+    private static final int MIN_SLOTS = 16;
+
+    // price in ticks of the instrument
+    private long price;
+
+    // oldest order - first to be matched
+    private Order head;
+    private Order tail;
+    private int orderCount;
+    // sum of the quantities of all orders in the queue
+    private long totalQuantity;
+    // node index of this level on the price index of the book, NIL if the level is not in a tree
+    @Setter
+    private int treeNode = LongRedBlackTree.NIL;
+
+    // by arrival slot - allocated on the first add, kept while the level is pooled
+    @Getter(AccessLevel.NONE)
+    private final FenwickTree slotQuantities = new FenwickTree(0);
+    @Getter(AccessLevel.NONE)
+    private final FenwickTree slotOrders = new FenwickTree(0);
+    @Getter(AccessLevel.NONE)
+    private int nextSlot;
+
+    public PriceLevel(final long price) {
+        reset(price);
+    }
+
+    /***
+     * Empties the level and moves it to another price.
+     *
+     * @return this level
+     */
+    public PriceLevel reset(final long price) {
+        this.price = price;
+        // an empty level has only zeros in its trees: they are kept as they are, and so is their capacity
+        if (orderCount != 0) {
+            slotQuantities.reset(0);
+            slotOrders.reset(0);
+        }
+        head = null;
+        tail = null;
+        orderCount = 0;
+        totalQuantity = 0;
+        treeNode = LongRedBlackTree.NIL;
+        nextSlot = 0;
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return head == null;
+    }
+
+    /***
+     * Adds the order to the back of the queue.
+     *
+     * @param order order that is not resting in any level
+     */
+    public void addLast(final Order order) {
+        if (nextSlot == slotQuantities.capacity()) {
+            compact();
+        }
+        order.slot = nextSlot++;
+        slotQuantities.add(order.slot, order.quantity);
+        slotOrders.add(order.slot, 1);
+        order.level = this;
+        order.previous = tail;
+        order.next = null;
+        if (tail == null) {
+            head = order;
+        } else {
+            tail.next = order;
+        }
+        tail = order;
+        orderCount++;
+        totalQuantity += order.quantity;
+    }
+
+    /***
+     * Unlinks the order from the queue.
+     *
+     * @param order order resting in this level
+     */
+    public void remove(final Order order) {
+        slotQuantities.add(order.slot, -order.quantity);
+        slotOrders.add(order.slot, -1);
+        if (order.previous == null) {
+            head = order.next;
+        } else {
+            order.previous.next = order.next;
+        }
+        if (order.next == null) {
+            tail = order.previous;
+        } else {
+            order.next.previous = order.previous;
+        }
+        order.level = null;
+        order.previous = null;
+        order.next = null;
+        orderCount--;
+        totalQuantity -= order.quantity;
+    }
+
+    /***
+     * Changes the quantity of a resting order, keeping its time priority.
+     *
+     * @param order    order resting in this level
+     * @param quantity new quantity of the order
+     */
+    public void updateQuantity(final Order order, final long quantity) {
+        slotQuantities.add(order.slot, quantity - order.quantity);
+        totalQuantity += quantity - order.quantity;
+        order.quantity = quantity;
+    }
+
+    /***
+     * @param order order resting in this level
+     * @return total quantity of the orders ahead of it in the queue - O(log n)
+     */
+    public long getQuantityAhead(final Order order) {
+        return slotQuantities.prefixSum(order.slot);
+    }
+
+    /***
+     * @param order order resting in this level
+     * @return number of orders ahead of it in the queue, 0 for the head - O(log n)
+     */
+    public int getQueuePosition(final Order order) {
+        return (int) slotOrders.prefixSum(order.slot);
+    }
+
+    // renumbers the queue from slot 0, with at least as many free slots as orders - O(n log n)
+    private void compact() {
+        final int capacity = Math.max(MIN_SLOTS, Integer.highestOneBit(Math.max(1, orderCount)) << 2);
+        slotQuantities.reset(capacity);
+        slotOrders.reset(capacity);
+        nextSlot = 0;
+        for (Order order = head; order != null; order = order.next) {
+            order.slot = nextSlot++;
+            slotQuantities.add(order.slot, order.quantity);
+            slotOrders.add(order.slot, 1);
+        }
+    }
 }
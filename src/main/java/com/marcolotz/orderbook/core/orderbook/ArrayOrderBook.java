@@ -0,0 +1,405 @@
+package com.marcolotz.orderbook.core.orderbook;
+
+import com.marcolotz.orderbook.core.model.Order;
+import com.marcolotz.orderbook.core.model.PriceLevel;
+import com.marcolotz.orderbook.core.util.LongObjectHashMap;
+import com.marcolotz.orderbook.core.util.LongRedBlackTree;
+import com.marcolotz.orderbook.core.util.ObjectPool;
+import com.marcolotz.orderbook.port.LevelChangeListener;
+import com.marcolotz.orderbook.port.OrderBook;
+import com.marcolotz.orderbook.port.Side;
+
+import java.util.function.Consumer;
+
+/***
+ * Implementation of Order book using a price ladder: a contiguous array of price levels indexed by their distance in ticks to the start of
+ * the window.
+ *
+ * Most of the activity of a book happens close to the touch. The window is centered around it, so adding or cancelling orders there is a
+ * pure array operation - no hashing, no tree. When the best level empties, the next best is found by scanning the array from the current
+ * top towards worse prices, which is cache friendly since the levels around the touch are dense.
+ *
+ * Prices outside of the window are kept in an overflow structure (hash map for lookups and a Red-Black tree for ordering), which is only
+ * touched by orders far away from the touch. The window re-centers (O(window size)) when:
+ * - a new best price arrives outside the window;
+ * - the window runs out of levels and the best price is in the overflow.
+ *
+ * Levels and tree nodes are pooled, as in TreeOrderBook.
+ */
+public class ArrayOrderBook implements OrderBook {
+
+    private static final int DEFAULT_WINDOW_SIZE = 4096;
+    private static final int START_NUMBER_OF_LEVELS = 10_000;
+
+    private final Side side;
+    // direction of worse prices in the window: ASK -> higher prices, BID -> lower prices
+    private final int worseStep;
+
+    private PriceLevel[] window;
+    // spare array used while re-centering, swapped with window afterwards
+    private PriceLevel[] spareWindow;
+    // price in ticks of window[0]
+    private long windowBase;
+    private int windowLevels;
+    // index of the best level in the window, -1 if the window is empty
+    private int windowTopIndex = -1;
+
+    private final LongObjectHashMap<PriceLevel> overflowLevelMap;
+    // ordered from the best price to the worst
+    private final LongRedBlackTree<PriceLevel> overflowLevelTree;
+    private PriceLevel overflowTopLevel;
+
+    private final ObjectPool<PriceLevel> priceLevelPool;
+    private PriceLevel topLevel;
+
+    private LevelChangeListener levelChangeListener = LevelChangeListener.NO_OP;
+
+    // last price and notional reached by walk()
+    private final long[] walkResult = new long[2];
+
+    public ArrayOrderBook(final Side side) {
+        this(side, DEFAULT_WINDOW_SIZE);
+    }
+
+    public ArrayOrderBook(final Side side, final int windowSize) {
+        this.side = side;
+        this.worseStep = side == Side.ASK ? 1 : -1;
+        this.window = new PriceLevel[windowSize];
+        this.spareWindow = new PriceLevel[windowSize];
+        this.overflowLevelTree = new LongRedBlackTree<>(side == Side.BID, 0);
+        this.overflowLevelMap = new LongObjectHashMap<>(0);
+        this.priceLevelPool = new ObjectPool<>(PriceLevel::new, START_NUMBER_OF_LEVELS);
+    }
+
+    /***
+     * Adds order on O(1) when the price is inside the window, O(log n) on the overflow.
+     *
+     * @param order order to be added.
+     */
+    @Override
+    public void addOrder(final Order order) {
+        final long price = order.getPrice();
+        if (topLevel == null) {
+            // empty book - the window starts around the first price
+            windowBase = price - window.length / 2;
+        } else if (!isInWindow(price) && isBetter(price, topLevel.getPrice())) {
+            // keep the touch inside the window
+            recenter(price);
+        }
+
+        PriceLevel level;
+        if (isInWindow(price)) {
+            final int index = (int) (price - windowBase);
+            level = window[index];
+            if (level == null) {
+                level = priceLevelPool.acquire().reset(price);
+                window[index] = level;
+                windowLevels++;
+                if (windowTopIndex < 0 || isBetter(price, windowBase + windowTopIndex)) {
+                    windowTopIndex = index;
+                }
+            }
+        } else {
+            level = overflowLevelMap.get(price);
+            if (level == null) {
+                level = priceLevelPool.acquire().reset(price);
+                addToOverflow(level);
+            }
+        }
+        level.addLast(order);
+        reportChange(level);
+        if (topLevel == null || isBetter(price, topLevel.getPrice())) {
+            topLevel = level;
+        }
+    }
+
+    /***
+     * Removes Order with O(1) inside the window. If the best level empties, the next one is found by scanning the window.
+     *
+     * @param order resting order, as found in the order directory
+     */
+    @Override
+    public void removeOrder(final Order order) {
+        final PriceLevel level = order.getLevel(); // null if the order is not resting
+        if (level == null) {
+            return;
+        }
+        level.remove(order);
+        reportChange(level);
+        if (!level.isEmpty()) {
+            return;
+        }
+        final long price = level.getPrice();
+        if (isInWindow(price)) {
+            final int index = (int) (price - windowBase);
+            window[index] = null;
+            windowLevels--;
+            if (index == windowTopIndex) {
+                windowTopIndex = scanForLevel(index + worseStep);
+            }
+        } else {
+            removeFromOverflow(level);
+        }
+        priceLevelPool.release(level);
+
+        if (windowLevels == 0 && overflowTopLevel != null) {
+            recenter(overflowTopLevel.getPrice());
+        }
+        if (level == topLevel) {
+            updateTopLevel();
+        }
+    }
+
+    /***
+     * Replaces order with O(1) inside the window.
+     * Reducing the quantity on the same price (e.g. a partial fill) keeps the time priority of the order. Any other change sends the order
+     * to the back of the queue of its new price level.
+     *
+     * @param order    resting order to be replaced
+     * @param price    new price in ticks
+     * @param quantity new quantity
+     */
+    @Override
+    public void replaceOrder(final Order order, final long price, final long quantity) {
+        final PriceLevel level = order.getLevel();
+        if (level == null) {
+            return;
+        }
+        if (order.getPrice() == price && quantity <= order.getQuantity()) {
+            level.updateQuantity(order, quantity);
+            reportChange(level);
+        } else {
+            removeOrder(order);
+            addOrder(order.set(order.getId(), order.getSide(), quantity, price));
+        }
+    }
+
+    @Override
+    public Order getTopOrder() {
+        return topLevel == null ? null : topLevel.getHead();
+    }
+
+    @Override
+    public long getSizeForPriceLevel(final long price) {
+        final PriceLevel level = isInWindow(price) ? window[(int) (price - windowBase)] : overflowLevelMap.get(price);
+        return level == null ? 0 : level.getTotalQuantity();
+    }
+
+    @Override
+    public long getBookDepth() {
+        return windowLevels + overflowLevelMap.size();
+    }
+
+    /***
+     * Merges the scan of the window, from its top towards worse prices, with the in-order walk of the overflow levels - no search nor
+     * allocation.
+     */
+    @Override
+    public int getDepth(final int levels, final long[] prices, final long[] sizes) {
+        int filled = 0;
+        int index = windowTopIndex;
+        int node = overflowLevelTree.first();
+        while (filled < levels) {
+            final PriceLevel windowLevel = index < 0 ? null : window[index];
+            final PriceLevel overflowLevel = node == LongRedBlackTree.NIL ? null : overflowLevelTree.value(node);
+            final PriceLevel level;
+            if (windowLevel == null && overflowLevel == null) {
+                break;
+            } else if (overflowLevel == null || windowLevel != null && isBetter(windowLevel.getPrice(), overflowLevel.getPrice())) {
+                level = windowLevel;
+                index = scanForLevel(index + worseStep);
+            } else {
+                level = overflowLevel;
+                node = overflowLevelTree.next(node);
+            }
+            prices[filled] = level.getPrice();
+            sizes[filled] = level.getTotalQuantity();
+            filled++;
+        }
+        return filled;
+    }
+
+    /***
+     * The window holds no quantity sums: range queries walk the levels from the top of the book - O(levels up to the worst price of the
+     * range). They are meant for prices close to the touch, where the window is dense.
+     */
+    @Override
+    public long getSizeBetween(final long fromPrice, final long toPrice) {
+        final long bestPrice = isBetter(fromPrice, toPrice) ? fromPrice : toPrice;
+        final long worstPrice = bestPrice == fromPrice ? toPrice : fromPrice;
+        // ticks are integers: the levels before the range are the ones at or better than one tick before it
+        return walk(worstPrice, Long.MAX_VALUE) - walk(bestPrice - worseStep, Long.MAX_VALUE);
+    }
+
+    @Override
+    public long getCumulativeSize(final long price) {
+        return walk(price, Long.MAX_VALUE);
+    }
+
+    @Override
+    public boolean sweep(final long quantity, final long[] result) {
+        if (quantity <= 0 || walk(side == Side.ASK ? Long.MAX_VALUE : Long.MIN_VALUE, quantity) < quantity) {
+            return false;
+        }
+        result[0] = walkResult[0];
+        result[1] = walkResult[1];
+        return true;
+    }
+
+    @Override
+    public void forEachLevel(final Consumer<PriceLevel> visitor) {
+        int index = windowTopIndex;
+        int node = overflowLevelTree.first();
+        while (index >= 0 || node != LongRedBlackTree.NIL) {
+            final PriceLevel windowLevel = index < 0 ? null : window[index];
+            final PriceLevel overflowLevel = node == LongRedBlackTree.NIL ? null : overflowLevelTree.value(node);
+            if (overflowLevel == null || windowLevel != null && isBetter(windowLevel.getPrice(), overflowLevel.getPrice())) {
+                visitor.accept(windowLevel);
+                index = scanForLevel(index + worseStep);
+            } else {
+                visitor.accept(overflowLevel);
+                node = overflowLevelTree.next(node);
+            }
+        }
+    }
+
+    @Override
+    public void setLevelChangeListener(final LevelChangeListener listener) {
+        this.levelChangeListener = listener;
+    }
+
+    private void reportChange(final PriceLevel level) {
+        levelChangeListener.onLevelChange(side, level.getPrice(), level.getTotalQuantity(), level.getOrderCount());
+    }
+
+    /***
+     * Walks the levels from the best price - window and overflow merged, as getDepth() - until "quantity" is taken or the price gets worse
+     * than limitPrice. The last price reached and the notional taken are left in walkResult.
+     *
+     * @return quantity taken
+     */
+    private long walk(final long limitPrice, final long quantity) {
+        long taken = 0;
+        long notional = 0;
+        long lastPrice = 0;
+        int index = windowTopIndex;
+        int node = overflowLevelTree.first();
+        while (taken < quantity) {
+            final PriceLevel windowLevel = index < 0 ? null : window[index];
+            final PriceLevel overflowLevel = node == LongRedBlackTree.NIL ? null : overflowLevelTree.value(node);
+            final PriceLevel level;
+            if (windowLevel == null && overflowLevel == null) {
+                break;
+            } else if (overflowLevel == null || windowLevel != null && isBetter(windowLevel.getPrice(), overflowLevel.getPrice())) {
+                level = windowLevel;
+                index = scanForLevel(index + worseStep);
+            } else {
+                level = overflowLevel;
+                node = overflowLevelTree.next(node);
+            }
+            if (isBetter(limitPrice, level.getPrice())) {
+                break;
+            }
+            final long levelTaken = Math.min(quantity - taken, level.getTotalQuantity());
+            taken += levelTaken;
+            notional += levelTaken * level.getPrice();
+            lastPrice = level.getPrice();
+        }
+        walkResult[0] = lastPrice;
+        walkResult[1] = notional;
+        return taken;
+    }
+
+    private boolean isInWindow(final long price) {
+        return price >= windowBase && price - windowBase < window.length;
+    }
+
+    private boolean isBetter(final long price, final long otherPrice) {
+        return side == Side.ASK ? price < otherPrice : price > otherPrice;
+    }
+
+    /***
+     * @param from first index to look at
+     * @return index of the first level found from "from" towards worse prices, -1 if there is none
+     */
+    private int scanForLevel(final int from) {
+        for (int index = from; index >= 0 && index < window.length; index += worseStep) {
+            if (window[index] != null) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private void updateTopLevel() {
+        final PriceLevel windowTop = windowTopIndex < 0 ? null : window[windowTopIndex];
+        if (windowTop == null) {
+            topLevel = overflowTopLevel;
+        } else if (overflowTopLevel == null) {
+            topLevel = windowTop;
+        } else {
+            topLevel = isBetter(overflowTopLevel.getPrice(), windowTop.getPrice()) ? overflowTopLevel : windowTop;
+        }
+    }
+
+    private void addToOverflow(final PriceLevel level) {
+        overflowLevelMap.put(level.getPrice(), level);
+        final int node = overflowLevelTree.insert(level.getPrice(), level); // O(logn)
+        level.setTreeNode(node);
+        if (overflowLevelTree.previous(node) == LongRedBlackTree.NIL) {
+            overflowTopLevel = level;
+        }
+    }
+
+    private void removeFromOverflow(final PriceLevel level) {
+        final int node = level.getTreeNode();
+        if (level == overflowTopLevel) {
+            final int nextNode = overflowLevelTree.next(node);
+            overflowTopLevel = nextNode == LongRedBlackTree.NIL ? null : overflowLevelTree.value(nextNode);
+        }
+        overflowLevelMap.remove(level.getPrice());
+        overflowLevelTree.removeNode(node);
+        level.setTreeNode(LongRedBlackTree.NIL);
+    }
+
+    /***
+     * Moves the window so that it's centered around the given price - O(window size).
+     * Levels leaving the window go to the overflow, overflow levels inside the new range move into the window.
+     */
+    private void recenter(final long center) {
+        final long newBase = center - window.length / 2;
+        for (int index = 0; index < window.length; index++) {
+            final PriceLevel level = window[index];
+            if (level != null) {
+                window[index] = null;
+                final long price = level.getPrice();
+                if (price >= newBase && price - newBase < window.length) {
+                    spareWindow[(int) (price - newBase)] = level;
+                } else {
+                    addToOverflow(level);
+                }
+            }
+        }
+        if (!overflowLevelMap.isEmpty()) {
+            for (int index = 0; index < spareWindow.length; index++) {
+                final PriceLevel level = overflowLevelMap.get(newBase + index);
+                if (level != null) {
+                    removeFromOverflow(level);
+                    spareWindow[index] = level;
+                }
+            }
+        }
+        final PriceLevel[] previousWindow = window;
+        window = spareWindow;
+        spareWindow = previousWindow;
+        windowBase = newBase;
+
+        windowLevels = 0;
+        for (final PriceLevel level : window) {
+            if (level != null) {
+                windowLevels++;
+            }
+        }
+        windowTopIndex = scanForLevel(side == Side.ASK ? 0 : window.length - 1);
+    }
+}
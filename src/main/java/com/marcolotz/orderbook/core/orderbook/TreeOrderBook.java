@@ -2,18 +2,15 @@ package com.marcolotz.orderbook.core.orderbook;
 
 import com.marcolotz.orderbook.core.model.Order;
 import com.marcolotz.orderbook.core.model.PriceLevel;
-import com.marcolotz.orderbook.core.util.RedBlackNode;
-import com.marcolotz.orderbook.core.util.RedBlackTree;
+import com.marcolotz.orderbook.core.util.LongObjectHashMap;
+import com.marcolotz.orderbook.core.util.LongRedBlackTree;
+import com.marcolotz.orderbook.core.util.ObjectPool;
+import com.marcolotz.orderbook.port.LevelChangeListener;
 import com.marcolotz.orderbook.port.OrderBook;
 import com.marcolotz.orderbook.port.Side;
 
-import java.math.BigDecimal;
-import java.util.Collection;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Optional;
+import java.util.Arrays;
+import java.util.function.Consumer;
 
 /***
  * Implementation of Order book using Red-Black trees.
@@ -21,6 +18,8 @@ import java.util.Optional;
  *
  * Notes:
  * - The order book can be parallelized on ISIN level. There are about 20M ISINS registered (from the top of my mind).
+ * - Orders are indexed by id once, on the order directory of the view. The book only keeps them in their price levels.
+ * - Price levels and tree nodes are pooled, so that a warmed up book does not allocate while processing events.
  * - I assumed that we could keep 20M orders in memory for this class - which seems a bit unrealistic for real use of this instance.
  * Even tho NASDAQ performs 200k operations per second on high peaks, they are on ALL possible ISINs. I may have miss-perceived it, but
  * a load balancer approach could split the load between multiple instances of this class - even on different JVMs and hosts, reducing the
@@ -30,32 +29,41 @@ import java.util.Optional;
  */
 public class TreeOrderBook implements OrderBook {
 
-    private static final int START_NUMBER_OF_ORDERS = 20_000_000;
     private static final int START_NUMBER_OF_LEVELS = 10_000;
 
+    private final Side side;
+
     // Red black tree are useful when we need insertion and deletion relatively frequent.
     // Red-black trees are self-balancing so these operations are guaranteed to be O(logn).
-    private final RedBlackTree<BigDecimal> priceLevelTree;
+    // The tree is keyed on the price in ticks and kept in primitive arrays - no node objects nor boxed keys. It's ordered from the best
+    // price to the worst, so its first node is the top of the book.
+    private final LongRedBlackTree<PriceLevel> priceLevelTree;
+
+    private final LongObjectHashMap<PriceLevel> priceLevelMap;
+    private final ObjectPool<PriceLevel> priceLevelPool;
+    // best level holding orders, null if the book is empty - the first node of the tree, unless a batch emptied the levels before it
+    private PriceLevel topLevel;
 
-    private final Map<Long, Order> orderMap;
+    // Levels emptied during a batch, removed at its end if they are still empty
+    private PriceLevel[] emptiedLevels = new PriceLevel[16];
+    private int emptiedLevelCount;
+    // levels emptied during the batch that are still empty - not counted in the depth
+    private int emptyLevelCount;
+    private boolean inBatch;
 
-    private final Map<BigDecimal, PriceLevel> priceLevelMap;
-    private final Comparator<BigDecimal> priceLevelComparator;
-    private RedBlackNode<BigDecimal> topOrderPrice;
+    private LevelChangeListener levelChangeListener = LevelChangeListener.NO_OP;
 
-    TreeOrderBook(final Side side) {
-        this.priceLevelComparator =
-            side.equals(Side.ASK) ? Comparator.naturalOrder() : (Comparator<BigDecimal>) Comparator.naturalOrder().reversed();
-        priceLevelTree = new RedBlackTree<>(priceLevelComparator);
-        orderMap = new HashMap<>(START_NUMBER_OF_ORDERS);
-        priceLevelMap = new HashMap<>(START_NUMBER_OF_LEVELS);
+    public TreeOrderBook(final Side side) {
+        this.side = side;
+        priceLevelTree = new LongRedBlackTree<>(side == Side.BID, START_NUMBER_OF_LEVELS);
+        priceLevelMap = new LongObjectHashMap<>(START_NUMBER_OF_LEVELS);
+        priceLevelPool = new ObjectPool<>(PriceLevel::new, START_NUMBER_OF_LEVELS);
     }
 
     /**
-     * Adds order on O(1) amortized.
+     * Adds order on O(log n): the level is found in O(1), but the quantity sums of the tree are updated up to the root.
      * <p>
-     * The amortization is for when no orders on that price range were created yet. In that scenario,  it's O(logn) majored by the insertion
-     * on a RB Tree. Since the number of orders >> number of price ranges in a time window, it's fine to assume O(1) amortized.
+     * When no orders on that price range were created yet, the level is inserted on a RB Tree, which is O(logn) as well.
      *
      * @param order order to be added.
      */
@@ -64,108 +72,232 @@ public class TreeOrderBook implements OrderBook {
         // Get price level
         PriceLevel orderPriceLevel = priceLevelMap.get(order.getPrice()); // O(1)
         if (orderPriceLevel == null) {
-            orderPriceLevel = new PriceLevel(order.getPrice());
+            orderPriceLevel = priceLevelPool.acquire().reset(order.getPrice());
             priceLevelMap.put(order.getPrice(), orderPriceLevel);
-            final RedBlackNode<BigDecimal> insertedNode = priceLevelTree.insert(orderPriceLevel.price); // O(log(n))
-            if (topOrderPrice == null || priceLevelComparator.compare(topOrderPrice.value, order.getPrice()) > 0) {
-                topOrderPrice = insertedNode;
-            }
+            orderPriceLevel.setTreeNode(priceLevelTree.insert(order.getPrice(), orderPriceLevel)); // O(log(n))
+        } else if (orderPriceLevel.isEmpty()) {
+            emptyLevelCount--; // emptied earlier in the batch
+        }
+        if (topLevel == null || isBetter(order.getPrice(), topLevel.getPrice())) {
+            topLevel = orderPriceLevel;
         }
         // Update orders on price level
-        orderPriceLevel.orderSequence.put(order.getId(), order); // O(1)
-        orderMap.put(order.getId(), order); // O(1)
+        orderPriceLevel.addLast(order); // O(1)
+        reportChange(orderPriceLevel);
     }
 
     /***
      *  Removes Order with O(1) amortized.
-     *  Whenever the price level is empty, it needs to be removed from the R&B tree - which triggers a Tree search O(logn).
-     *  It's possible to improve this to O(1) - by keeping track of the Tree Nodes and avoiding the search.
-     *  I haven't implemented it due to time constraint.
+     *  Whenever the price level is empty, it needs to be removed from the R&B tree. The level holds its tree node, so there is no search
+     *  nor price comparison - only the unlinking and rebalancing of the node. If it was the best level, the tree threads its successor as
+     *  the new first node - O(1). Within a batch, a best level emptied is kept in the tree: the new best level is the next one holding
+     *  orders, O(k) where k is the number of levels the batch emptied right behind it.
+     *  The order itself is not released - it's owned by whoever added it.
      *
-     * @param orderId order id
+     * @param order resting order, as found in the order directory
      */
     @Override
-    public void removeOrder(final long orderId) {
-        // Remove order
-        final Order removeOrder = orderMap.remove(orderId); // O(1)
-        if (removeOrder != null) {
-            // Remove order from price level
-            final PriceLevel level = priceLevelMap.get(removeOrder.getPrice());
-            level.orderSequence.remove(removeOrder.getId()); // O(1)
-
+    public void removeOrder(final Order order) {
+        final PriceLevel level = order.getLevel(); // O(1) - null if the order is not resting
+        // Remove order from price level
+        if (level != null) {
+            level.remove(order); // O(1)
+            reportChange(level);
             // Cleanup if price level is empty
-            if (level.orderSequence.isEmpty()) {
-                priceLevelTree.remove(level.price); // O(logn)
-                priceLevelMap.remove(level.price); // O(1)
-                if (topOrderPrice.value.equals(level.price)) {
-                    updateTopPrice();
+            if (level.isEmpty()) {
+                if (inBatch) {
+                    emptyLevelCount++;
+                    deferLevelRemoval(level);
+                    if (level == topLevel) {
+                        topLevel = nextLevel(level.getTreeNode());
+                    }
+                } else {
+                    removeLevel(level);
+                    if (level == topLevel) {
+                        topLevel = nextLevel(priceLevelTree.first());
+                    }
                 }
             }
         }
     }
 
-    private void updateTopPrice() {
-        final RedBlackNode<BigDecimal> parent = topOrderPrice.getParent();
-        if (parent == null || parent.value == null) { // last order in the book
-            topOrderPrice = null;
-        } else {
-            topOrderPrice = parent;
-        }
+    private void removeLevel(final PriceLevel level) {
+        priceLevelTree.removeNode(level.getTreeNode()); // O(logn) without comparisons - rotations are O(1) amortized
+        level.setTreeNode(LongRedBlackTree.NIL);
+        priceLevelMap.remove(level.getPrice()); // O(1)
+        priceLevelPool.release(level);
     }
 
     /***
      * Replaces order with O(1).
-     * @param order order to be replaced
+     * Reducing the quantity on the same price (e.g. a partial fill) keeps the time priority of the order. Any other change sends the order
+     * to the back of the queue of its new price level.
+     *
+     * @param order    resting order to be replaced
+     * @param price    new price in ticks
+     * @param quantity new quantity
      */
     @Override
-    public void replaceOrder(final Order order) {
-        final Order oldOrder = orderMap.get(order.getId());
-        if (oldOrder != null) {
-            removeOrder(oldOrder.getId());
-            addOrder(order);
+    public void replaceOrder(final Order order, final long price, final long quantity) {
+        final PriceLevel level = order.getLevel();
+        if (level == null) {
+            return;
+        }
+        if (order.getPrice() == price && quantity <= order.getQuantity()) {
+            level.updateQuantity(order, quantity); // O(1)
+            reportChange(level);
+        } else {
+            removeOrder(order);
+            addOrder(order.set(order.getId(), order.getSide(), quantity, price));
         }
     }
 
+    // first level holding orders from the node on, in price order - null if there is none
+    private PriceLevel nextLevel(final int fromNode) {
+        for (int node = fromNode; node != LongRedBlackTree.NIL; node = priceLevelTree.next(node)) {
+            final PriceLevel level = priceLevelTree.value(node);
+            if (!level.isEmpty()) {
+                return level;
+            }
+        }
+        return null;
+    }
+
+    private boolean isBetter(final long price, final long otherPrice) {
+        return side == Side.BID ? price > otherPrice : price < otherPrice;
+    }
+
     /***
-     * Gets top order with O(1) time.
+     * Gets top order with O(1) time, within a batch as well: the best level holding orders is kept up to date by the updates.
      * @return top order if any otherwise null if there's no orders in the book
      */
     @Override
     public Order getTopOrder() {
-        return Optional.ofNullable(topOrderPrice)
-            .map(order -> order.value)
-            .map(priceLevelMap::get) // O(1)
-            .map(e -> e.orderSequence).map(Map::values).map(Collection::iterator) // O(1)
-            .map(Iterator::next)
-            .orElse(null);
+        return topLevel == null ? null : topLevel.getHead();
     }
 
     /***
      * Gets size for Price Level with O(1) time
      *
-     * @param price price level
-     * @return the number of orders in that price level
+     * @param price price level in ticks
+     * @return the total quantity of the orders in that price level
      */
     @Override
-    public long getSizeForPriceLevel(final BigDecimal price) {
-        return Optional.ofNullable(priceLevelMap.get(price)) // O(1)
-            .map(s -> s.orderSequence)
-            .map(Map::size)
-            .orElse(0);
+    public long getSizeForPriceLevel(final long price) {
+        final PriceLevel level = priceLevelMap.get(price); // O(1)
+        return level == null ? 0 : level.getTotalQuantity();
     }
 
     @Override
     public long getBookDepth() {
-        return priceLevelMap.size();
+        return priceLevelMap.size() - emptyLevelCount;
+    }
+
+    /***
+     * Walks the best levels following the in-order threading of the tree - O(levels), no search nor allocation. Within a batch, the levels
+     * it emptied in between are skipped as well.
+     */
+    @Override
+    public int getDepth(final int levels, final long[] prices, final long[] sizes) {
+        int filled = 0;
+        for (int node = topNode(); node != LongRedBlackTree.NIL && filled < levels; node = priceLevelTree.next(node)) {
+            final PriceLevel level = priceLevelTree.value(node);
+            if (!level.isEmpty()) { // levels emptied within a batch are still in the tree
+                prices[filled] = level.getPrice();
+                sizes[filled] = level.getTotalQuantity();
+                filled++;
+            }
+        }
+        return filled;
+    }
+
+    /***
+     * O(log n) from the quantity sums of the tree, whatever the number of levels in the range.
+     */
+    @Override
+    public long getSizeBetween(final long fromPrice, final long toPrice) {
+        final long bestPrice = side == Side.ASK ? Math.min(fromPrice, toPrice) : Math.max(fromPrice, toPrice);
+        final long worstPrice = side == Side.ASK ? Math.max(fromPrice, toPrice) : Math.min(fromPrice, toPrice);
+        return priceLevelTree.weightBefore(worstPrice, true) - priceLevelTree.weightBefore(bestPrice, false);
+    }
+
+    @Override
+    public long getCumulativeSize(final long price) {
+        return priceLevelTree.weightBefore(price, true); // O(logn)
     }
 
+    /***
+     * O(log n): the tree finds the level where the cumulative quantity reaches the requested one, and sums the notional before it.
+     */
     @Override
-    public boolean containsOrder(final long orderId) {
-        return orderMap.containsKey(orderId);
+    public boolean sweep(final long quantity, final long[] result) {
+        final int node = quantity > 0 ? priceLevelTree.findCumulativeWeight(quantity) : LongRedBlackTree.NIL;
+        if (node == LongRedBlackTree.NIL) {
+            return false;
+        }
+        final long price = priceLevelTree.key(node);
+        result[0] = price;
+        result[1] = priceLevelTree.notionalBefore(price, false) + (quantity - priceLevelTree.weightBefore(price, false)) * price;
+        return true;
     }
 
+    /***
+     * O(n), plus the levels emptied within a batch, which are skipped.
+     */
     @Override
-    public Order getOrderById(final long restingOrderId) {
-        return orderMap.get(restingOrderId);
+    public void forEachLevel(final Consumer<PriceLevel> visitor) {
+        for (int node = topNode(); node != LongRedBlackTree.NIL; node = priceLevelTree.next(node)) {
+            final PriceLevel level = priceLevelTree.value(node);
+            if (!level.isEmpty()) {
+                visitor.accept(level);
+            }
+        }
+    }
+
+    private int topNode() {
+        return topLevel == null ? LongRedBlackTree.NIL : topLevel.getTreeNode();
+    }
+
+    @Override
+    public void setLevelChangeListener(final LevelChangeListener listener) {
+        this.levelChangeListener = listener;
+    }
+
+    // keeps the quantity sums of the tree up to date - O(logn) - and notifies the listener
+    private void reportChange(final PriceLevel level) {
+        priceLevelTree.setWeight(level.getTreeNode(), level.getTotalQuantity());
+        levelChangeListener.onLevelChange(side, level.getPrice(), level.getTotalQuantity(), level.getOrderCount());
+    }
+
+    /***
+     * Within a batch, emptied levels stay in the tree and the level map until endBatch(). A level that is emptied and filled again within
+     * the batch is never removed from the tree nor inserted again. Queries skip the emptied levels, so they stay consistent within the
+     * batch (e.g. for the subscribers of the view, notified after each of its events).
+     */
+    @Override
+    public void beginBatch() {
+        inBatch = true;
+    }
+
+    @Override
+    public void endBatch() {
+        inBatch = false;
+        for (int i = 0; i < emptiedLevelCount; i++) {
+            final PriceLevel level = emptiedLevels[i];
+            emptiedLevels[i] = null;
+            // a level can be listed more than once if it emptied again after being filled - it's only removed once
+            if (level.isEmpty() && level.getTreeNode() != LongRedBlackTree.NIL) {
+                removeLevel(level);
+            }
+        }
+        emptiedLevelCount = 0;
+        emptyLevelCount = 0;
+    }
+
+    private void deferLevelRemoval(final PriceLevel level) {
+        if (emptiedLevelCount == emptiedLevels.length) {
+            emptiedLevels = Arrays.copyOf(emptiedLevels, emptiedLevelCount << 1);
+        }
+        emptiedLevels[emptiedLevelCount++] = level;
     }
 }
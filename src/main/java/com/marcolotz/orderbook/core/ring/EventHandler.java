@@ -0,0 +1,12 @@
+package com.marcolotz.orderbook.core.ring;
+
+@FunctionalInterface
+public interface EventHandler<E> {
+
+    // endOfBatch is true on the last event available to the consumer, e.g. to flush work accumulated over the batch
+    void onEvent(E event, long sequence, boolean endOfBatch);
+
+    // called by the consumer each time it finds no event to process, before waiting - e.g. to flush work on a time bound
+    default void onIdle() {
+    }
+}
@@ -0,0 +1,62 @@
+package com.marcolotz.orderbook.core.ring;
+
+import lombok.extern.log4j.Log4j2;
+
+/***
+ * Single consumer of a RingBuffer: runs on its own thread and hands every published event to the handler, in sequence order.
+ *
+ * Events are processed in batches - all the events published when the consumer looks at the ring - and the slots of a batch are released
+ * to the producers at its end. A handler exception is logged and the event skipped, so that a bad event does not stall the producers.
+ *
+ * halt() stops the processor once it has consumed everything published before the call.
+ */
+@Log4j2
+public class EventProcessor<E> implements Runnable {
+
+    private final RingBuffer<E> ringBuffer;
+    private final EventHandler<E> handler;
+    private final WaitStrategy waitStrategy;
+    private volatile boolean halted;
+
+    public EventProcessor(final RingBuffer<E> ringBuffer, final EventHandler<E> handler, final WaitStrategy waitStrategy) {
+        this.ringBuffer = ringBuffer;
+        this.handler = handler;
+        this.waitStrategy = waitStrategy;
+    }
+
+    @Override
+    public void run() {
+        long next = ringBuffer.getConsumed() + 1;
+        int attempt = 0;
+        while (true) {
+            // read before the ring: anything published before halt() is then seen below
+            final boolean stopping = halted;
+            final long available = ringBuffer.highestPublished(next);
+            if (available >= next) {
+                for (long sequence = next; sequence <= available; sequence++) {
+                    try {
+                        handler.onEvent(ringBuffer.get(sequence), sequence, sequence == available);
+                    } catch (RuntimeException e) {
+                        log.error("Could not process event {}", sequence, e);
+                    }
+                }
+                ringBuffer.release(available);
+                next = available + 1;
+                attempt = 0;
+            } else if (stopping) {
+                return;
+            } else {
+                try {
+                    handler.onIdle();
+                } catch (RuntimeException e) {
+                    log.error("Could not process idle callback", e);
+                }
+                waitStrategy.idle(attempt++);
+            }
+        }
+    }
+
+    public void halt() {
+        halted = true;
+    }
+}
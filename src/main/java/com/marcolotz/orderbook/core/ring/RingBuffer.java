@@ -0,0 +1,150 @@
+package com.marcolotz.orderbook.core.ring;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.Supplier;
+
+/***
+ * Bounded lock-free queue of pre-allocated, mutable event slots, between one or many producers and a single consumer.
+ *
+ * Producers claim a sequence with next(), fill the slot returned by get(sequence) and make it visible with publish(sequence). The consumer
+ * (EventProcessor) reads every published slot in sequence order and releases them back to the producers in batches. Slots are created
+ * once and reused, so moving an event between threads does not allocate. There are no locks: the threads only exchange sequence numbers,
+ * through release/acquire memory ordering.
+ *
+ * - SINGLE producer: claiming is a plain increment and publishing a single ordered write of the cursor. Only one thread may produce.
+ * - MULTI producer: sequences are claimed with an atomic increment. Since producers may publish out of order, each slot records the round
+ * (sequence / capacity) of its last publish, and the consumer only reads up to the first slot not yet published.
+ *
+ * A producer waits (with its WaitStrategy) while the ring is full, i.e. while the consumer is a whole ring behind.
+ *
+ * @param <E> type of the event slots
+ */
+public class RingBuffer<E> {
+
+    public enum ProducerType { SINGLE, MULTI }
+
+    private static final VarHandle PUBLISHED_ROUNDS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final Object[] slots;
+    private final int mask;
+    private final int indexShift;
+    private final ProducerType producerType;
+    private final WaitStrategy producerWaitStrategy;
+
+    // last claimed sequence
+    private final Sequence claimed = new Sequence(-1);
+    // SINGLE: last published sequence
+    private final Sequence cursor = new Sequence(-1);
+    // MULTI: round of the last publish on each slot
+    private final int[] publishedRounds;
+    // last sequence released by the consumer
+    private final Sequence consumed = new Sequence(-1);
+    // SINGLE: last value of "consumed" seen by the producer, to avoid reading the consumer's cache line on every claim
+    private long cachedConsumed = -1;
+
+    /***
+     * @param factory              creates the event slots, once
+     * @param capacity             number of slots, a power of two
+     * @param producerType         whether one or many threads produce
+     * @param producerWaitStrategy what producers do while the ring is full
+     */
+    public RingBuffer(final Supplier<E> factory, final int capacity, final ProducerType producerType,
+                      final WaitStrategy producerWaitStrategy) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.slots = new Object[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = factory.get();
+        }
+        this.mask = capacity - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(capacity);
+        this.producerType = producerType;
+        this.producerWaitStrategy = producerWaitStrategy;
+        if (producerType == ProducerType.MULTI) {
+            publishedRounds = new int[capacity];
+            for (int i = 0; i < capacity; i++) {
+                PUBLISHED_ROUNDS.setRelease(publishedRounds, i, -1);
+            }
+        } else {
+            publishedRounds = null;
+        }
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /***
+     * Claims the next slot, waiting while the ring is full.
+     *
+     * @return sequence of the claimed slot
+     */
+    public long next() {
+        if (producerType == ProducerType.SINGLE) {
+            final long sequence = claimed.getPlain() + 1;
+            claimed.setPlain(sequence);
+            final long wrapPoint = sequence - slots.length;
+            if (wrapPoint > cachedConsumed) {
+                int attempt = 0;
+                while (wrapPoint > (cachedConsumed = consumed.getAcquire())) {
+                    producerWaitStrategy.idle(attempt++);
+                }
+            }
+            return sequence;
+        }
+        final long sequence = claimed.incrementAndGet();
+        final long wrapPoint = sequence - slots.length;
+        int attempt = 0;
+        while (wrapPoint > consumed.getAcquire()) {
+            producerWaitStrategy.idle(attempt++);
+        }
+        return sequence;
+    }
+
+    /***
+     * @return the slot of a claimed (or, for the consumer, published) sequence
+     */
+    @SuppressWarnings("unchecked")
+    public E get(final long sequence) {
+        return (E) slots[(int) sequence & mask];
+    }
+
+    /***
+     * Makes a claimed and filled slot visible to the consumer.
+     */
+    public void publish(final long sequence) {
+        if (producerType == ProducerType.SINGLE) {
+            cursor.setRelease(sequence);
+        } else {
+            PUBLISHED_ROUNDS.setRelease(publishedRounds, (int) sequence & mask, (int) (sequence >>> indexShift));
+        }
+    }
+
+    /***
+     * @param from first sequence the consumer has not read yet
+     * @return highest sequence such that all sequences from "from" up to it are published, from - 1 if "from" is not published
+     */
+    long highestPublished(final long from) {
+        if (producerType == ProducerType.SINGLE) {
+            return cursor.getAcquire();
+        }
+        long sequence = from;
+        while ((int) PUBLISHED_ROUNDS.getAcquire(publishedRounds, (int) sequence & mask) == (int) (sequence >>> indexShift)) {
+            sequence++;
+        }
+        return sequence - 1;
+    }
+
+    /***
+     * Gives the slots up to the sequence back to the producers.
+     */
+    void release(final long sequence) {
+        consumed.setRelease(sequence);
+    }
+
+    long getConsumed() {
+        return consumed.getAcquire();
+    }
+}
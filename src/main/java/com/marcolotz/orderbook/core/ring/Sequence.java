@@ -0,0 +1,54 @@
+package com.marcolotz.orderbook.core.ring;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/***
+ * Sequence counter shared between threads, padded so that it sits alone on its cache line - a producer and a consumer updating
+ * neighbouring counters would otherwise invalidate each other's cache line on every write (false sharing).
+ */
+class Sequence {
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Sequence.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private long p1, p2, p3, p4, p5, p6, p7;
+    private volatile long value;
+    @SuppressWarnings("unused")
+    private long p9, p10, p11, p12, p13, p14, p15;
+
+    Sequence(final long initialValue) {
+        VALUE.setRelease(this, initialValue);
+    }
+
+    long getPlain() {
+        return (long) VALUE.get(this);
+    }
+
+    void setPlain(final long newValue) {
+        VALUE.set(this, newValue);
+    }
+
+    long getAcquire() {
+        return (long) VALUE.getAcquire(this);
+    }
+
+    void setRelease(final long newValue) {
+        VALUE.setRelease(this, newValue);
+    }
+
+    /***
+     * @return the value after the increment
+     */
+    long incrementAndGet() {
+        return (long) VALUE.getAndAdd(this, 1L) + 1;
+    }
+}
@@ -0,0 +1,52 @@
+package com.marcolotz.orderbook.core.ring;
+
+import java.util.concurrent.locks.LockSupport;
+
+/***
+ * What a thread does while it waits on the ring buffer - the consumer waiting for events, or a producer waiting for a free slot.
+ *
+ * The strategies trade latency for CPU: busy spinning reacts within nanoseconds but burns a core, yielding lets other threads run on the
+ * core, parking releases it but takes microseconds to wake up.
+ */
+@FunctionalInterface
+public interface WaitStrategy {
+
+    int SPIN_TRIES = 100;
+
+    /***
+     * Called once per unsuccessful attempt.
+     *
+     * @param attempt number of attempts since the last successful one, starting from 0
+     */
+    void idle(int attempt);
+
+    static WaitStrategy busySpin() {
+        return attempt -> Thread.onSpinWait();
+    }
+
+    /***
+     * Spins for a few attempts, then yields the core to other threads.
+     */
+    static WaitStrategy yielding() {
+        return attempt -> {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        };
+    }
+
+    /***
+     * Spins for a few attempts, then parks the thread for the given time on every attempt.
+     */
+    static WaitStrategy parking(final long parkNanos) {
+        return attempt -> {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(parkNanos);
+            }
+        };
+    }
+}
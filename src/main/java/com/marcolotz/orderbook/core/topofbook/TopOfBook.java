@@ -0,0 +1,41 @@
+package com.marcolotz.orderbook.core.topofbook;
+
+import com.marcolotz.orderbook.port.Side;
+import lombok.Getter;
+import lombok.ToString;
+
+/***
+ * Consistent copy of the top of both sides of a book, filled by TopOfBookSnapshot.read(). Reusable: readers keep one instance and read
+ * into it again and again, so reading does not allocate.
+ *
+ * Prices are in ticks of the instrument. The price of an empty side is meaningless - its depth and size are 0.
+ */
+@Getter
+@ToString
+public class TopOfBook {
+
+    // version of the snapshot this copy was read from
+    long version;
+    long bidPrice;
+    long bidSize;
+    long bidDepth;
+    long askPrice;
+    long askSize;
+    long askDepth;
+
+    public boolean isEmpty(final Side side) {
+        return getDepth(side) == 0;
+    }
+
+    public long getPrice(final Side side) {
+        return side == Side.BID ? bidPrice : askPrice;
+    }
+
+    public long getSize(final Side side) {
+        return side == Side.BID ? bidSize : askSize;
+    }
+
+    public long getDepth(final Side side) {
+        return side == Side.BID ? bidDepth : askDepth;
+    }
+}
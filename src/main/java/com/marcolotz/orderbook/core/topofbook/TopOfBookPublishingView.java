@@ -0,0 +1,165 @@
+package com.marcolotz.orderbook.core.topofbook;
+
+import com.marcolotz.orderbook.port.EventBatch;
+import com.marcolotz.orderbook.port.Level2View;
+import com.marcolotz.orderbook.port.Side;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/***
+ * Level2View decorator that publishes the top of book to a TopOfBookSnapshot after every event, so that other threads (e.g. strategies)
+ * can read best bid/ask, their sizes and the depth of each side while the writer thread keeps updating the book.
+ *
+ * All methods of the view itself must still be called by the writer thread only - other threads only read the snapshot. The snapshot is
+ * only written when the top of book changed: events deep in the book do not touch the cache line read by the readers.
+ */
+public class TopOfBookPublishingView implements Level2View {
+
+    private final Level2View delegate;
+    @Getter
+    private final TopOfBookSnapshot snapshot = new TopOfBookSnapshot();
+
+    // last published values, only used by the writer thread
+    private final TopOfBook published = new TopOfBook();
+
+    public TopOfBookPublishingView(final Level2View delegate) {
+        this.delegate = delegate;
+        publishTopOfBook(true);
+    }
+
+    @Override
+    public void onNewOrder(final Side side, final BigDecimal price, final long quantity, final long orderId) {
+        delegate.onNewOrder(side, price, quantity, orderId);
+        publishTopOfBook(false);
+    }
+
+    @Override
+    public void onNewOrder(final Side side, final long price, final long quantity, final long orderId) {
+        delegate.onNewOrder(side, price, quantity, orderId);
+        publishTopOfBook(false);
+    }
+
+    @Override
+    public void onCancelOrder(final long orderId) {
+        delegate.onCancelOrder(orderId);
+        publishTopOfBook(false);
+    }
+
+    @Override
+    public void onReplaceOrder(final BigDecimal price, final long quantity, final long orderId) {
+        delegate.onReplaceOrder(price, quantity, orderId);
+        publishTopOfBook(false);
+    }
+
+    @Override
+    public void onReplaceOrder(final long price, final long quantity, final long orderId) {
+        delegate.onReplaceOrder(price, quantity, orderId);
+        publishTopOfBook(false);
+    }
+
+    @Override
+    public void onTrade(final long quantity, final long restingOrderId) {
+        delegate.onTrade(quantity, restingOrderId);
+        publishTopOfBook(false);
+    }
+
+    // the top of book is published once, at the end of the batch
+    @Override
+    public void onEvents(final EventBatch batch) {
+        try {
+            delegate.onEvents(batch);
+        } finally {
+            publishTopOfBook(false);
+        }
+    }
+
+    @Override
+    public long getSizeForPriceLevel(final Side side, final BigDecimal price) {
+        return delegate.getSizeForPriceLevel(side, price);
+    }
+
+    @Override
+    public long getSizeForPriceLevel(final Side side, final long price) {
+        return delegate.getSizeForPriceLevel(side, price);
+    }
+
+    @Override
+    public long getBookDepth(final Side side) {
+        return delegate.getBookDepth(side);
+    }
+
+    @Override
+    public BigDecimal getTopOfBook(final Side side) {
+        return delegate.getTopOfBook(side);
+    }
+
+    @Override
+    public long getTopOfBookTicks(final Side side) {
+        return delegate.getTopOfBookTicks(side);
+    }
+
+    @Override
+    public int getDepth(final Side side, final int levels, final BigDecimal[] prices, final long[] sizes) {
+        return delegate.getDepth(side, levels, prices, sizes);
+    }
+
+    @Override
+    public int getDepth(final Side side, final int levels, final long[] prices, final long[] sizes) {
+        return delegate.getDepth(side, levels, prices, sizes);
+    }
+
+    @Override
+    public long getSizeBetween(final Side side, final BigDecimal fromPrice, final BigDecimal toPrice) {
+        return delegate.getSizeBetween(side, fromPrice, toPrice);
+    }
+
+    @Override
+    public long getSizeBetween(final Side side, final long fromPrice, final long toPrice) {
+        return delegate.getSizeBetween(side, fromPrice, toPrice);
+    }
+
+    @Override
+    public long getCumulativeSize(final Side side, final BigDecimal price) {
+        return delegate.getCumulativeSize(side, price);
+    }
+
+    @Override
+    public long getCumulativeSize(final Side side, final long price) {
+        return delegate.getCumulativeSize(side, price);
+    }
+
+    @Override
+    public BigDecimal getFillPrice(final Side side, final long quantity) {
+        return delegate.getFillPrice(side, quantity);
+    }
+
+    @Override
+    public long getFillPriceTicks(final Side side, final long quantity) {
+        return delegate.getFillPriceTicks(side, quantity);
+    }
+
+    @Override
+    public BigDecimal getSweepVwap(final Side side, final long quantity) {
+        return delegate.getSweepVwap(side, quantity);
+    }
+
+    private void publishTopOfBook(final boolean force) {
+        final long bidDepth = delegate.getBookDepth(Side.BID);
+        final long bidPrice = bidDepth == 0 ? 0 : delegate.getTopOfBookTicks(Side.BID);
+        final long bidSize = bidDepth == 0 ? 0 : delegate.getSizeForPriceLevel(Side.BID, bidPrice);
+        final long askDepth = delegate.getBookDepth(Side.ASK);
+        final long askPrice = askDepth == 0 ? 0 : delegate.getTopOfBookTicks(Side.ASK);
+        final long askSize = askDepth == 0 ? 0 : delegate.getSizeForPriceLevel(Side.ASK, askPrice);
+        if (force || bidPrice != published.bidPrice || bidSize != published.bidSize || bidDepth != published.bidDepth
+            || askPrice != published.askPrice || askSize != published.askSize || askDepth != published.askDepth) {
+            published.bidPrice = bidPrice;
+            published.bidSize = bidSize;
+            published.bidDepth = bidDepth;
+            published.askPrice = askPrice;
+            published.askSize = askSize;
+            published.askDepth = askDepth;
+            snapshot.publish(bidPrice, bidSize, bidDepth, askPrice, askSize, askDepth);
+        }
+    }
+}
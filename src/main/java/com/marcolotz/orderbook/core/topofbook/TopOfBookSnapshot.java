@@ -0,0 +1,93 @@
+package com.marcolotz.orderbook.core.topofbook;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/***
+ * Top of book published by the single thread mutating a book, and read by any number of other threads - guarded by a seqlock.
+ *
+ * The writer makes the version odd, writes the values and makes the version even again. A reader reads the version, the values and the
+ * version again: if both versions are the same and even, no write overlapped the read and the values are consistent, otherwise it
+ * retries. The writer never waits for readers and readers never block each other - a reader only retries when it overlaps a write, which
+ * takes a few nanoseconds.
+ *
+ * Ordering is enforced with VarHandle fences instead of locks or volatile values: the version is written with release semantics after the
+ * values, and read with acquire semantics before them.
+ */
+public class TopOfBookSnapshot {
+
+    private static final VarHandle VERSION;
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final int BID_PRICE = 0;
+    private static final int BID_SIZE = 1;
+    private static final int BID_DEPTH = 2;
+    private static final int ASK_PRICE = 3;
+    private static final int ASK_SIZE = 4;
+    private static final int ASK_DEPTH = 5;
+
+    static {
+        try {
+            VERSION = MethodHandles.lookup().findVarHandle(TopOfBookSnapshot.class, "version", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // odd while a write is in progress - plain field, only accessed through the VarHandle with explicit modes
+    private long version;
+    private final long[] values = new long[6];
+
+    /***
+     * Publishes a new top of book. Must only be called by the writer thread.
+     */
+    public void publish(final long bidPrice, final long bidSize, final long bidDepth,
+                        final long askPrice, final long askSize, final long askDepth) {
+        final long current = (long) VERSION.get(this);
+        VERSION.setOpaque(this, current + 1);
+        // the odd version is visible before any of the values
+        VarHandle.storeStoreFence();
+        VALUES.setOpaque(values, BID_PRICE, bidPrice);
+        VALUES.setOpaque(values, BID_SIZE, bidSize);
+        VALUES.setOpaque(values, BID_DEPTH, bidDepth);
+        VALUES.setOpaque(values, ASK_PRICE, askPrice);
+        VALUES.setOpaque(values, ASK_SIZE, askSize);
+        VALUES.setOpaque(values, ASK_DEPTH, askDepth);
+        // the values are visible before the even version
+        VERSION.setRelease(this, current + 2);
+    }
+
+    /***
+     * Copies a consistent top of book into the target. Can be called by any thread.
+     *
+     * @param target copy to be filled
+     * @return version of the snapshot that was read
+     */
+    public long read(final TopOfBook target) {
+        while (true) {
+            final long before = (long) VERSION.getAcquire(this);
+            if ((before & 1) == 0) {
+                target.bidPrice = (long) VALUES.getOpaque(values, BID_PRICE);
+                target.bidSize = (long) VALUES.getOpaque(values, BID_SIZE);
+                target.bidDepth = (long) VALUES.getOpaque(values, BID_DEPTH);
+                target.askPrice = (long) VALUES.getOpaque(values, ASK_PRICE);
+                target.askSize = (long) VALUES.getOpaque(values, ASK_SIZE);
+                target.askDepth = (long) VALUES.getOpaque(values, ASK_DEPTH);
+                // the values are read before the version is checked again
+                VarHandle.loadLoadFence();
+                if ((long) VERSION.getOpaque(this) == before) {
+                    target.version = before;
+                    return before;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /***
+     * @return current version: twice the number of publishes, odd while a publish is in progress
+     */
+    public long getVersion() {
+        return (long) VERSION.getAcquire(this);
+    }
+}
@@ -0,0 +1,52 @@
+package com.marcolotz.orderbook.core.util;
+
+import java.util.Arrays;
+
+/***
+ * Fenwick (binary indexed) tree of longs: adding to an entry and summing a prefix of the entries are both O(log n), on a single array with
+ * no node objects.
+ *
+ * Entries are indexed from 0. The capacity is fixed between resets; reset() only allocates when it needs a larger capacity. Not thread
+ * safe.
+ */
+public class FenwickTree {
+
+    // 1-based: tree[i] holds the sum of the entries (i - lowest bit of i, i]
+    private long[] tree;
+
+    public FenwickTree(final int capacity) {
+        this.tree = new long[capacity + 1];
+    }
+
+    public int capacity() {
+        return tree.length - 1;
+    }
+
+    /***
+     * Sets all the entries to 0, with at least the given capacity.
+     */
+    public void reset(final int capacity) {
+        if (capacity > capacity()) {
+            tree = new long[capacity + 1];
+        } else {
+            Arrays.fill(tree, 0);
+        }
+    }
+
+    public void add(final int index, final long delta) {
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /***
+     * @return sum of the first "count" entries, i.e. of the entries before index "count"
+     */
+    public long prefixSum(final int count) {
+        long sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+}
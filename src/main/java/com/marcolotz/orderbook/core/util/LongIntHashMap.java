@@ -0,0 +1,160 @@
+package com.marcolotz.orderbook.core.util;
+
+import java.util.Arrays;
+
+/***
+ * Hash map from primitive long keys to int values, built for short lived indexes that are filled and cleared over and over (the pending
+ * adds of a batch, the levels of a conflated update).
+ *
+ * Compared to LongObjectHashMap:
+ * - clear() is O(1): a slot is in use only if its stamp is the current generation, and clearing bumps the generation.
+ * - Entries are reached through their slot (find, valueAt, setValueAt, removeAt), so a lookup followed by an update or a removal probes
+ * the table once.
+ * - The table is at most half full, with plain linear probing. It only grows when more entries are put than ever before, so a map that
+ * has seen its largest fill does not allocate anymore.
+ *
+ * Not thread safe.
+ */
+public class LongIntHashMap {
+
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    // slot is in use only if its stamp is the current generation (never 0)
+    private int[] stamps;
+    private int generation;
+    private int mask;
+    private int shift;
+    private int size;
+
+    public LongIntHashMap(final int expectedSize) {
+        allocate(tableSize(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /***
+     * @return slot of the key, or -1 if the key is not in the map
+     */
+    public int find(final long key) {
+        for (int slot = home(key); stamps[slot] == generation; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /***
+     * @param slot slot returned by find(), with no put nor removal since
+     */
+    public int valueAt(final int slot) {
+        return values[slot];
+    }
+
+    public void setValueAt(final int slot, final int value) {
+        values[slot] = value;
+    }
+
+    public void put(final long key, final int value) {
+        final int slot = find(key);
+        if (slot >= 0) {
+            values[slot] = value;
+            return;
+        }
+        if (size >= keys.length >> 1) {
+            rehash(keys.length << 1);
+        }
+        insert(key, value);
+        size++;
+    }
+
+    /***
+     * Removes the entry with backward shift deletion, so that there are no holes on the probe sequences.
+     *
+     * @param slot slot returned by find(), with no put nor removal since
+     */
+    public void removeAt(int slot) {
+        stamps[slot] = 0;
+        int next = (slot + 1) & mask;
+        while (stamps[next] == generation) {
+            final int home = home(keys[next]);
+            // move the entry back if its home is not within (slot, next]
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                stamps[slot] = generation;
+                stamps[next] = 0;
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        size--;
+    }
+
+    /***
+     * O(1), unless the generation wraps around - once every 2^32 clears.
+     */
+    public void clear() {
+        size = 0;
+        if (++generation == 0) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    /***
+     * Grows the table ahead of time, so that putting up to expectedSize entries does not allocate.
+     */
+    public void ensureCapacity(final int expectedSize) {
+        final int tableSize = tableSize(expectedSize);
+        if (keys.length < tableSize) {
+            rehash(tableSize);
+        }
+    }
+
+    // at most half full
+    private static int tableSize(final int expectedSize) {
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize)) << 2);
+    }
+
+    private int home(final long key) {
+        return (int) ((key * GOLDEN_RATIO) >>> shift);
+    }
+
+    private void insert(final long key, final int value) {
+        int slot = home(key);
+        while (stamps[slot] == generation) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        stamps[slot] = generation;
+    }
+
+    private void allocate(final int tableSize) {
+        keys = new long[tableSize];
+        values = new int[tableSize];
+        stamps = new int[tableSize];
+        generation = 1;
+        mask = tableSize - 1;
+        shift = Long.SIZE - Integer.numberOfTrailingZeros(tableSize);
+    }
+
+    private void rehash(final int tableSize) {
+        final long[] oldKeys = keys;
+        final int[] oldValues = values;
+        final int[] oldStamps = stamps;
+        final int oldGeneration = generation;
+        allocate(tableSize);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldStamps[slot] == oldGeneration) {
+                insert(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.marcolotz.orderbook.core.util;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/***
+ * Hash map from primitive long keys to objects, built for the order directory and the price level index.
+ *
+ * Compared to HashMap&lt;Long, V&gt;:
+ * - Keys are never boxed and there are no per-entry Node objects: keys and values live in two parallel arrays.
+ * - Open addressing with Robin Hood probing keeps probe sequences short even on high load factors.
+ * - Removals use backward shift deletion, so there are no tombstones degrading lookups over time.
+ * - Resizes are incremental: the old table is kept around and a few of its slots are moved to the new table on every mutation.
+ * There's no single put that pays for re-hashing millions of entries, which makes it safe to start small instead of pre-allocating
+ * the worst case.
+ *
+ * Null values are not supported - a null value marks an empty slot. Not thread safe.
+ *
+ * @param <V> type of the values
+ */
+public class LongObjectHashMap<V> {
+
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+    private static final float LOAD_FACTOR = 0.8f;
+    private static final int MIN_CAPACITY = 16;
+    // slots of the old table moved on each mutation while resizing.
+    private static final int MIGRATION_STEP = 8;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int shift;
+    private int resizeThreshold;
+
+    // Table being drained during an incremental resize, null otherwise
+    private long[] oldKeys;
+    private Object[] oldValues;
+    private int oldMask;
+    private int oldShift;
+    private int migrationIndex;
+
+    private int size;
+
+    public LongObjectHashMap(final int expectedSize) {
+        final int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit((int) Math.ceil(expectedSize / LOAD_FACTOR) - 1) << 1);
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(final long key) {
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(final long key) {
+        final int slot = find(keys, values, mask, shift, key);
+        if (slot >= 0) {
+            return (V) values[slot];
+        }
+        if (oldValues != null) {
+            final int oldSlot = find(oldKeys, oldValues, oldMask, oldShift, key);
+            if (oldSlot >= 0) {
+                return (V) oldValues[oldSlot];
+            }
+        }
+        return null;
+    }
+
+    /***
+     * @param key   key
+     * @param value non-null value
+     * @return previous value for the key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(final long key, final V value) {
+        Objects.requireNonNull(value, "Null values are not supported");
+        migrate();
+        final int slot = find(keys, values, mask, shift, key);
+        if (slot >= 0) {
+            final V previous = (V) values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        if (oldValues != null) {
+            final int oldSlot = find(oldKeys, oldValues, oldMask, oldShift, key);
+            if (oldSlot >= 0) {
+                final V previous = (V) oldValues[oldSlot];
+                oldValues[oldSlot] = value;
+                return previous;
+            }
+        }
+        if (size >= resizeThreshold) {
+            startResize();
+        }
+        insert(keys, values, mask, shift, key, value);
+        size++;
+        return null;
+    }
+
+    /***
+     * @param key key
+     * @return removed value, or null if the key was not found
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(final long key) {
+        migrate();
+        final int slot = find(keys, values, mask, shift, key);
+        if (slot >= 0) {
+            final V previous = (V) values[slot];
+            removeAt(keys, values, mask, shift, slot);
+            size--;
+            return previous;
+        }
+        if (oldValues != null) {
+            final int oldSlot = find(oldKeys, oldValues, oldMask, oldShift, key);
+            if (oldSlot >= 0) {
+                final V previous = (V) oldValues[oldSlot];
+                removeAt(oldKeys, oldValues, oldMask, oldShift, oldSlot);
+                size--;
+                return previous;
+            }
+        }
+        return null;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        oldKeys = null;
+        oldValues = null;
+        size = 0;
+    }
+
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        shift = Long.numberOfLeadingZeros(mask);
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void startResize() {
+        // a resize can only start once the previous one is complete
+        while (oldValues != null) {
+            migrate();
+        }
+        oldKeys = keys;
+        oldValues = values;
+        oldMask = mask;
+        oldShift = shift;
+        migrationIndex = 0;
+        allocate(keys.length << 1);
+    }
+
+    /***
+     * Moves up to MIGRATION_STEP slots of the old table into the current one.
+     *
+     * Slots are drained in index order and each move is a regular backward shift removal, so every slot before migrationIndex stays
+     * empty and the old table keeps the Robin Hood invariant - lookups on it remain correct until it is released.
+     */
+    private void migrate() {
+        if (oldValues == null) {
+            return;
+        }
+        for (int step = 0; step < MIGRATION_STEP && migrationIndex <= oldMask; step++) {
+            final Object value = oldValues[migrationIndex];
+            if (value == null) {
+                migrationIndex++;
+            } else {
+                final long key = oldKeys[migrationIndex];
+                removeAt(oldKeys, oldValues, oldMask, oldShift, migrationIndex);
+                insert(keys, values, mask, shift, key, value);
+            }
+        }
+        if (migrationIndex > oldMask) {
+            oldKeys = null;
+            oldValues = null;
+        }
+    }
+
+    private static int home(final long key, final int shift) {
+        return (int) ((key * GOLDEN_RATIO) >>> shift);
+    }
+
+    private static int find(final long[] keys, final Object[] values, final int mask, final int shift, final long key) {
+        int slot = home(key, shift);
+        for (int distance = 0; ; distance++) {
+            if (values[slot] == null) {
+                return -1;
+            }
+            if (keys[slot] == key) {
+                return slot;
+            }
+            // Robin Hood invariant: the key would have displaced any entry closer to its home
+            if (((slot - home(keys[slot], shift)) & mask) < distance) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static void insert(final long[] keys, final Object[] values, final int mask, final int shift, long key, Object value) {
+        int slot = home(key, shift);
+        int distance = 0;
+        while (values[slot] != null) {
+            final int existingDistance = (slot - home(keys[slot], shift)) & mask;
+            if (existingDistance < distance) {
+                // take the slot from the richer entry and carry it forward
+                final long displacedKey = keys[slot];
+                final Object displacedValue = values[slot];
+                keys[slot] = key;
+                values[slot] = value;
+                key = displacedKey;
+                value = displacedValue;
+                distance = existingDistance;
+            }
+            slot = (slot + 1) & mask;
+            distance++;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    private static void removeAt(final long[] keys, final Object[] values, final int mask, final int shift, int slot) {
+        int next = (slot + 1) & mask;
+        while (values[next] != null && ((next - home(keys[next], shift)) & mask) != 0) {
+            keys[slot] = keys[next];
+            values[slot] = values[next];
+            slot = next;
+            next = (next + 1) & mask;
+        }
+        values[slot] = null;
+    }
+}
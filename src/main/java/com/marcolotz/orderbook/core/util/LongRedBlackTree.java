@@ -0,0 +1,582 @@
+package com.marcolotz.orderbook.core.util;
+
+import java.util.Arrays;
+
+/***
+ * Red-Black tree keyed by primitive longs, built for the price index of the order books.
+ *
+ * Compared to RedBlackTree:
+ * - There are no node objects: a node is an int index into parallel arrays holding its key, color, parent/left/right indices, subtree
+ * size and value. The whole index sits in a handful of dense arrays instead of objects scattered across the heap.
+ * - Keys are compared as longs, no comparator call and no boxing.
+ * - Removed nodes go to a free list threaded through the "next" array and are reused by the following inserts. The arrays only grow
+ * (doubling) when the tree holds more nodes than ever before, so a warmed up tree does not allocate.
+ *
+ * Nodes are also threaded in order (previous/next indices), so the first node and the in-order neighbours of any node are O(1), and the
+ * subtree sizes give order statistics (numSmaller/numGreater) in O(log n).
+ *
+ * Each node also carries a weight (e.g. the quantity of a price level, 0 until setWeight) and each subtree the sums of the weights and of
+ * key x weight (the notional) of its nodes. Prefix sums in the order of the tree (weightBefore/notionalBefore) and the search of the node
+ * where the cumulative weight reaches a value (findCumulativeWeight) are then O(log n), and so is setWeight.
+ *
+ * Index 0 (NIL) is the sentinel: it's both the "null" node handle and the leaves of the tree. A node index is valid until the node is
+ * removed. Not thread safe.
+ *
+ * @param <V> type of the values
+ */
+public class LongRedBlackTree<V> {
+
+    public static final int NIL = 0;
+
+    private static final int MIN_CAPACITY = 16;
+
+    // order of the keys: ascending, or descending when true
+    private final boolean descending;
+
+    private long[] keys;
+    private boolean[] red;
+    private int[] parent;
+    private int[] left;
+    private int[] right;
+    // number of nodes in the subtree rooted at each node, 0 for NIL
+    private int[] subtreeSize;
+    private long[] weight;
+    // sums of weight and of key x weight over the subtree rooted at each node, 0 for NIL
+    private long[] subtreeWeight;
+    private long[] subtreeNotional;
+    private int[] previous;
+    private int[] next;
+    private Object[] values;
+
+    private int root = NIL;
+    private int first = NIL;
+    // head of the free list of removed nodes, linked through next[]
+    private int freeHead = NIL;
+    // highest index ever handed out
+    private int highWaterMark;
+
+    public LongRedBlackTree(final boolean descending, final int initialCapacity) {
+        this.descending = descending;
+        allocate(Math.max(MIN_CAPACITY, initialCapacity + 1));
+    }
+
+    public int size() {
+        return subtreeSize[root];
+    }
+
+    public boolean isEmpty() {
+        return root == NIL;
+    }
+
+    /***
+     * @return first node in the order of the tree, NIL if the tree is empty - O(1)
+     */
+    public int first() {
+        return first;
+    }
+
+    /***
+     * @return node after the given one in the order of the tree, NIL if it's the last one - O(1)
+     */
+    public int next(final int node) {
+        return next[node];
+    }
+
+    /***
+     * @return node before the given one in the order of the tree, NIL if it's the first one - O(1)
+     */
+    public int previous(final int node) {
+        return previous[node];
+    }
+
+    public long key(final int node) {
+        return keys[node];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V value(final int node) {
+        return (V) values[node];
+    }
+
+    /***
+     * @return a node with the given key, NIL if there is none - O(log n)
+     */
+    public int search(final long key) {
+        int x = root;
+        while (x != NIL && keys[x] != key) {
+            x = isBefore(key, keys[x]) ? left[x] : right[x];
+        }
+        return x;
+    }
+
+    /***
+     * @return number of keys strictly before the given key in the order of the tree - O(log n)
+     */
+    public int numSmaller(final long key) {
+        int count = 0;
+        int x = root;
+        while (x != NIL) {
+            if (isBefore(keys[x], key)) {
+                count += subtreeSize[left[x]] + 1;
+                x = right[x];
+            } else {
+                x = left[x];
+            }
+        }
+        return count;
+    }
+
+    /***
+     * @return number of keys strictly after the given key in the order of the tree - O(log n)
+     */
+    public int numGreater(final long key) {
+        int count = 0;
+        int x = root;
+        while (x != NIL) {
+            if (isBefore(key, keys[x])) {
+                count += subtreeSize[right[x]] + 1;
+                x = left[x];
+            } else {
+                x = right[x];
+            }
+        }
+        return count;
+    }
+
+    public long weight(final int node) {
+        return weight[node];
+    }
+
+    /***
+     * @return sum of the weights of all the nodes - O(1)
+     */
+    public long totalWeight() {
+        return subtreeWeight[root];
+    }
+
+    /***
+     * Sets the weight of a node and updates the sums of its ancestors - O(log n).
+     */
+    public void setWeight(final int node, final long newWeight) {
+        final long delta = newWeight - weight[node];
+        if (delta == 0) {
+            return;
+        }
+        weight[node] = newWeight;
+        final long notionalDelta = delta * keys[node];
+        for (int x = node; x != NIL; x = parent[x]) {
+            subtreeWeight[x] += delta;
+            subtreeNotional[x] += notionalDelta;
+        }
+    }
+
+    /***
+     * @param inclusive whether nodes with the given key are counted
+     * @return sum of the weights of the nodes before the given key in the order of the tree - O(log n)
+     */
+    public long weightBefore(final long key, final boolean inclusive) {
+        long sum = 0;
+        int x = root;
+        while (x != NIL) {
+            if (isBefore(keys[x], key) || inclusive && keys[x] == key) {
+                sum += subtreeWeight[left[x]] + weight[x];
+                x = right[x];
+            } else {
+                x = left[x];
+            }
+        }
+        return sum;
+    }
+
+    /***
+     * @param inclusive whether nodes with the given key are counted
+     * @return sum of key x weight of the nodes before the given key in the order of the tree - O(log n)
+     */
+    public long notionalBefore(final long key, final boolean inclusive) {
+        long sum = 0;
+        int x = root;
+        while (x != NIL) {
+            if (isBefore(keys[x], key) || inclusive && keys[x] == key) {
+                sum += subtreeNotional[left[x]] + weight[x] * keys[x];
+                x = right[x];
+            } else {
+                x = left[x];
+            }
+        }
+        return sum;
+    }
+
+    /***
+     * @param cumulativeWeight positive weight to be reached
+     * @return first node, in the order of the tree, at which the sum of the weights from the first node reaches the given weight - NIL if
+     *     the total weight is lower - O(log n)
+     */
+    public int findCumulativeWeight(final long cumulativeWeight) {
+        long remaining = cumulativeWeight;
+        int x = root;
+        while (x != NIL) {
+            final long leftWeight = subtreeWeight[left[x]];
+            if (remaining <= leftWeight) {
+                x = left[x];
+            } else if (remaining <= leftWeight + weight[x]) {
+                return x;
+            } else {
+                remaining -= leftWeight + weight[x];
+                x = right[x];
+            }
+        }
+        return NIL;
+    }
+
+    /***
+     * Inserts a node - O(log n). Equal keys are kept after the existing ones.
+     *
+     * @return index of the new node, valid until it's removed
+     */
+    public int insert(final long key, final V value) {
+        final int z = allocateNode();
+        keys[z] = key;
+        values[z] = value;
+        left[z] = NIL;
+        right[z] = NIL;
+        red[z] = true;
+        subtreeSize[z] = 1;
+        weight[z] = 0;
+        subtreeWeight[z] = 0;
+        subtreeNotional[z] = 0;
+
+        int y = NIL;
+        int x = root;
+        while (x != NIL) {
+            y = x;
+            subtreeSize[x]++;
+            x = isBefore(key, keys[x]) ? left[x] : right[x];
+        }
+        parent[z] = y;
+        if (y == NIL) {
+            root = z;
+            previous[z] = NIL;
+            next[z] = NIL;
+            first = z;
+        } else if (isBefore(key, keys[y])) {
+            // a new left leaf sits right before its parent
+            left[y] = z;
+            previous[z] = previous[y];
+            next[z] = y;
+            if (previous[y] == NIL) {
+                first = z;
+            } else {
+                next[previous[y]] = z;
+            }
+            previous[y] = z;
+        } else {
+            // a new right leaf sits right after its parent
+            right[y] = z;
+            previous[z] = y;
+            next[z] = next[y];
+            if (next[y] != NIL) {
+                previous[next[y]] = z;
+            }
+            next[y] = z;
+        }
+        insertFixup(z);
+        return z;
+    }
+
+    /***
+     * Removes the node with the given key, if any - O(log n).
+     */
+    public void remove(final long key) {
+        final int node = search(key);
+        if (node != NIL) {
+            removeNode(node);
+        }
+    }
+
+    /***
+     * Removes a node by its index - O(log n), without any key comparison. Other node indices stay valid.
+     */
+    public void removeNode(final int z) {
+        // unthread
+        final int successor = next[z];
+        if (previous[z] == NIL) {
+            first = successor;
+        } else {
+            next[previous[z]] = successor;
+        }
+        if (successor != NIL) {
+            previous[successor] = previous[z];
+        }
+
+        final int x;
+        // lowest node whose subtree lost a node, the weight sums are recomputed from there up
+        final int changed;
+        boolean removedRed = red[z];
+        if (left[z] == NIL) {
+            x = right[z];
+            changed = parent[z];
+            decrementSizes(parent[z]);
+            transplant(z, x);
+        } else if (right[z] == NIL) {
+            x = left[z];
+            changed = parent[z];
+            decrementSizes(parent[z]);
+            transplant(z, x);
+        } else {
+            // two children: the in-order successor is the minimum of the right subtree and takes the place of z
+            final int y = successor;
+            removedRed = red[y];
+            x = right[y];
+            changed = parent[y] == z ? y : parent[y];
+            decrementSizes(parent[y]);
+            if (parent[y] == z) {
+                parent[x] = y;
+            } else {
+                transplant(y, x);
+                right[y] = right[z];
+                parent[right[y]] = y;
+            }
+            transplant(z, y);
+            left[y] = left[z];
+            parent[left[y]] = y;
+            red[y] = red[z];
+            subtreeSize[y] = subtreeSize[z];
+        }
+        recomputeWeights(changed);
+        if (!removedRed) {
+            deleteFixup(x);
+        }
+        releaseNode(z);
+    }
+
+    public void clear() {
+        Arrays.fill(values, 1, highWaterMark + 1, null);
+        root = NIL;
+        first = NIL;
+        freeHead = NIL;
+        highWaterMark = NIL;
+    }
+
+    private boolean isBefore(final long key, final long otherKey) {
+        return descending ? key > otherKey : key < otherKey;
+    }
+
+    private void decrementSizes(int node) {
+        while (node != NIL) {
+            subtreeSize[node]--;
+            node = parent[node];
+        }
+    }
+
+    private void recomputeWeights(int node) {
+        while (node != NIL) {
+            subtreeWeight[node] = subtreeWeight[left[node]] + weight[node] + subtreeWeight[right[node]];
+            subtreeNotional[node] = subtreeNotional[left[node]] + weight[node] * keys[node] + subtreeNotional[right[node]];
+            node = parent[node];
+        }
+    }
+
+    private void transplant(final int u, final int v) {
+        if (parent[u] == NIL) {
+            root = v;
+        } else if (u == left[parent[u]]) {
+            left[parent[u]] = v;
+        } else {
+            right[parent[u]] = v;
+        }
+        parent[v] = parent[u];
+    }
+
+    private void leftRotate(final int x) {
+        final int y = right[x];
+        right[x] = left[y];
+        if (left[y] != NIL) {
+            parent[left[y]] = x;
+        }
+        parent[y] = parent[x];
+        if (parent[x] == NIL) {
+            root = y;
+        } else if (x == left[parent[x]]) {
+            left[parent[x]] = y;
+        } else {
+            right[parent[x]] = y;
+        }
+        left[y] = x;
+        parent[x] = y;
+        subtreeSize[y] = subtreeSize[x];
+        subtreeSize[x] = subtreeSize[left[x]] + subtreeSize[right[x]] + 1;
+        subtreeWeight[y] = subtreeWeight[x];
+        subtreeNotional[y] = subtreeNotional[x];
+        subtreeWeight[x] = subtreeWeight[left[x]] + weight[x] + subtreeWeight[right[x]];
+        subtreeNotional[x] = subtreeNotional[left[x]] + weight[x] * keys[x] + subtreeNotional[right[x]];
+    }
+
+    private void rightRotate(final int x) {
+        final int y = left[x];
+        left[x] = right[y];
+        if (right[y] != NIL) {
+            parent[right[y]] = x;
+        }
+        parent[y] = parent[x];
+        if (parent[x] == NIL) {
+            root = y;
+        } else if (x == right[parent[x]]) {
+            right[parent[x]] = y;
+        } else {
+            left[parent[x]] = y;
+        }
+        right[y] = x;
+        parent[x] = y;
+        subtreeSize[y] = subtreeSize[x];
+        subtreeSize[x] = subtreeSize[left[x]] + subtreeSize[right[x]] + 1;
+        subtreeWeight[y] = subtreeWeight[x];
+        subtreeNotional[y] = subtreeNotional[x];
+        subtreeWeight[x] = subtreeWeight[left[x]] + weight[x] + subtreeWeight[right[x]];
+        subtreeNotional[x] = subtreeNotional[left[x]] + weight[x] * keys[x] + subtreeNotional[right[x]];
+    }
+
+    private void insertFixup(int z) {
+        while (red[parent[z]]) {
+            final int grandParent = parent[parent[z]];
+            if (parent[z] == left[grandParent]) {
+                final int uncle = right[grandParent];
+                if (red[uncle]) {
+                    red[parent[z]] = false;
+                    red[uncle] = false;
+                    red[grandParent] = true;
+                    z = grandParent;
+                } else {
+                    if (z == right[parent[z]]) {
+                        z = parent[z];
+                        leftRotate(z);
+                    }
+                    red[parent[z]] = false;
+                    red[parent[parent[z]]] = true;
+                    rightRotate(parent[parent[z]]);
+                }
+            } else {
+                final int uncle = left[grandParent];
+                if (red[uncle]) {
+                    red[parent[z]] = false;
+                    red[uncle] = false;
+                    red[grandParent] = true;
+                    z = grandParent;
+                } else {
+                    if (z == left[parent[z]]) {
+                        z = parent[z];
+                        rightRotate(z);
+                    }
+                    red[parent[z]] = false;
+                    red[parent[parent[z]]] = true;
+                    leftRotate(parent[parent[z]]);
+                }
+            }
+        }
+        red[root] = false;
+    }
+
+    private void deleteFixup(int x) {
+        while (x != root && !red[x]) {
+            if (x == left[parent[x]]) {
+                int w = right[parent[x]];
+                if (red[w]) {
+                    red[w] = false;
+                    red[parent[x]] = true;
+                    leftRotate(parent[x]);
+                    w = right[parent[x]];
+                }
+                if (!red[left[w]] && !red[right[w]]) {
+                    red[w] = true;
+                    x = parent[x];
+                } else {
+                    if (!red[right[w]]) {
+                        red[left[w]] = false;
+                        red[w] = true;
+                        rightRotate(w);
+                        w = right[parent[x]];
+                    }
+                    red[w] = red[parent[x]];
+                    red[parent[x]] = false;
+                    red[right[w]] = false;
+                    leftRotate(parent[x]);
+                    x = root;
+                }
+            } else {
+                int w = left[parent[x]];
+                if (red[w]) {
+                    red[w] = false;
+                    red[parent[x]] = true;
+                    rightRotate(parent[x]);
+                    w = left[parent[x]];
+                }
+                if (!red[right[w]] && !red[left[w]]) {
+                    red[w] = true;
+                    x = parent[x];
+                } else {
+                    if (!red[left[w]]) {
+                        red[right[w]] = false;
+                        red[w] = true;
+                        leftRotate(w);
+                        w = left[parent[x]];
+                    }
+                    red[w] = red[parent[x]];
+                    red[parent[x]] = false;
+                    red[left[w]] = false;
+                    rightRotate(parent[x]);
+                    x = root;
+                }
+            }
+        }
+        red[x] = false;
+    }
+
+    private int allocateNode() {
+        if (freeHead != NIL) {
+            final int node = freeHead;
+            freeHead = next[node];
+            return node;
+        }
+        if (highWaterMark + 1 == keys.length) {
+            grow();
+        }
+        return ++highWaterMark;
+    }
+
+    private void releaseNode(final int node) {
+        values[node] = null;
+        previous[node] = NIL;
+        next[node] = freeHead;
+        freeHead = node;
+    }
+
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        red = new boolean[capacity];
+        parent = new int[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        subtreeSize = new int[capacity];
+        weight = new long[capacity];
+        subtreeWeight = new long[capacity];
+        subtreeNotional = new long[capacity];
+        previous = new int[capacity];
+        next = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    private void grow() {
+        final int capacity = keys.length << 1;
+        keys = Arrays.copyOf(keys, capacity);
+        red = Arrays.copyOf(red, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        subtreeSize = Arrays.copyOf(subtreeSize, capacity);
+        weight = Arrays.copyOf(weight, capacity);
+        subtreeWeight = Arrays.copyOf(subtreeWeight, capacity);
+        subtreeNotional = Arrays.copyOf(subtreeNotional, capacity);
+        previous = Arrays.copyOf(previous, capacity);
+        next = Arrays.copyOf(next, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+}
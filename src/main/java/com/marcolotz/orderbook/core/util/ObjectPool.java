@@ -0,0 +1,60 @@
+package com.marcolotz.orderbook.core.util;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/***
+ * Pool of reusable objects, used to keep the event path garbage free.
+ *
+ * Objects are created up-front and handed out by acquire(). Whoever acquired an object is responsible for giving it back with release()
+ * once it is not referenced anymore - after that, the pool may hand it out again. The pool only allocates when it runs dry, so a warmed up
+ * pool sized for the working set never allocates.
+ *
+ * Not thread safe.
+ *
+ * @param <T> type of the pooled objects
+ */
+public class ObjectPool<T> {
+
+    private final Supplier<T> factory;
+    private Object[] free;
+    private int freeCount;
+
+    public ObjectPool(final Supplier<T> factory, final int initialSize) {
+        this.factory = factory;
+        this.free = new Object[Math.max(1, initialSize)];
+        for (int i = 0; i < initialSize; i++) {
+            free[freeCount++] = factory.get();
+        }
+    }
+
+    /***
+     * @return an object from the pool, or a new one if the pool is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        if (freeCount == 0) {
+            return factory.get();
+        }
+        final T object = (T) free[--freeCount];
+        free[freeCount] = null;
+        return object;
+    }
+
+    /***
+     * @param object object that is not referenced anymore by its previous owner
+     */
+    public void release(final T object) {
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, free.length << 1);
+        }
+        free[freeCount++] = object;
+    }
+
+    /***
+     * @return number of objects available in the pool
+     */
+    public int available() {
+        return freeCount;
+    }
+}
@@ -0,0 +1,73 @@
+package com.marcolotz.orderbook.core.util;
+
+import com.marcolotz.orderbook.core.exceptions.InvalidOrderException;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/***
+ * Converts prices between their decimal representation and fixed-point ticks of a single instrument.
+ *
+ * The order books only work on tick counts (price / tickSize). This keeps BigDecimal hashing, comparison and allocation out of the hot
+ * path - the conversion only happens at the edge of the system, whenever a client uses the BigDecimal API.
+ */
+@Getter
+public class PriceCodec {
+
+    private final BigDecimal tickSize;
+
+    public PriceCodec(final BigDecimal tickSize) {
+        if (tickSize.signum() <= 0) {
+            throw new IllegalArgumentException("Tick size must be positive: " + tickSize);
+        }
+        this.tickSize = tickSize;
+    }
+
+    /***
+     * Creates a codec where one tick is 10^-scale (e.g. scale 2 -> ticks of 0.01).
+     *
+     * @param scale number of decimal places of the instrument price
+     * @return codec for that scale
+     */
+    public static PriceCodec ofScale(final int scale) {
+        return new PriceCodec(BigDecimal.ONE.scaleByPowerOfTen(-scale));
+    }
+
+    /***
+     * @param price decimal price
+     * @return number of ticks represented by the price
+     * @throws InvalidOrderException if the price is not a multiple of the tick size or does not fit in a long
+     */
+    public long toTicks(final BigDecimal price) {
+        try {
+            return price.divide(tickSize).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new InvalidOrderException("Price " + price + " is not a multiple of tick size " + tickSize);
+        }
+    }
+
+    /***
+     * Converts a price that may be off the tick grid, for queries: they ask about prices, they don't place orders at them.
+     *
+     * @param price        decimal price
+     * @param roundingMode how to round a price that is not a multiple of the tick size
+     * @return number of ticks of the rounded price
+     * @throws IllegalArgumentException if the rounded price does not fit in a long
+     */
+    public long toTicks(final BigDecimal price, final RoundingMode roundingMode) {
+        try {
+            return price.divide(tickSize, 0, roundingMode).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Price " + price + " is out of range for tick size " + tickSize, e);
+        }
+    }
+
+    /***
+     * @param ticks number of ticks
+     * @return decimal price represented by the ticks
+     */
+    public BigDecimal toPrice(final long ticks) {
+        return tickSize.multiply(BigDecimal.valueOf(ticks));
+    }
+}
@@ -31,6 +31,14 @@ public class RedBlackNode<T> {
      * Right child
      */
     RedBlackNode<T> right;
+    /**
+     * In-order predecessor, null for the smallest node
+     */
+    RedBlackNode<T> previous;
+    /**
+     * In-order successor, null for the largest node
+     */
+    RedBlackNode<T> next;
     RedBlackNode() {
         color = BLACK;
         numLeft = 0;
@@ -56,6 +64,14 @@ public class RedBlackNode<T> {
     public RedBlackNode<T> getRight() {
         return right;
     }
+
+    public RedBlackNode<T> getPrevious() {
+        return previous;
+    }
+
+    public RedBlackNode<T> getNext() {
+        return next;
+    }
 }// end class RedBlackNode
 
 // CHECKSTYLE:ON
\ No newline at end of file
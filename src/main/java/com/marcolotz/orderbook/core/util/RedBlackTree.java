@@ -3,6 +3,9 @@ package com.marcolotz.orderbook.core.util;
 
 // Reference: https://github.com/Arsenalist/Red-Black-Tree-Java-Implementation
 // Modified to used comparators instead of comparable and to extern the Node elements.
+// Modified to reuse removed nodes from a pool, so that insertions don't allocate once the tree is warmed up.
+// Modified to thread the nodes in order (previous/next links) and to remove nodes by handle, relinking
+// the successor instead of copying its value - node handles held by callers stay valid.
 
 // The core code was not implemented by me (Marco Lotz)
 /*
@@ -62,12 +65,20 @@ public class RedBlackTree<T> {
     private Comparator<T> comparator;
     private RedBlackNode<T> nil = new RedBlackNode<>();
     private RedBlackNode<T> root = nil;
+    // Nodes removed from the tree, reused by insert(T)
+    private final ObjectPool<RedBlackNode<T>> nodePool;
 
     public RedBlackTree(Comparator<T> comparator) {
+        this(comparator, 0);
+    }
+
+    // @param: initialNodes, number of nodes created up-front on the node pool
+    public RedBlackTree(Comparator<T> comparator, int initialNodes) {
         root.left = nil;
         root.right = nil;
         root.parent = nil;
         this.comparator = comparator;
+        this.nodePool = new ObjectPool<>(RedBlackNode::new, initialNodes);
     }
 
     // @param: x, The node which the lefRotate is to be performed on.
@@ -218,7 +229,11 @@ public class RedBlackTree<T> {
 
 
     public RedBlackNode<T> insert(T value) {
-        return insert(new RedBlackNode<T>(value));
+        RedBlackNode<T> node = nodePool.acquire();
+        node.value = value;
+        node.numLeft = 0;
+        node.numRight = 0;
+        return insert(node);
     }
 
     // @param: z, the node to be inserted into the Tree rooted at root
@@ -268,6 +283,24 @@ public class RedBlackTree<T> {
         z.right = nil;
         z.color = RedBlackNode.RED;
 
+        // Thread z in order: a left child sits between its parent and the
+        // parent's predecessor, a right child between its parent and the
+        // parent's successor.
+        if (isNil(y)) {
+            z.previous = null;
+            z.next = null;
+        } else if (y.left == z) {
+            z.previous = y.previous;
+            z.next = y;
+        } else {
+            z.previous = y;
+            z.next = y.next;
+        }
+        if (z.previous != null)
+            z.previous.next = z;
+        if (z.next != null)
+            z.next.previous = z;
+
         // Call insertFixup(z)
         insertFixup(z);
         return z;
@@ -359,14 +392,22 @@ public class RedBlackTree<T> {
     }// end treeMinimum(RedBlackNode node)
 
 
+    // @return: the smallest value of the tree, or null if the tree is empty
+    public T first() {
+
+        if (isNil(root))
+            return null;
+        return treeMinimum(root).value;
+    }// end first()
+
     // @param: x, a RedBlackNode whose successor we must find
     // @return: return's the node the with the next largest value
     // from x.value
     public RedBlackNode<T> treeSuccessor(RedBlackNode<T> x) {
 
-        // if x.left is not nil, call treeMinimum(x.right) and
+        // if x.right is not nil, call treeMinimum(x.right) and
         // return it's value
-        if (!isNil(x.left))
+        if (!isNil(x.right))
             return treeMinimum(x.right);
 
         RedBlackNode<T> y = x.parent;
@@ -385,122 +426,96 @@ public class RedBlackTree<T> {
     // Remove's z from the RedBlackTree rooted at root
     public void remove(T v) {
 
-        RedBlackNode<T> z = search(v);
-
-        // Declare variables
-        RedBlackNode<T> x = nil;
-        RedBlackNode<T> y = nil;
-
-        // if either one of z's children is nil, then we must remove z
-        if (isNil(z.left) || isNil(z.right))
-            y = z;
-
-            // else we must remove the successor of z
-        else y = treeSuccessor(z);
-
-        // Let x be the left or right child of y (y can only have one child)
-        if (!isNil(y.left))
-            x = y.left;
-        else
+        removeNode(search(v));
+    }// end remove(T v)
+
+    // @param: z, a node of this tree, as returned by insert(T)
+    // Removes z from the tree without searching for it. If z has two
+    // children, its successor y is moved into z's position, so every
+    // other node keeps holding the same value.
+    public void removeNode(RedBlackNode<T> z) {
+
+        RedBlackNode<T> x;
+        RedBlackNode<T> y = z;
+        int yOriginalColor = y.color;
+
+        // Unthread z
+        if (z.previous != null)
+            z.previous.next = z.next;
+        if (z.next != null)
+            z.next.previous = z.previous;
+
+        if (isNil(z.left)) {
+            decrementAncestors(z);
+            x = z.right;
+            transplant(z, z.right);
+        } else if (isNil(z.right)) {
+            decrementAncestors(z);
+            x = z.left;
+            transplant(z, z.left);
+        } else {
+            // y is the successor of z, which has no left child
+            y = treeMinimum(z.right);
+            yOriginalColor = y.color;
+            // the subtrees losing an element are the ones between y's
+            // position and the root, z included.
+            decrementAncestors(y);
             x = y.right;
-
-        // link x's parent to y's parent
-        x.parent = y.parent;
-
-        // If y's parent is nil, then x is the root
-        if (isNil(y.parent))
-            root = x;
-
-            // else if y is a left child, set x to be y's left sibling
-        else if (!isNil(y.parent.left) && y.parent.left == y)
-            y.parent.left = x;
-
-            // else if y is a right child, set x to be y's right sibling
-        else if (!isNil(y.parent.right) && y.parent.right == y)
-            y.parent.right = x;
-
-        // if y != z, trasfer y's satellite data into z.
-        if (y != z) {
-            z.value = y.value;
+            if (y.parent == z) {
+                x.parent = y;
+            } else {
+                transplant(y, y.right);
+                y.right = z.right;
+                y.right.parent = y;
+            }
+            transplant(z, y);
+            y.left = z.left;
+            y.left.parent = y;
+            y.color = z.color;
+            y.numLeft = z.numLeft;
+            y.numRight = z.numRight;
         }
 
-        // Update the numLeft and numRight numbers which might need
-        // updating due to the deletion of z.value.
-        fixNodeData(x, y);
-
-        // If y's color is black, it is a violation of the
+        // If the removed color is black, it is a violation of the
         // RedBlackTree properties so call removeFixup()
-        if (y.color == RedBlackNode.BLACK)
+        if (yOriginalColor == RedBlackNode.BLACK)
             removeFixup(x);
-    }// end remove(RedBlackNode z)
 
+        // z is not part of the tree anymore, release it to the pool.
+        z.value = null;
+        z.previous = null;
+        z.next = null;
+        nodePool.release(z);
+    }// end removeNode(RedBlackNode z)
+
+    // @param: u, the node to be replaced, v its replacement (possibly nil)
+    // Puts v in the place of u on u's parent.
+    private void transplant(RedBlackNode<T> u, RedBlackNode<T> v) {
+
+        if (isNil(u.parent))
+            root = v;
+        else if (u == u.parent.left)
+            u.parent.left = v;
+        else
+            u.parent.right = v;
+        v.parent = u.parent;
+    }// end transplant(RedBlackNode u, RedBlackNode v)
 
-    // @param: y, the RedBlackNode which was actually deleted from the tree
-    // @param: value, the value of the value that used to be in y
-    private void fixNodeData(RedBlackNode<T> x, RedBlackNode<T> y) {
-
-        // Initialize two variables which will help us traverse the tree
-        RedBlackNode<T> current = nil;
-        RedBlackNode<T> track = nil;
-
-
-        // if x is nil, then we will start updating at y.parent
-        // Set track to y, y.parent's child
-        if (isNil(x)) {
-            current = y.parent;
-            track = y;
-        }
-
-        // if x is not nil, then we start updating at x.parent
-        // Set track to x, x.parent's child
-        else {
-            current = x.parent;
-            track = x;
-        }
+    // @param: node, the node whose position is about to lose an element
+    // Decrements numLeft/numRight on every ancestor of node.
+    private void decrementAncestors(RedBlackNode<T> node) {
 
-        // while we haven't reached the root
+        RedBlackNode<T> child = node;
+        RedBlackNode<T> current = node.parent;
         while (!isNil(current)) {
-            // if the node we deleted has a different value than
-            // the current node
-            if (y.value != current.value) {
-
-                // if the node we deleted is greater than
-                // current.value then decrement current.numRight
-                if (comparator.compare(y.value, current.value) > 0)
-                    current.numRight--;
-
-                // if the node we deleted is less than
-                // current.value thendecrement current.numLeft
-                if (comparator.compare(y.value, current.value) < 0)
-                    current.numLeft--;
-            }
-
-            // if the node we deleted has the same value as the
-            // current node we are checking
-            else {
-                // the cases where the current node has any nil
-                // children and update appropriately
-                if (isNil(current.left))
-                    current.numLeft--;
-                else if (isNil(current.right))
-                    current.numRight--;
-
-                    // the cases where current has two children and
-                    // we must determine whether track is it's left
-                    // or right child and update appropriately
-                else if (track == current.right)
-                    current.numRight--;
-                else if (track == current.left)
-                    current.numLeft--;
-            }
-
-            // update track and current
-            track = current;
+            if (current.left == child)
+                current.numLeft--;
+            else
+                current.numRight--;
+            child = current;
             current = current.parent;
-
         }
-
-    }//end fixNodeData()
+    }// end decrementAncestors(RedBlackNode node)
 
 
     // @param: x, the child of the deleted node from remove(RedBlackNode v)
@@ -0,0 +1,122 @@
+package com.marcolotz.orderbook.port;
+
+/***
+ * Block of Level2 events stored column by column (one primitive array per field), e.g. all the events of a feed packet.
+ *
+ * A batch is allocated once with a fixed capacity and reused: fill it, hand it to Level2EventListener.onEvents(), clear it. Prices are in
+ * ticks of the instrument.
+ */
+public class EventBatch {
+
+    public static final byte NEW_ORDER = 1;
+    public static final byte CANCEL_ORDER = 2;
+    public static final byte REPLACE_ORDER = 3;
+    public static final byte TRADE = 4;
+
+    private final byte[] types;
+    private final Side[] sides;
+    private final long[] prices;
+    private final long[] quantities;
+    private final long[] orderIds;
+    private int size;
+
+    public EventBatch(final int capacity) {
+        types = new byte[capacity];
+        sides = new Side[capacity];
+        prices = new long[capacity];
+        quantities = new long[capacity];
+        orderIds = new long[capacity];
+    }
+
+    public void addNewOrder(final Side side, final long price, final long quantity, final long orderId) {
+        final int index = append(NEW_ORDER, orderId);
+        sides[index] = side;
+        prices[index] = price;
+        quantities[index] = quantity;
+    }
+
+    public void addCancelOrder(final long orderId) {
+        append(CANCEL_ORDER, orderId);
+    }
+
+    public void addReplaceOrder(final long price, final long quantity, final long orderId) {
+        final int index = append(REPLACE_ORDER, orderId);
+        prices[index] = price;
+        quantities[index] = quantity;
+    }
+
+    public void addTrade(final long quantity, final long restingOrderId) {
+        final int index = append(TRADE, restingOrderId);
+        quantities[index] = quantity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return types.length;
+    }
+
+    public boolean isFull() {
+        return size == types.length;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public byte getType(final int index) {
+        return types[index];
+    }
+
+    public Side getSide(final int index) {
+        return sides[index];
+    }
+
+    public long getPrice(final int index) {
+        return prices[index];
+    }
+
+    public long getQuantity(final int index) {
+        return quantities[index];
+    }
+
+    public long getOrderId(final int index) {
+        return orderIds[index];
+    }
+
+    /***
+     * Applies the events from "from" (inclusive) to "to" (exclusive) one by one on the listener.
+     */
+    public void dispatch(final Level2EventListener listener, final int from, final int to) {
+        for (int index = from; index < to; index++) {
+            switch (types[index]) {
+                case NEW_ORDER:
+                    listener.onNewOrder(sides[index], prices[index], quantities[index], orderIds[index]);
+                    break;
+                case CANCEL_ORDER:
+                    listener.onCancelOrder(orderIds[index]);
+                    break;
+                case REPLACE_ORDER:
+                    listener.onReplaceOrder(prices[index], quantities[index], orderIds[index]);
+                    break;
+                case TRADE:
+                    listener.onTrade(quantities[index], orderIds[index]);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown event type: " + types[index]);
+            }
+        }
+    }
+
+    private int append(final byte type, final long orderId) {
+        if (size == types.length) {
+            throw new IllegalStateException("Event batch is full: " + size);
+        }
+        final int index = size++;
+        types[index] = type;
+        orderIds[index] = orderId;
+        return index;
+    }
+}
@@ -0,0 +1,16 @@
+package com.marcolotz.orderbook.port;
+
+/***
+ * Outcome of an event applied to a view: accepted, or the reason it was rejected.
+ */
+public enum EventStatus {
+    ACCEPTED,
+    // cancel or replace of an order that is not resting (e.g. a late cancel)
+    UNKNOWN_ORDER,
+    // new order with the id of a resting order
+    DUPLICATE_ORDER,
+    // trade on an order that is not resting (e.g. a duplicate fill after a reconnect)
+    UNKNOWN_RESTING_ORDER,
+    // trade larger than the quantity of the resting order
+    OVERFILL
+}
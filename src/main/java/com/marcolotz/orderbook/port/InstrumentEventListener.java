@@ -0,0 +1,14 @@
+package com.marcolotz.orderbook.port;
+
+// Level2 events of many instruments, prices in ticks of each instrument.
+// Order ids only have to be unique within their instrument.
+public interface InstrumentEventListener {
+
+    void onNewOrder(final long instrumentId, final Side side, final long price, final long quantity, final long orderId);
+
+    void onCancelOrder(final long instrumentId, final long orderId);
+
+    void onReplaceOrder(final long instrumentId, final long price, final long quantity, final long orderId);
+
+    void onTrade(final long instrumentId, final long quantity, final long restingOrderId);
+}
@@ -6,11 +6,23 @@ public interface Level2EventListener {
 
     void onNewOrder(final Side side, BigDecimal price, final long quantity, final long orderId);
 
+    // Fixed-point variant: price is expressed in ticks of the instrument.
+    void onNewOrder(final Side side, final long price, final long quantity, final long orderId);
+
     void onCancelOrder(final long orderId);
 
     void onReplaceOrder(final BigDecimal price, final long quantity, final long orderId);
 
+    // Fixed-point variant: price is expressed in ticks of the instrument.
+    void onReplaceOrder(final long price, final long quantity, final long orderId);
+
     // When an aggressor order crosses the spread, it will be matched with an existing resting order, causing a trade.
     // The aggressor order will NOT cause an invocation of onNewOrder.
     void onTrade(final long quantity, final long restingOrderId);
+
+    // Applies a block of events, in order. Implementations may apply the batch more efficiently than event by event: metrics are only
+    // guaranteed to be consistent once the whole batch is applied.
+    default void onEvents(final EventBatch batch) {
+        batch.dispatch(this, 0, batch.size());
+    }
 }
@@ -6,8 +6,35 @@ public interface Level2Metrics {
 
     long getSizeForPriceLevel(final Side side, final BigDecimal price); // total quantity of existing orders on this price level
 
+    long getSizeForPriceLevel(final Side side, final long price); // same as above, with price in ticks of the instrument
+
     long getBookDepth(final Side side); // get the number of price levels on the specified side
 
     BigDecimal getTopOfBook(final Side side); // get highest bid or lowest ask, resp.
 
+    long getTopOfBookTicks(final Side side); // same as above, in ticks of the instrument
+
+    // fills price and size of the best "levels" levels of the side into the buffers, best first - returns the number of levels filled
+    int getDepth(final Side side, final int levels, final BigDecimal[] prices, final long[] sizes);
+
+    int getDepth(final Side side, final int levels, final long[] prices, final long[] sizes); // same as above, in ticks - allocation free
+
+    // total quantity of the levels priced between the two prices, both included
+    long getSizeBetween(final Side side, final BigDecimal fromPrice, final BigDecimal toPrice);
+
+    long getSizeBetween(final Side side, final long fromPrice, final long toPrice); // same as above, in ticks
+
+    // total quantity of the levels from the top of book down to the price, included
+    long getCumulativeSize(final Side side, final BigDecimal price);
+
+    long getCumulativeSize(final Side side, final long price); // same as above, in ticks
+
+    // worst price reached by an order taking "quantity" from the side, e.g. buying sweeps the ASK side
+    BigDecimal getFillPrice(final Side side, final long quantity);
+
+    long getFillPriceTicks(final Side side, final long quantity); // same as above, in ticks
+
+    // average price paid by an order taking "quantity" from the side
+    BigDecimal getSweepVwap(final Side side, final long quantity);
+
 }
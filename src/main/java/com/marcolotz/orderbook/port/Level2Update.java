@@ -0,0 +1,95 @@
+package com.marcolotz.orderbook.port;
+
+import java.util.Arrays;
+
+/***
+ * Levels changed by a single event, each with its new aggregated quantity and number of orders. A level with no orders left has been
+ * deleted. Applying the updates in sequence order to a copy of the book keeps it identical to the original - a gap in the sequence means
+ * updates were missed.
+ *
+ * Stored column by column, like EventBatch, and reused by the publisher for every event. Prices are in ticks of the instrument.
+ */
+public class Level2Update {
+
+    private long sequence;
+    private Side[] sides;
+    private long[] prices;
+    private long[] quantities;
+    private int[] orderCounts;
+    private int size;
+
+    public Level2Update(final int capacity) {
+        sides = new Side[capacity];
+        prices = new long[capacity];
+        quantities = new long[capacity];
+        orderCounts = new int[capacity];
+    }
+
+    /***
+     * Records the new state of a level. A level that was already recorded is overwritten, so it's only listed once with its final state.
+     */
+    public void putLevel(final Side side, final long price, final long quantity, final int orderCount) {
+        int index = 0;
+        while (index < size && (prices[index] != price || sides[index] != side)) {
+            index++;
+        }
+        if (index == size) {
+            if (size == sides.length) {
+                grow();
+            }
+            sides[index] = side;
+            prices[index] = price;
+            size++;
+        }
+        quantities[index] = quantity;
+        orderCounts[index] = orderCount;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(final long sequence) {
+        this.sequence = sequence;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public Side getSide(final int index) {
+        return sides[index];
+    }
+
+    public long getPrice(final int index) {
+        return prices[index];
+    }
+
+    public long getQuantity(final int index) {
+        return quantities[index];
+    }
+
+    public int getOrderCount(final int index) {
+        return orderCounts[index];
+    }
+
+    public boolean isDeleted(final int index) {
+        return orderCounts[index] == 0;
+    }
+
+    private void grow() {
+        final int capacity = Math.max(1, sides.length << 1);
+        sides = Arrays.copyOf(sides, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        orderCounts = Arrays.copyOf(orderCounts, capacity);
+    }
+}
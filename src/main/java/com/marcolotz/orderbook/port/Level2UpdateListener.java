@@ -0,0 +1,11 @@
+package com.marcolotz.orderbook.port;
+
+/***
+ * Subscriber of the incremental Level2 updates of a view.
+ */
+@FunctionalInterface
+public interface Level2UpdateListener {
+
+    // The update is reused once the call returns - copy whatever needs to be kept.
+    void onLevel2Update(final Level2Update update);
+}
@@ -0,0 +1,11 @@
+package com.marcolotz.orderbook.port;
+
+public interface Level3Metrics {
+
+    long getQuantityAhead(final long orderId); // total quantity of the orders ahead of the resting order, on its price level
+
+    int getQueuePosition(final long orderId); // number of orders ahead of the resting order - 0 when it's the next to be matched
+
+    int getOrdersBehind(final long orderId); // number of orders after the resting order, on its price level
+
+}
@@ -0,0 +1,15 @@
+package com.marcolotz.orderbook.port;
+
+/***
+ * Receives the new state of a price level every time an order book changes it. Called on the thread mutating the book, while it's being
+ * mutated: implementations must be quick and must not call the book back.
+ */
+@FunctionalInterface
+public interface LevelChangeListener {
+
+    LevelChangeListener NO_OP = (side, price, quantity, orderCount) -> {
+    };
+
+    // price in ticks. An empty level (orderCount of 0) has been deleted from the book.
+    void onLevelChange(final Side side, final long price, final long quantity, final int orderCount);
+}
@@ -1,24 +1,81 @@
 package com.marcolotz.orderbook.port;
 
 import com.marcolotz.orderbook.core.model.Order;
+import com.marcolotz.orderbook.core.model.PriceLevel;
 
-import java.math.BigDecimal;
+import java.util.function.Consumer;
 
+/***
+ * A single side of the book.
+ *
+ * Orders are looked up by id on the order directory of the view, the book only receives the resting order handles. Orders are owned by the
+ * caller: the book links them into its price levels but never creates nor releases them.
+ */
 public interface OrderBook {
 
     void addOrder(Order order);
 
-    void removeOrder(final long orderId);
+    void removeOrder(Order order);
 
-    void replaceOrder(Order order);
+    // Changes price and/or quantity of the resting order in place
+    void replaceOrder(Order order, final long price, final long quantity);
 
     Order getTopOrder();
 
-    long getSizeForPriceLevel(final BigDecimal price);
+    long getSizeForPriceLevel(final long price);
 
     long getBookDepth();
 
-    boolean containsOrder(final long orderId);
+    // Fills the buffers with price (ticks) and total quantity of the best levels, best first. Returns the number of levels filled,
+    // at most "levels" - fewer if the book is shallower.
+    int getDepth(final int levels, final long[] prices, final long[] sizes);
 
-    Order getOrderById(long restingOrderId);
+    // Total quantity of the levels priced between the two prices (ticks), both included, whatever their order
+    long getSizeBetween(final long fromPrice, final long toPrice);
+
+    // Total quantity of the levels from the top of the book down to the price (ticks), included
+    long getCumulativeSize(final long price);
+
+    // Takes "quantity" from the top of the book, as an order sweeping the side would: stores the worst price reached (ticks) in result[0]
+    // and the notional (sum of price in ticks x quantity taken) in result[1]. Returns false, leaving result untouched, if the side holds
+    // less than the quantity.
+    boolean sweep(final long quantity, final long[] result);
+
+    // Level 3 queries on a resting order, answered by its price level in O(log n) of the orders of the level:
+    // total quantity of the orders ahead of it in the queue
+    default long getQuantityAhead(final Order order) {
+        return levelOf(order).getQuantityAhead(order);
+    }
+
+    // number of orders ahead of it in the queue, 0 when it's the next to be matched
+    default int getQueuePosition(final Order order) {
+        return levelOf(order).getQueuePosition(order);
+    }
+
+    // number of orders after it in the queue
+    default int getOrdersBehind(final Order order) {
+        final PriceLevel level = levelOf(order);
+        return level.getOrderCount() - level.getQueuePosition(order) - 1;
+    }
+
+    private static PriceLevel levelOf(final Order order) {
+        if (order.getLevel() == null) {
+            throw new IllegalArgumentException("Order is not resting: " + order.getId());
+        }
+        return order.getLevel();
+    }
+
+    // Visits the non-empty levels from the best price to the worst, e.g. to take a snapshot. The book must not be mutated meanwhile.
+    void forEachLevel(final Consumer<PriceLevel> visitor);
+
+    // Every change to a price level (order added, removed or resized) is reported to the listener, after the change
+    void setLevelChangeListener(final LevelChangeListener listener);
+
+    // Start of a batch of mutations: the book may defer its bookkeeping (e.g. removing empty price levels) until endBatch().
+    // Queries must stay consistent within a batch: they are called by the subscribers of the view after each event.
+    default void beginBatch() {
+    }
+
+    default void endBatch() {
+    }
 }
@@ -0,0 +1,14 @@
+package com.marcolotz.orderbook.port;
+
+/***
+ * Receives the events rejected by a view, on the thread applying them. Implementations must be quick, as they run on the event path.
+ */
+@FunctionalInterface
+public interface RejectionListener {
+
+    RejectionListener NO_OP = (status, orderId) -> {
+    };
+
+    // status is never ACCEPTED. orderId is the resting order id for trades.
+    void onRejected(final EventStatus status, final long orderId);
+}
@@ -0,0 +1,172 @@
+package com.marcolotz.orderbook.adapter.http;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marcolotz.orderbook.core.SimpleLevel2View;
+import com.marcolotz.orderbook.core.orderbook.TreeOrderBook;
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import com.marcolotz.orderbook.port.Side;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("When serving books over the network")
+class BookControllerTest {
+
+    private static final long INSTRUMENT_ID = 7;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SimpleLevel2View level2View;
+    private InstrumentBooks instrumentBooks;
+    private BookController controller;
+
+    @BeforeEach
+    void setUp() {
+        level2View = new SimpleLevel2View(PriceCodec.ofScale(2), new TreeOrderBook(Side.ASK), new TreeOrderBook(Side.BID));
+        instrumentBooks = new InstrumentBooks(objectMapper, 3);
+        instrumentBooks.register(INSTRUMENT_ID, level2View, PriceCodec.ofScale(2));
+        controller = new BookController(instrumentBooks);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        instrumentBooks.close();
+    }
+
+    @Test
+    @DisplayName("Then the depth is serialized once per change and revalidated with its ETag")
+    void depthIsCached() throws Exception {
+        // Given
+        level2View.onNewOrder(Side.BID, 100L, 10, 1);
+        level2View.onNewOrder(Side.BID, 99L, 5, 2);
+        level2View.onNewOrder(Side.ASK, 101L, 7, 3);
+
+        // When
+        final ResponseEntity<byte[]> first = controller.depth(INSTRUMENT_ID, null);
+        final ResponseEntity<byte[]> second = controller.depth(INSTRUMENT_ID, null);
+        final ResponseEntity<byte[]> revalidated = controller.depth(INSTRUMENT_ID, first.getHeaders().getETag());
+        level2View.onCancelOrder(2);
+        final ResponseEntity<byte[]> changed = controller.depth(INSTRUMENT_ID, first.getHeaders().getETag());
+
+        // Then
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertSame(first.getBody(), second.getBody());
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidated.getStatusCode());
+        assertNull(revalidated.getBody());
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertNotEquals(first.getHeaders().getETag(), changed.getHeaders().getETag());
+        final JsonNode depth = objectMapper.readTree(first.getBody());
+        assertEquals(INSTRUMENT_ID, depth.get("instrumentId").asLong());
+        assertEquals(3, depth.get("version").asLong());
+        assertEquals(2, depth.get("bids").size());
+        assertEquals(0.99, depth.get("bids").get(1).get("price").asDouble());
+        assertEquals(7, depth.get("asks").get(0).get("size").asLong());
+        assertEquals(1, objectMapper.readTree(changed.getBody()).get("bids").size());
+    }
+
+    @Test
+    @DisplayName("Then the top of book only holds the best level of each side, and unknown instruments are not found")
+    void topOfBook() throws Exception {
+        // Given
+        level2View.onNewOrder(Side.BID, 100L, 10, 1);
+        level2View.onNewOrder(Side.BID, 99L, 5, 2);
+
+        // When
+        final ResponseEntity<byte[]> topOfBook = controller.topOfBook(INSTRUMENT_ID, null);
+        final ResponseEntity<byte[]> unknown = controller.topOfBook(INSTRUMENT_ID + 1, null);
+
+        // Then
+        final JsonNode book = objectMapper.readTree(topOfBook.getBody());
+        assertEquals(1, book.get("bids").size());
+        assertEquals(1.0, book.get("bids").get(0).get("price").asDouble());
+        assertEquals(0, book.get("asks").size());
+        assertEquals(HttpStatus.NOT_FOUND, unknown.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Then a WebSocket session receives the window, then deltas chained by version, including levels moving into it")
+    void sessionsReceiveDeltas() throws Exception {
+        // Given
+        final List<JsonNode> messages = new ArrayList<>();
+        final WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session");
+        doAnswer(invocation -> {
+            synchronized (messages) {
+                messages.add(objectMapper.readTree(((TextMessage) invocation.getArgument(0)).getPayload()));
+                messages.notifyAll();
+            }
+            return null;
+        }).when(session).sendMessage(any());
+        for (long orderId = 1; orderId <= 5; orderId++) {
+            level2View.onNewOrder(Side.BID, 101L - orderId, 10, orderId); // two levels more than the window
+        }
+        final BookUpdateStream updateStream = instrumentBooks.getUpdateStream(INSTRUMENT_ID);
+
+        // When
+        updateStream.addSession(session);
+        level2View.onNewOrder(Side.BID, 90L, 10, 6); // outside of the window
+        level2View.onCancelOrder(1); // top of the book: 97 moves into the window
+        level2View.onNewOrder(Side.BID, 99L, 5, 7);
+
+        // Then
+        synchronized (messages) {
+            final long deadline = System.currentTimeMillis() + 5_000;
+            while (messages.get(messages.size() - 1).get("version").asLong() != 8 && System.currentTimeMillis() < deadline) {
+                messages.wait(100);
+            }
+            final JsonNode window = messages.get(0);
+            assertEquals(3, window.get("version").asLong());
+            assertEquals(List.of(1.0, 0.99, 0.98), prices(window.get("bids")));
+            final TreeMap<Double, Long> bids = new TreeMap<>();
+            window.get("bids").forEach(level -> bids.put(level.get("price").asDouble(), level.get("size").asLong()));
+            final TreeMap<Double, Long> changed = new TreeMap<>();
+            long version = window.get("version").asLong();
+            for (final JsonNode delta : messages.subList(1, messages.size())) {
+                assertEquals(version, delta.get("previousVersion").asLong());
+                assertEquals(0, delta.get("asks").size());
+                delta.get("bids").forEach(level -> {
+                    final double price = level.get("price").asDouble();
+                    final long size = level.get("size").asLong();
+                    changed.put(price, size);
+                    if (size == 0) {
+                        bids.remove(price);
+                    } else {
+                        bids.put(price, size);
+                    }
+                });
+                version = delta.get("version").asLong();
+            }
+            assertEquals(8, version);
+            assertEquals(Map.of(0.99, 15L, 0.98, 10L, 0.97, 10L), bids);
+            // only the levels that changed are sent, and never the ones outside of the window
+            assertEquals(Map.of(1.0, 0L, 0.99, 15L, 0.97, 10L), changed);
+        }
+        updateStream.removeSession(session);
+        assertEquals(0, updateStream.getSessionCount());
+    }
+
+    private static List<Double> prices(final JsonNode levels) {
+        final List<Double> prices = new ArrayList<>();
+        levels.forEach(level -> prices.add(level.get("price").asDouble()));
+        return prices;
+    }
+}
@@ -0,0 +1,167 @@
+package com.marcolotz.orderbook.adapter.journal;
+
+import com.marcolotz.orderbook.core.SimpleLevel2View;
+import com.marcolotz.orderbook.core.exceptions.InvalidOrderException;
+import com.marcolotz.orderbook.core.orderbook.TreeOrderBook;
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import com.marcolotz.orderbook.port.Side;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("When journaling a Level2View for recovery")
+class DurableLevel2ViewTest {
+
+    private static final int DEPTH = 100;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Then a restart recovers the book from the journal")
+    void recoverFromJournal() throws Exception {
+        // Given
+        final DurableLevel2View durableView = DurableLevel2View.recover(directory, newView(), GroupCommitPolicy.everyRecord());
+        applyEvents(durableView, 0, 1_000);
+        durableView.close();
+
+        // When
+        final DurableLevel2View recovered = DurableLevel2View.recover(directory, newView(), GroupCommitPolicy.everyRecord());
+
+        // Then
+        assertEquals(durableView.getSequence(), recovered.getSequence());
+        assertSameBook(durableView.getView(), recovered.getView());
+        recovered.close();
+    }
+
+    @Test
+    @DisplayName("Then a restart recovers the book from the checkpoint and the journal tail")
+    void recoverFromCheckpointAndTail() throws Exception {
+        // Given
+        final DurableLevel2View durableView = DurableLevel2View.recover(directory, newView(), GroupCommitPolicy.everyRecord());
+        applyEvents(durableView, 0, 1_000);
+        durableView.checkpoint();
+        applyEvents(durableView, 1_000, 1_500);
+        durableView.close();
+
+        // When
+        final DurableLevel2View recovered = DurableLevel2View.recover(directory, newView(), GroupCommitPolicy.everyRecord());
+
+        // Then
+        assertEquals(durableView.getSequence(), recovered.getSequence());
+        assertSameBook(durableView.getView(), recovered.getView());
+        assertEquals(1, DurableLevel2View.listSegments(directory).size());
+        recovered.close();
+    }
+
+    @Test
+    @DisplayName("Then rejected events are not journaled")
+    void rejectedEventsAreNotJournaled() throws Exception {
+        // Given
+        final DurableLevel2View durableView = DurableLevel2View.recover(directory, newView(), GroupCommitPolicy.everyRecord());
+        durableView.onNewOrder(Side.BID, 100L, 10, 1);
+
+        // When
+        durableView.onCancelOrder(2);
+        durableView.onTrade(5, 3);
+        durableView.getView().setStrict(true);
+        assertThrows(InvalidOrderException.class, () -> durableView.onCancelOrder(2));
+        durableView.close();
+
+        // Then
+        assertEquals(1, durableView.getSequence());
+        final DurableLevel2View recovered = DurableLevel2View.recover(directory, newView(), GroupCommitPolicy.everyRecord());
+        assertEquals(1, recovered.getSequence());
+        assertEquals(10, recovered.getSizeForPriceLevel(Side.BID, 100L));
+        recovered.close();
+    }
+
+    @Test
+    @DisplayName("Then group commits make every accepted event durable within the delay")
+    void groupCommit() throws Exception {
+        // Given
+        final DurableLevel2View durableView = DurableLevel2View.recover(directory, newView(),
+            new GroupCommitPolicy(1_000, Duration.ofMillis(1)));
+
+        // When
+        applyEvents(durableView, 0, 100);
+
+        // Then
+        final long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (durableView.getDurableSequence() < durableView.getSequence() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(durableView.getSequence(), durableView.getDurableSequence());
+        durableView.close();
+        assertTrue(Files.exists(directory.resolve(DurableLevel2View.CHECKPOINT_FILE)));
+    }
+
+    @Test
+    @DisplayName("Then a journal failure stops the view until it's recovered")
+    void journalFailureIsFailStop() throws Exception {
+        // Given
+        final DurableLevel2View durableView = DurableLevel2View.recover(directory, newView(), GroupCommitPolicy.everyRecord());
+        applyEvents(durableView, 0, 100);
+        // the segment of the rotation can't be created
+        Files.createFile(DurableLevel2View.segmentPath(directory, durableView.getSequence()));
+
+        final int orderCount = durableView.getView().getOrderCount();
+
+        // When
+        durableView.checkpoint();
+        assertThrows(IOException.class, durableView::close); // waits for the journal thread
+
+        // Then
+        final long sequence = durableView.getSequence();
+        assertEquals(sequence, durableView.getDurableSequence());
+        assertThrows(IllegalStateException.class, () -> durableView.onNewOrder(Side.BID, 100L, 10, 1_000));
+        assertThrows(IllegalStateException.class, () -> durableView.onCancelOrder(1));
+        assertThrows(IllegalStateException.class, durableView::checkpoint);
+        assertEquals(sequence, durableView.getSequence());
+        assertEquals(orderCount, durableView.getView().getOrderCount());
+    }
+
+    private static void applyEvents(final DurableLevel2View view, final long fromOrderId, final long toOrderId) {
+        for (long orderId = fromOrderId; orderId < toOrderId; orderId++) {
+            final Side side = orderId % 2 == 0 ? Side.BID : Side.ASK;
+            view.onNewOrder(side, side == Side.BID ? 100 - orderId % 10 : 101 + orderId % 10, 10, orderId);
+            if (orderId % 5 == 4) {
+                view.onCancelOrder(orderId - 2);
+            }
+            if (orderId % 7 == 6) {
+                view.onTrade(4, orderId);
+            }
+            if (orderId % 11 == 10) {
+                view.onReplaceOrder(side == Side.BID ? 95 : 106, 20, orderId);
+            }
+        }
+    }
+
+    private static void assertSameBook(final SimpleLevel2View expected, final SimpleLevel2View actual) {
+        assertEquals(expected.getOrderCount(), actual.getOrderCount());
+        for (final Side side : Side.values()) {
+            final long[] expectedPrices = new long[DEPTH];
+            final long[] expectedSizes = new long[DEPTH];
+            final long[] actualPrices = new long[DEPTH];
+            final long[] actualSizes = new long[DEPTH];
+            final int levels = expected.getDepth(side, DEPTH, expectedPrices, expectedSizes);
+            assertEquals(levels, actual.getDepth(side, DEPTH, actualPrices, actualSizes));
+            assertEquals(Arrays.toString(expectedPrices), Arrays.toString(actualPrices));
+            assertEquals(Arrays.toString(expectedSizes), Arrays.toString(actualSizes));
+        }
+    }
+
+    private static SimpleLevel2View newView() {
+        return new SimpleLevel2View(PriceCodec.ofScale(2), new TreeOrderBook(Side.ASK), new TreeOrderBook(Side.BID));
+    }
+}
@@ -0,0 +1,136 @@
+package com.marcolotz.orderbook.adapter.journal;
+
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import com.marcolotz.orderbook.port.Level2EventListener;
+import com.marcolotz.orderbook.port.Side;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+@DisplayName("When journaling Level2 events")
+class JournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Then events are replayed in order with prices in ticks")
+    void writeAndReplay() throws IOException {
+        // Given
+        final Path path = directory.resolve("events.journal");
+        try (JournalWriter writer = new JournalWriter(path, PriceCodec.ofScale(2))) {
+            writer.onNewOrder(Side.BID, BigDecimal.valueOf(10.25), 100, 1);
+            writer.onNewOrder(Side.ASK, 1030L, 50, 2);
+            writer.onReplaceOrder(1024L, 80, 1);
+            writer.onTrade(20, 2);
+            writer.onCancelOrder(1);
+            assertEquals(5, writer.getRecordCount());
+        }
+        final Level2EventListener listener = mock(Level2EventListener.class);
+
+        // When
+        final long records = new JournalReplayer(path).replay(listener);
+
+        // Then
+        assertEquals(5, records);
+        assertEquals(JournalFormat.HEADER_SIZE + 5 * JournalFormat.RECORD_SIZE, Files.size(path));
+        final InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).onNewOrder(Side.BID, 1025L, 100, 1);
+        inOrder.verify(listener).onNewOrder(Side.ASK, 1030L, 50, 2);
+        inOrder.verify(listener).onReplaceOrder(1024L, 80, 1);
+        inOrder.verify(listener).onTrade(20, 2);
+        inOrder.verify(listener).onCancelOrder(1);
+        verifyNoMoreInteractions(listener);
+    }
+
+    @Test
+    @DisplayName("Then journals spanning multiple regions are replayed entirely")
+    void multipleRegions() throws IOException {
+        // Given
+        final Path path = directory.resolve("events.journal");
+        final long regionSize = 4 * JournalFormat.RECORD_SIZE;
+        try (JournalWriter writer = new JournalWriter(path, PriceCodec.ofScale(2), regionSize)) {
+            for (long orderId = 0; orderId < 10; orderId++) {
+                writer.onNewOrder(Side.ASK, 1000 + orderId, 10, orderId);
+            }
+        }
+        final Level2EventListener listener = mock(Level2EventListener.class);
+
+        // When
+        final long records = new JournalReplayer(path, regionSize).replay(listener);
+
+        // Then
+        assertEquals(10, records);
+        final InOrder inOrder = inOrder(listener);
+        for (long orderId = 0; orderId < 10; orderId++) {
+            inOrder.verify(listener).onNewOrder(Side.ASK, 1000 + orderId, 10, orderId);
+        }
+    }
+
+    @Test
+    @DisplayName("Then skipped records are not dispatched but still counted")
+    void skipRecords() throws IOException {
+        // Given
+        final Path path = directory.resolve("events.journal");
+        try (JournalWriter writer = new JournalWriter(path, PriceCodec.ofScale(2))) {
+            for (long orderId = 0; orderId < 5; orderId++) {
+                writer.onNewOrder(Side.BID, 1000 + orderId, 10, orderId);
+            }
+        }
+        final Level2EventListener listener = mock(Level2EventListener.class);
+
+        // When
+        final long records = new JournalReplayer(path).replay(listener, 3);
+
+        // Then
+        assertEquals(5, records);
+        final InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).onNewOrder(Side.BID, 1003L, 10, 3);
+        inOrder.verify(listener).onNewOrder(Side.BID, 1004L, 10, 4);
+        verifyNoMoreInteractions(listener);
+        assertEquals(5, new JournalReplayer(path).replay(listener, 10));
+        verifyNoMoreInteractions(listener);
+    }
+
+    @Test
+    @DisplayName("Then a journal that was not closed is replayed up to its last record")
+    void unclosedJournal() throws IOException {
+        // Given
+        final Path path = directory.resolve("events.journal");
+        final JournalWriter writer = new JournalWriter(path, PriceCodec.ofScale(2), 64 * JournalFormat.RECORD_SIZE);
+        writer.onNewOrder(Side.ASK, 1000L, 10, 1);
+        writer.onCancelOrder(1);
+        writer.flush();
+        final Level2EventListener listener = mock(Level2EventListener.class);
+
+        // When
+        final long records = new JournalReplayer(path).replay(listener);
+
+        // Then
+        assertEquals(2, records);
+        writer.close();
+    }
+
+    @Test
+    @DisplayName("Then files that are not journals are rejected")
+    void notAJournal() throws IOException {
+        // Given
+        final Path path = directory.resolve("other.file");
+        Files.write(path, new byte[JournalFormat.HEADER_SIZE]);
+
+        // Then
+        assertThrows(IllegalArgumentException.class, () -> new JournalReplayer(path).replay(mock(Level2EventListener.class)));
+    }
+}
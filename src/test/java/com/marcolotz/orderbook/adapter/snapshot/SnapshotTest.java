@@ -0,0 +1,145 @@
+package com.marcolotz.orderbook.adapter.snapshot;
+
+import com.marcolotz.orderbook.core.SimpleLevel2View;
+import com.marcolotz.orderbook.core.model.Order;
+import com.marcolotz.orderbook.core.orderbook.ArrayOrderBook;
+import com.marcolotz.orderbook.core.orderbook.TreeOrderBook;
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import com.marcolotz.orderbook.port.Side;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("When taking a snapshot of a Level2View")
+class SnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    private Path path;
+    private SimpleLevel2View level2View;
+
+    @BeforeEach
+    void setUp() {
+        path = directory.resolve("book.snapshot");
+        level2View = new SimpleLevel2View(PriceCodec.ofScale(2), new TreeOrderBook(Side.ASK), new ArrayOrderBook(Side.BID, 16));
+        final Random random = new Random(5);
+        for (long orderId = 0; orderId < 1_000; orderId++) {
+            final Side side = random.nextBoolean() ? Side.ASK : Side.BID;
+            // far bids end up on the overflow of the array book
+            final long price = side == Side.ASK ? 1_000 + random.nextInt(50) : 999 - random.nextInt(100);
+            level2View.onNewOrder(side, price, 1 + random.nextInt(100), orderId);
+            if (orderId % 4 == 3) {
+                level2View.onCancelOrder(orderId - 2);
+            }
+        }
+        level2View.onTrade(1, 0); // partial fill, keeps the queue position
+    }
+
+    @Test
+    @DisplayName("Then the loaded view has the same levels, queues and sequence")
+    void writeAndLoad() throws IOException {
+        // Given
+        final long orders = new SnapshotWriter(path).write(level2View, 42);
+
+        // When
+        final SnapshotLoader loader = new SnapshotLoader(path);
+        final SimpleLevel2View restored = new SimpleLevel2View(loader.getPriceCodec(), new TreeOrderBook(Side.ASK),
+            new TreeOrderBook(Side.BID), (int) loader.getOrderCount());
+        final long sequence = loader.load(restored);
+
+        // Then
+        assertEquals(42, sequence);
+        assertEquals(750, orders);
+        assertEquals(new BigDecimal("0.01"), loader.getPriceCodec().getTickSize());
+        assertSameBook(level2View, restored);
+        // the restored view keeps processing events
+        restored.onCancelOrder(4);
+        level2View.onCancelOrder(4);
+        assertSameBook(level2View, restored);
+    }
+
+    @Test
+    @DisplayName("Then snapshots spanning multiple regions are loaded entirely")
+    void multipleRegions() throws IOException {
+        // Given
+        new SnapshotWriter(path, 48).write(level2View, 7);
+        final SimpleLevel2View restored = new SimpleLevel2View(PriceCodec.ofScale(2), new ArrayOrderBook(Side.ASK, 8),
+            new ArrayOrderBook(Side.BID, 8));
+
+        // When
+        final long sequence = new SnapshotLoader(path, 32).load(restored);
+
+        // Then
+        assertEquals(7, sequence);
+        assertSameBook(level2View, restored);
+    }
+
+    @Test
+    @DisplayName("Then an empty book can be saved and loaded")
+    void emptyBook() throws IOException {
+        // Given
+        final SimpleLevel2View empty = newTreeView(PriceCodec.ofScale(2));
+        new SnapshotWriter(path).write(empty, 0);
+        final SimpleLevel2View restored = newTreeView(PriceCodec.ofScale(2));
+
+        // When
+        new SnapshotLoader(path).load(restored);
+
+        // Then
+        assertEquals(0, restored.getOrderCount());
+    }
+
+    @Test
+    @DisplayName("Then incomplete snapshots, other tick sizes and non-empty views are rejected")
+    void invalidLoads() throws IOException {
+        // Given
+        new SnapshotWriter(path).write(level2View, 1);
+        final SimpleLevel2View otherTick = newTreeView(PriceCodec.ofScale(3));
+
+        // Then
+        assertThrows(IllegalStateException.class, () -> new SnapshotLoader(path).load(level2View));
+        assertThrows(IllegalArgumentException.class, () -> new SnapshotLoader(path).load(otherTick));
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(file.length() - SnapshotFormat.RECORD_SIZE);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new SnapshotLoader(path));
+    }
+
+    private static SimpleLevel2View newTreeView(final PriceCodec priceCodec) {
+        return new SimpleLevel2View(priceCodec, new TreeOrderBook(Side.ASK), new TreeOrderBook(Side.BID));
+    }
+
+    private static void assertSameBook(final SimpleLevel2View expected, final SimpleLevel2View actual) {
+        assertEquals(expected.getOrderCount(), actual.getOrderCount());
+        for (final Side side : Side.values()) {
+            assertEquals(expected.getBookDepth(side), actual.getBookDepth(side));
+            assertEquals(queues(expected, side), queues(actual, side));
+        }
+    }
+
+    private static List<String> queues(final SimpleLevel2View view, final Side side) {
+        final List<String> queues = new ArrayList<>();
+        view.forEachLevel(side, level -> {
+            final StringBuilder queue = new StringBuilder()
+                .append(level.getPrice()).append('=').append(level.getTotalQuantity()).append(':');
+            for (Order order = level.getHead(); order != null; order = order.getNext()) {
+                queue.append(order.getId()).append('/').append(order.getQuantity()).append(' ');
+            }
+            queues.add(queue.toString());
+        });
+        return queues;
+    }
+}
@@ -0,0 +1,89 @@
+package com.marcolotz.orderbook.core;
+
+import com.marcolotz.orderbook.core.orderbook.TreeOrderBook;
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import com.marcolotz.orderbook.port.Side;
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("When processing events on a warmed up Level2View")
+class SimpleLevel2ViewAllocationTest {
+
+    private static final int EVENTS = 1_000_000;
+    private static final int LIVE_ORDERS = 10_000;
+    private static final int PRICE_LEVELS = 50;
+
+    private final ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // slot -> resting order id, or -1 if the slot is free. Even slots hold ASK orders, odd slots BID orders
+    private final long[] liveOrders = new long[LIVE_ORDERS];
+    private long nextOrderId;
+    private long seed = 42;
+
+    @Test
+    @DisplayName("Then no memory is allocated on the event path")
+    void steadyStateDoesNotAllocate() {
+        // Given
+        final SimpleLevel2View level2View =
+            new SimpleLevel2View(PriceCodec.ofScale(2), new TreeOrderBook(Side.ASK), new TreeOrderBook(Side.BID));
+        Arrays.fill(liveOrders, -1);
+        runEvents(level2View, EVENTS); // warm up: pools, tables and JIT
+
+        // When
+        final long threadId = Thread.currentThread().getId();
+        final long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        runEvents(level2View, EVENTS);
+        final long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+        // Then
+        assertEquals(0, allocated);
+        assertTrue(level2View.getTopOfBookTicks(Side.BID) < level2View.getTopOfBookTicks(Side.ASK));
+    }
+
+    private void runEvents(final SimpleLevel2View level2View, final int events) {
+        for (int i = 0; i < events; i++) {
+            final int slot = (int) (nextRandom() % LIVE_ORDERS);
+            final long price = 1_000 + nextRandom() % PRICE_LEVELS;
+            final long orderId = liveOrders[slot];
+            final Side side = (slot & 1) == 0 ? Side.ASK : Side.BID;
+            if (orderId < 0) {
+                liveOrders[slot] = nextOrderId;
+                level2View.onNewOrder(side, priceOn(side, price), 100, nextOrderId++);
+            } else {
+                switch ((int) (nextRandom() % 3)) {
+                    case 0:
+                        level2View.onCancelOrder(orderId);
+                        liveOrders[slot] = -1;
+                        break;
+                    case 1:
+                        level2View.onReplaceOrder(priceOn(side, price), 100, orderId); // within its side, the book never crosses
+                        break;
+                    default:
+                        level2View.onTrade(100, orderId);
+                        liveOrders[slot] = -1;
+                        break;
+                }
+            }
+        }
+    }
+
+    // ASK prices sit right above the BID ones
+    private static long priceOn(final Side side, final long price) {
+        return side == Side.ASK ? price : price - PRICE_LEVELS;
+    }
+
+    // xorshift - keeps the workload itself allocation free
+    private long nextRandom() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return seed & Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,139 @@
+package com.marcolotz.orderbook.core;
+
+import com.marcolotz.orderbook.core.exceptions.InvalidOrderException;
+import com.marcolotz.orderbook.core.orderbook.TreeOrderBook;
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import com.marcolotz.orderbook.port.EventBatch;
+import com.marcolotz.orderbook.port.EventStatus;
+import com.marcolotz.orderbook.port.Side;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("When applying batches of events on a Level2View")
+class SimpleLevel2ViewBatchTest {
+
+    private SimpleLevel2View level2View;
+    private final EventBatch batch = new EventBatch(1024);
+
+    @BeforeEach
+    void setUp() {
+        level2View = newView();
+    }
+
+    @Test
+    @DisplayName("Then orders added and cancelled within the batch never reach the book")
+    void addCancelPairsAreCoalesced() {
+        // Given
+        batch.addNewOrder(Side.BID, 100, 10, 1);
+        batch.addNewOrder(Side.BID, 101, 10, 2);
+        batch.addCancelOrder(2);
+
+        // When
+        level2View.onEvents(batch);
+
+        // Then
+        assertEquals(100, level2View.getTopOfBookTicks(Side.BID));
+        assertEquals(1, level2View.getBookDepth(Side.BID));
+        assertFalse(level2View.orderDirectory.containsKey(2));
+    }
+
+    @Test
+    @DisplayName("Then duplicate orders are still rejected within a batch")
+    void duplicatesAreNotHidden() {
+        // Given
+        level2View.setStrict(true);
+        level2View.onNewOrder(Side.BID, 100L, 10, 1);
+        batch.addNewOrder(Side.BID, 101, 10, 1);
+        batch.addCancelOrder(1);
+
+        // Then
+        assertThrows(InvalidOrderException.class, () -> level2View.onEvents(batch));
+        assertTrue(level2View.orderDirectory.containsKey(1));
+    }
+
+    @Test
+    @DisplayName("Then a batch leaves the view as the same events applied one by one")
+    void batchMatchesSingleEvents() {
+        // Given
+        final SimpleLevel2View reference = newView();
+        final Random random = new Random(3);
+        long nextOrderId = 0;
+
+        // When
+        for (int round = 0; round < 200; round++) {
+            batch.clear();
+            while (!batch.isFull()) {
+                final long orderId = nextOrderId - 1 - random.nextInt(8);
+                switch (random.nextInt(4)) {
+                    case 0:
+                        if (orderId >= 0 && isResting(reference, orderId)) {
+                            batch.addCancelOrder(orderId);
+                            reference.onCancelOrder(orderId);
+                        }
+                        break;
+                    case 1:
+                        if (orderId >= 0 && isResting(reference, orderId)) {
+                            final long price = 100 + random.nextInt(5);
+                            batch.addReplaceOrder(price, 5, orderId);
+                            reference.onReplaceOrder(price, 5, orderId);
+                        }
+                        break;
+                    default:
+                        final Side side = random.nextBoolean() ? Side.ASK : Side.BID;
+                        final long price = side == Side.ASK ? 105 + random.nextInt(5) : 100 + random.nextInt(5);
+                        batch.addNewOrder(side, price, 10, nextOrderId);
+                        reference.onNewOrder(side, price, 10, nextOrderId++);
+                }
+            }
+            level2View.onEvents(batch);
+
+            // Then
+            for (final Side side : Side.values()) {
+                assertEquals(reference.getBookDepth(side), level2View.getBookDepth(side));
+                for (long price = 100; price < 110; price++) {
+                    assertEquals(reference.getSizeForPriceLevel(side, price), level2View.getSizeForPriceLevel(side, price));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Then invalid events are rejected and the rest of the batch is applied")
+    void invalidEventsAreSkipped() {
+        // Given
+        batch.addNewOrder(Side.BID, 100, 10, 1);
+        batch.addNewOrder(Side.BID, 101, 10, 1);
+        batch.addCancelOrder(1);
+        batch.addCancelOrder(7);
+        batch.addNewOrder(Side.BID, 102, 10, 2);
+        batch.addTrade(5, 9);
+
+        // When
+        level2View.onEvents(batch);
+
+        // Then
+        assertFalse(isResting(level2View, 1));
+        assertEquals(102, level2View.getTopOfBookTicks(Side.BID));
+        assertEquals(1, level2View.getBookDepth(Side.BID));
+        assertEquals(1, level2View.getRejectedCount(EventStatus.DUPLICATE_ORDER));
+        assertEquals(1, level2View.getRejectedCount(EventStatus.UNKNOWN_ORDER));
+        assertEquals(1, level2View.getRejectedCount(EventStatus.UNKNOWN_RESTING_ORDER));
+        assertEquals(EventStatus.UNKNOWN_RESTING_ORDER, level2View.getLastStatus());
+    }
+
+    private static boolean isResting(final SimpleLevel2View view, final long orderId) {
+        return view.orderDirectory.containsKey(orderId);
+    }
+
+    private static SimpleLevel2View newView() {
+        return new SimpleLevel2View(PriceCodec.ofScale(2), new TreeOrderBook(Side.ASK), new TreeOrderBook(Side.BID));
+    }
+}
@@ -0,0 +1,78 @@
+package com.marcolotz.orderbook.core;
+
+import com.marcolotz.orderbook.core.exceptions.InvalidOrderException;
+import com.marcolotz.orderbook.core.exceptions.InvalidTradeException;
+import com.marcolotz.orderbook.core.orderbook.TreeOrderBook;
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import com.marcolotz.orderbook.port.EventStatus;
+import com.marcolotz.orderbook.port.Side;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("When a Level2View receives invalid events")
+class SimpleLevel2ViewRejectionTest {
+
+    private SimpleLevel2View level2View;
+    private final List<String> rejections = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        level2View = new SimpleLevel2View(PriceCodec.ofScale(2), new TreeOrderBook(Side.ASK), new TreeOrderBook(Side.BID));
+        level2View.setRejectionListener((status, orderId) -> rejections.add(status + "/" + orderId));
+        level2View.onNewOrder(Side.BID, 100L, 10, 1);
+    }
+
+    @Test
+    @DisplayName("Then they are rejected with a status and counted, without exception, leaving the book untouched")
+    void invalidEventsAreRejected() {
+        // When
+        level2View.onNewOrder(Side.ASK, 101L, 10, 1);
+        level2View.onCancelOrder(2);
+        level2View.onReplaceOrder(99L, 5, 3);
+        level2View.onTrade(5, 4);
+        level2View.onTrade(11, 1);
+        final EventStatus lastStatus = level2View.getLastStatus();
+        level2View.onTrade(4, 1);
+
+        // Then
+        assertEquals(EventStatus.OVERFILL, lastStatus);
+        assertEquals(EventStatus.ACCEPTED, level2View.getLastStatus());
+        assertEquals(List.of("DUPLICATE_ORDER/1", "UNKNOWN_ORDER/2", "UNKNOWN_ORDER/3", "UNKNOWN_RESTING_ORDER/4", "OVERFILL/1"),
+            rejections);
+        assertEquals(1, level2View.getRejectedCount(EventStatus.DUPLICATE_ORDER));
+        assertEquals(2, level2View.getRejectedCount(EventStatus.UNKNOWN_ORDER));
+        assertEquals(1, level2View.getRejectedCount(EventStatus.UNKNOWN_RESTING_ORDER));
+        assertEquals(1, level2View.getRejectedCount(EventStatus.OVERFILL));
+        assertEquals(0, level2View.getBookDepth(Side.ASK));
+        assertEquals(6, level2View.getSizeForPriceLevel(Side.BID, 100L));
+        assertEquals(1, level2View.getOrderCount());
+    }
+
+    @Test
+    @DisplayName("Then strict mode throws, and still counts them")
+    void strictModeThrows() {
+        // Given
+        level2View.setStrict(true);
+
+        // When
+        assertThrows(InvalidOrderException.class, () -> level2View.onNewOrder(Side.ASK, 101L, 10, 1));
+        assertThrows(InvalidOrderException.class, () -> level2View.onCancelOrder(2));
+        assertThrows(InvalidTradeException.class, () -> level2View.onTrade(11, 1));
+        level2View.onTrade(5, 4);
+
+        // Then
+        assertTrue(level2View.isStrict());
+        assertEquals(4, rejections.size());
+        assertEquals(EventStatus.UNKNOWN_RESTING_ORDER, level2View.getLastStatus());
+        assertEquals(0, level2View.getBookDepth(Side.ASK));
+        assertEquals(10, level2View.getSizeForPriceLevel(Side.BID, 100L));
+    }
+}
@@ -1,9 +1,11 @@
 package com.marcolotz.orderbook.core;
 
 import com.marcolotz.orderbook.core.exceptions.EmptyOrderBookException;
+import com.marcolotz.orderbook.core.exceptions.InsufficientLiquidityException;
 import com.marcolotz.orderbook.core.exceptions.InvalidOrderException;
 import com.marcolotz.orderbook.core.exceptions.InvalidTradeException;
 import com.marcolotz.orderbook.core.model.Order;
+import com.marcolotz.orderbook.core.util.PriceCodec;
 import com.marcolotz.orderbook.port.OrderBook;
 import com.marcolotz.orderbook.port.Side;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,14 +20,20 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.math.BigDecimal;
 
 import static com.marcolotz.orderbook.port.Side.ASK;
+import static com.marcolotz.orderbook.port.Side.BID;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 @DisplayName("When performing actions on a Level2View")
 @ExtendWith(MockitoExtension.class)
@@ -40,7 +48,8 @@ class SimpleLevel2ViewTest {
 
     @BeforeEach
     void setUp() {
-        level2View = new SimpleLevel2View(askBook, bidBook);
+        level2View = new SimpleLevel2View(PriceCodec.ofScale(0), askBook, bidBook);
+        level2View.setStrict(true);
         reset(askBook, bidBook);
     }
 
@@ -62,16 +71,71 @@ class SimpleLevel2ViewTest {
         verify(expectedOrderBook).addOrder(any(Order.class));
     }
 
+    @DisplayName("Then decimal prices are converted to ticks before reaching the book")
+    @ParameterizedTest
+    @EnumSource(value = Side.class)
+    void onNewOrderConvertsPriceToTicks(Side side) {
+        // Given
+        level2View = new SimpleLevel2View(PriceCodec.ofScale(2), askBook, bidBook);
+        final OrderBook expectedOrderBook = getBookForEnum(side);
+        doNothing().when(expectedOrderBook).addOrder(any());
+
+        // When
+        level2View.onNewOrder(side, new BigDecimal("10.25"), 10, 100L);
+
+        // Then
+        verify(expectedOrderBook).addOrder(new Order(100L, side, 10, 1025));
+    }
+
+    @Test
+    @DisplayName("Then prices that are not a multiple of the tick size throw InvalidOrderException")
+    void onNewOrderWithInvalidTick() {
+        // Given
+        level2View = new SimpleLevel2View(PriceCodec.ofScale(2), askBook, bidBook);
+
+        // Expect
+        assertThrows(InvalidOrderException.class, () -> level2View.onNewOrder(ASK, new BigDecimal("10.255"), 10, 100L));
+    }
+
+    @Test
+    @DisplayName("Then queries on prices that are not a multiple of the tick size don't throw")
+    void queriesWithInvalidTick() {
+        // Given
+        level2View = new SimpleLevel2View(PriceCodec.ofScale(2), askBook, bidBook);
+        doReturn(15L).when(askBook).getSizeBetween(1026, 1030);
+        doReturn(20L).when(askBook).getCumulativeSize(1025);
+        doReturn(25L).when(bidBook).getCumulativeSize(1026);
+
+        // Expect
+        assertEquals(0, level2View.getSizeForPriceLevel(ASK, new BigDecimal("10.255")));
+        assertEquals(15, level2View.getSizeBetween(ASK, new BigDecimal("10.305"), new BigDecimal("10.255")));
+        assertEquals(0, level2View.getSizeBetween(ASK, new BigDecimal("10.251"), new BigDecimal("10.259")));
+        assertEquals(20, level2View.getCumulativeSize(ASK, new BigDecimal("10.255")));
+        assertEquals(25, level2View.getCumulativeSize(BID, new BigDecimal("10.255")));
+        verify(askBook, never()).getSizeForPriceLevel(anyLong());
+    }
+
+    @Test
+    @DisplayName("Then duplicated order ids throw InvalidOrderException")
+    void onNewOrderDuplicatedId() {
+        // Given
+        final long orderId = 100L;
+        level2View.onNewOrder(ASK, 10, 10, orderId);
+
+        // Expect
+        assertThrows(InvalidOrderException.class, () -> level2View.onNewOrder(BID, 10, 10, orderId));
+        verify(bidBook, never()).addOrder(any());
+    }
+
     @Test
     @DisplayName("Then non existing orders throw InvalidOrderIdException")
     void onCancelOrderNonExistingOrder() {
         // Given
         final long orderId = 100L;
-        doReturn(false).when(askBook).containsOrder(orderId);
-        doReturn(false).when(bidBook).containsOrder(orderId);
 
         // Expect
         assertThrows(InvalidOrderException.class, () -> level2View.onCancelOrder(orderId));
+        verifyNoInteractions(askBook, bidBook);
     }
 
     @Test
@@ -79,46 +143,40 @@ class SimpleLevel2ViewTest {
     void cancelOrderWhenFound() {
         // Given
         final long orderId = 100L;
-        doReturn(true).when(bidBook).containsOrder(orderId);
+        level2View.onNewOrder(BID, 10, 10, orderId);
 
         // When
         level2View.onCancelOrder(orderId);
 
         // Expect
-        verify(bidBook).removeOrder(orderId);
+        verify(bidBook).removeOrder(new Order(orderId, BID, 10, 10));
+        assertThrows(InvalidOrderException.class, () -> level2View.onCancelOrder(orderId));
     }
 
     @Test
     @DisplayName("Then existing orders can be replaced")
     void existingOrdersCanBeReplaced() {
         // Given
-        final BigDecimal originalPrice = new BigDecimal(0);
-        final Order oldOrder = new Order(0, 0, originalPrice);
-        final BigDecimal updatedPrice = new BigDecimal(0);
-        final Order updateOrder = new Order(0, 1, updatedPrice);
-
-        doReturn(true).when(askBook).containsOrder(oldOrder.getId());
-        doNothing().when(askBook).replaceOrder(any(Order.class));
+        final long originalPrice = 0;
+        final Order oldOrder = new Order(0, ASK, 0, originalPrice);
+        final long updatedPrice = 1;
+        final Order updateOrder = new Order(0, ASK, 1, updatedPrice);
+        level2View.onNewOrder(ASK, oldOrder.getPrice(), oldOrder.getQuantity(), oldOrder.getId());
 
         // When
         level2View.onReplaceOrder(updateOrder.getPrice(), updateOrder.getQuantity(), updateOrder.getId());
 
         // Then
-        verify(askBook).containsOrder(updateOrder.getId());
-        verify(askBook).replaceOrder(any(Order.class));
+        verify(askBook).replaceOrder(oldOrder, updateOrder.getPrice(), updateOrder.getQuantity());
+        verifyNoInteractions(bidBook);
     }
 
     @Test
     @DisplayName("Then non-existing orders will throw exception when replaced")
     void replacedNonExistingOrdersThrowException() {
         // Given
-        final BigDecimal originalPrice = new BigDecimal(0);
-        final Order oldOrder = new Order(0, 0, originalPrice);
-        final BigDecimal updatedPrice = new BigDecimal(0);
-        final Order updateOrder = new Order(0, 1, updatedPrice);
-
-        doReturn(false).when(askBook).containsOrder(oldOrder.getId());
-        doReturn(false).when(bidBook).containsOrder(oldOrder.getId());
+        final long updatedPrice = 0;
+        final Order updateOrder = new Order(0, ASK, 1, updatedPrice);
 
         // Expect
         assertThrows(InvalidOrderException.class,
@@ -129,56 +187,48 @@ class SimpleLevel2ViewTest {
     @DisplayName("Then a resting order with higher quantity than the matched order will remain will have its value updated")
     void whenRestingHasHigherQuantityUpdateValue() {
         // Given
-        final BigDecimal restingOrderPrice = new BigDecimal(0);
+        final long restingOrderPrice = 0;
         final int originalRestingOrderQuantity = 100;
         final int tradedQuantity = 50;
         final long restingOrderId = 0;
-        final Order restingOrder = new Order(restingOrderId, originalRestingOrderQuantity, restingOrderPrice);
-
-        doReturn(true).when(askBook).containsOrder(restingOrderId);
-        doReturn(restingOrder).when(askBook).getOrderById(restingOrderId);
-        doNothing().when(askBook).replaceOrder(any());
+        final Order restingOrder = new Order(restingOrderId, ASK, originalRestingOrderQuantity, restingOrderPrice);
+        level2View.onNewOrder(ASK, restingOrderPrice, originalRestingOrderQuantity, restingOrderId);
 
         // When
         level2View.onTrade(tradedQuantity, restingOrderId);
 
         // Then
-        verify(askBook).replaceOrder(any());
+        verify(askBook).replaceOrder(restingOrder, restingOrderPrice, 50);
     }
 
     @Test
     @DisplayName("Then a resting order with equal quantity than the matched order will be removed from order book")
     void whenRestingHasEqualQuantityThenRemove() {
         // Given
-        final BigDecimal restingOrderPrice = new BigDecimal(0);
+        final long restingOrderPrice = 0;
         final int originalRestingOrderQuantity = 100;
         final int tradedQuantity = 100;
         final long restingOrderId = 0;
-        final Order restingOrder = new Order(restingOrderId, originalRestingOrderQuantity, restingOrderPrice);
-
-        doReturn(true).when(askBook).containsOrder(restingOrderId);
-        doReturn(restingOrder).when(askBook).getOrderById(restingOrderId);
-        doNothing().when(askBook).removeOrder(restingOrderId);
+        final Order restingOrder = new Order(restingOrderId, ASK, originalRestingOrderQuantity, restingOrderPrice);
+        level2View.onNewOrder(ASK, restingOrderPrice, originalRestingOrderQuantity, restingOrderId);
 
         // When
         level2View.onTrade(tradedQuantity, restingOrderId);
 
         // Then
-        verify(askBook).removeOrder(restingOrderId);
+        verify(askBook).removeOrder(restingOrder);
+        assertThrows(InvalidOrderException.class, () -> level2View.onCancelOrder(restingOrderId));
     }
 
     @Test
     @DisplayName("Then a resting order with lower quantity throws an exception")
     void whenRestingHasLowerQuantityThrowException() {
         // Given
-        final BigDecimal restingOrderPrice = new BigDecimal(0);
+        final long restingOrderPrice = 0;
         final int originalRestingOrderQuantity = 50;
         final int tradedQuantity = 100;
         final long restingOrderId = 0;
-        final Order restingOrder = new Order(restingOrderId, originalRestingOrderQuantity, restingOrderPrice);
-
-        doReturn(true).when(askBook).containsOrder(restingOrderId);
-        doReturn(restingOrder).when(askBook).getOrderById(restingOrderId);
+        level2View.onNewOrder(ASK, restingOrderPrice, originalRestingOrderQuantity, restingOrderId);
 
         // Expect
         assertThrows(InvalidTradeException.class, () -> level2View.onTrade(tradedQuantity, restingOrderId));
@@ -191,7 +241,7 @@ class SimpleLevel2ViewTest {
         // Given
         final OrderBook expectedBook = getBookForEnum(side);
         final long expectedPriceLevelSize = 10;
-        doReturn(expectedPriceLevelSize).when(expectedBook).getSizeForPriceLevel(any());
+        doReturn(expectedPriceLevelSize).when(expectedBook).getSizeForPriceLevel(anyLong());
 
         // When
         final long priceLevelSize = level2View.getSizeForPriceLevel(side, new BigDecimal(100));
@@ -223,7 +273,7 @@ class SimpleLevel2ViewTest {
         // Given
         final OrderBook expectedBook = getBookForEnum(side);
         final BigDecimal expectedPrice = new BigDecimal(13);
-        final Order expectedOrder = new Order(13, 0, expectedPrice);
+        final Order expectedOrder = new Order(13, side, 0, 13);
         doReturn(expectedOrder).when(expectedBook).getTopOrder();
 
         // When
@@ -245,6 +295,91 @@ class SimpleLevel2ViewTest {
         assertThrows(EmptyOrderBookException.class, () -> level2View.getTopOfBook(side));
     }
 
+    @DisplayName("Then the best levels are returned as decimal prices")
+    @ParameterizedTest
+    @EnumSource(Side.class)
+    void getDepth(Side side) {
+        // Given
+        final OrderBook expectedBook = getBookForEnum(side);
+        doAnswer(invocation -> {
+            final long[] ticks = invocation.getArgument(1);
+            final long[] sizes = invocation.getArgument(2);
+            ticks[0] = 13;
+            sizes[0] = 100;
+            return 1;
+        }).when(expectedBook).getDepth(eq(2), any(long[].class), any(long[].class));
+        final BigDecimal[] prices = new BigDecimal[2];
+        final long[] sizes = new long[2];
+
+        // When
+        final int levels = level2View.getDepth(side, 2, prices, sizes);
+
+        // Then
+        assertEquals(1, levels);
+        assertEquals(new BigDecimal(13), prices[0]);
+        assertEquals(100, sizes[0]);
+    }
+
+    @DisplayName("Then buffers smaller than the requested depth throw exception")
+    @ParameterizedTest
+    @EnumSource(Side.class)
+    void getDepthWithSmallBuffers(Side side) {
+        // Expect
+        assertThrows(IllegalArgumentException.class, () -> level2View.getDepth(side, 5, new long[5], new long[4]));
+    }
+
+    @DisplayName("Then sweeps are returned as decimal fill price and VWAP")
+    @ParameterizedTest
+    @EnumSource(Side.class)
+    void sweep(Side side) {
+        // Given
+        final OrderBook expectedBook = getBookForEnum(side);
+        doAnswer(invocation -> {
+            final long[] result = invocation.getArgument(1);
+            result[0] = 12;
+            result[1] = 2 * 10 + 12;
+            return true;
+        }).when(expectedBook).sweep(eq(3L), any(long[].class));
+
+        // When
+        final BigDecimal fillPrice = level2View.getFillPrice(side, 3);
+        final BigDecimal vwap = level2View.getSweepVwap(side, 3);
+
+        // Then
+        assertEquals(new BigDecimal(12), fillPrice);
+        assertEquals(0, new BigDecimal("10.66666666666667").compareTo(vwap));
+    }
+
+    @DisplayName("Then sweeping more than the side holds throws exception")
+    @ParameterizedTest
+    @EnumSource(Side.class)
+    void sweepBeyondLiquidity(Side side) {
+        // Given
+        doReturn(false).when(getBookForEnum(side)).sweep(eq(100L), any(long[].class));
+
+        // Expect
+        assertThrows(InsufficientLiquidityException.class, () -> level2View.getFillPriceTicks(side, 100));
+        assertThrows(IllegalArgumentException.class, () -> level2View.getSweepVwap(side, 0));
+    }
+
+    @DisplayName("Then queue position queries are forwarded to the book of the resting order")
+    @ParameterizedTest
+    @EnumSource(Side.class)
+    void queuePosition(Side side) {
+        // Given
+        final OrderBook expectedBook = getBookForEnum(side);
+        level2View.onNewOrder(side, new BigDecimal(10), 10, 1L);
+        doReturn(30L).when(expectedBook).getQuantityAhead(any(Order.class));
+        doReturn(2).when(expectedBook).getQueuePosition(any(Order.class));
+        doReturn(4).when(expectedBook).getOrdersBehind(any(Order.class));
+
+        // Expect
+        assertEquals(30, level2View.getQuantityAhead(1L));
+        assertEquals(2, level2View.getQueuePosition(1L));
+        assertEquals(4, level2View.getOrdersBehind(1L));
+        assertThrows(InvalidOrderException.class, () -> level2View.getQueuePosition(2L));
+    }
+
     private OrderBook getBookForEnum(Side side) {
         return side.equals(ASK) ? askBook : bidBook;
     }
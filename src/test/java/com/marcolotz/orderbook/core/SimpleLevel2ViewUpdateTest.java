@@ -0,0 +1,172 @@
+package com.marcolotz.orderbook.core;
+
+import com.marcolotz.orderbook.core.orderbook.ArrayOrderBook;
+import com.marcolotz.orderbook.core.orderbook.TreeOrderBook;
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import com.marcolotz.orderbook.port.EventBatch;
+import com.marcolotz.orderbook.port.Level2Update;
+import com.marcolotz.orderbook.port.Level2UpdateListener;
+import com.marcolotz.orderbook.port.Side;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("When subscribing to the incremental updates of a Level2View")
+class SimpleLevel2ViewUpdateTest {
+
+    private SimpleLevel2View level2View;
+    private final List<String> updates = new ArrayList<>();
+    private final Level2UpdateListener subscriber = update -> updates.add(describe(update));
+
+    @BeforeEach
+    void setUp() {
+        // small window, so that the bid side also changes levels on its overflow
+        level2View = new SimpleLevel2View(PriceCodec.ofScale(2), new TreeOrderBook(Side.ASK), new ArrayOrderBook(Side.BID, 4));
+        level2View.subscribe(subscriber);
+    }
+
+    @Test
+    @DisplayName("Then every event publishes the levels it changed")
+    void eventsPublishChangedLevels() {
+        // When
+        level2View.onNewOrder(Side.BID, 100L, 10, 1);
+        level2View.onNewOrder(Side.BID, 100L, 5, 2);
+        level2View.onTrade(4, 1);
+        level2View.onCancelOrder(2);
+
+        // Then
+        assertEquals(List.of(
+            "1:BID@100=10/1",
+            "2:BID@100=15/2",
+            "3:BID@100=11/2",
+            "4:BID@100=6/1"), updates);
+    }
+
+    @Test
+    @DisplayName("Then a replace to another price publishes both levels in a single update")
+    void replacePublishesBothLevels() {
+        // Given
+        level2View.onNewOrder(Side.ASK, 100L, 10, 1);
+
+        // When
+        level2View.onReplaceOrder(101L, 10, 1);
+
+        // Then
+        assertEquals("2:ASK@100=deleted,ASK@101=10/1", updates.get(1));
+    }
+
+    @Test
+    @DisplayName("Then a level changed twice by the same event is published once with its final state")
+    void levelsArePublishedOnce() {
+        // Given
+        level2View.onNewOrder(Side.ASK, 100L, 10, 1);
+
+        // When - more quantity sends the order to the back of its level
+        level2View.onReplaceOrder(100L, 20, 1);
+
+        // Then
+        assertEquals("2:ASK@100=20/1", updates.get(1));
+    }
+
+    @Test
+    @DisplayName("Then events that change nothing publish nothing, and unsubscribed listeners get nothing")
+    void nothingToPublish() {
+        // When
+        level2View.onTrade(10, 42); // unknown resting order
+        level2View.unsubscribe(subscriber);
+        level2View.onNewOrder(Side.ASK, 100L, 10, 1);
+
+        // Then
+        assertTrue(updates.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Then a mirror built from the updates matches the book")
+    void mirrorMatchesBook() {
+        // Given
+        final Map<String, Long> mirror = new HashMap<>();
+        level2View.subscribe(update -> {
+            for (int i = 0; i < update.size(); i++) {
+                final String level = update.getSide(i) + "@" + update.getPrice(i);
+                if (update.isDeleted(i)) {
+                    mirror.remove(level);
+                } else {
+                    mirror.put(level, update.getQuantity(i));
+                }
+            }
+        });
+        final EventBatch batch = new EventBatch(64);
+        long nextOrderId = 0;
+        final Random random = new Random(7);
+        final Map<Long, Long> restingPrices = new HashMap<>();
+        final List<Long> restingIds = new ArrayList<>();
+
+        // When
+        for (int round = 0; round < 100; round++) {
+            batch.clear();
+            while (!batch.isFull()) {
+                final int operation = random.nextInt(4);
+                if (operation < 2 && !restingIds.isEmpty()) {
+                    final int index = restingIds.size() - 1 - random.nextInt(Math.min(8, restingIds.size()));
+                    final long orderId = restingIds.get(index);
+                    if (operation == 0) {
+                        batch.addCancelOrder(orderId);
+                        restingIds.set(index, restingIds.get(restingIds.size() - 1));
+                        restingIds.remove(restingIds.size() - 1);
+                        restingPrices.remove(orderId);
+                    } else {
+                        final long price = restingPrices.get(orderId) + random.nextInt(3) - 1;
+                        batch.addReplaceOrder(price, 5, orderId);
+                        restingPrices.put(orderId, price);
+                    }
+                } else {
+                    final Side side = random.nextBoolean() ? Side.ASK : Side.BID;
+                    final long price = side == Side.ASK ? 110 + random.nextInt(10) : 90 + random.nextInt(10);
+                    final long orderId = nextOrderId++;
+                    batch.addNewOrder(side, price, 10, orderId);
+                    restingIds.add(orderId);
+                    restingPrices.put(orderId, price);
+                }
+            }
+            level2View.onEvents(batch);
+
+            // Then
+            int levels = 0;
+            for (final Side side : Side.values()) {
+                levels += level2View.getBookDepth(side);
+                for (long price = 0; price < 250; price++) {
+                    final long size = level2View.getSizeForPriceLevel(side, price);
+                    assertEquals(size == 0 ? null : size, mirror.get(side + "@" + price));
+                }
+            }
+            assertEquals(levels, mirror.size());
+        }
+        assertFalse(updates.isEmpty());
+    }
+
+    private static String describe(final Level2Update update) {
+        final StringBuilder description = new StringBuilder().append(update.getSequence()).append(':');
+        for (int i = 0; i < update.size(); i++) {
+            if (i > 0) {
+                description.append(',');
+            }
+            description.append(update.getSide(i)).append('@').append(update.getPrice(i)).append('=');
+            if (update.isDeleted(i)) {
+                description.append("deleted");
+            } else {
+                description.append(update.getQuantity(i)).append('/').append(update.getOrderCount(i));
+            }
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,115 @@
+package com.marcolotz.orderbook.core.conflation;
+
+import com.marcolotz.orderbook.core.SimpleLevel2View;
+import com.marcolotz.orderbook.core.orderbook.TreeOrderBook;
+import com.marcolotz.orderbook.core.ring.WaitStrategy;
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import com.marcolotz.orderbook.port.Side;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("When fanning out updates to slow consumers")
+class ConflatingFanOutTest {
+
+    private SimpleLevel2View level2View;
+    private ConflatingFanOut fanOut;
+
+    @BeforeEach
+    void setUp() {
+        level2View = new SimpleLevel2View(PriceCodec.ofScale(2), new TreeOrderBook(Side.ASK), new TreeOrderBook(Side.BID));
+        fanOut = new ConflatingFanOut(level2View);
+        level2View.subscribe(fanOut);
+    }
+
+    @Test
+    @DisplayName("Then a consumer only receives the latest state of each level and of the top of book")
+    void updatesAreConflated() {
+        // Given
+        final List<String> levels = new ArrayList<>();
+        final ConflatingConsumer consumer = fanOut.addConsumer(update -> {
+            assertEquals(1, update.getFirstSequence());
+            assertEquals(1_003, update.getLastSequence());
+            assertEquals(1_003, update.getUpdateCount());
+            assertEquals(100, update.getTopOfBookPrice(Side.BID));
+            assertEquals(1_000, update.getTopOfBookSize(Side.BID));
+            assertFalse(update.hasTopOfBook(Side.ASK));
+            for (int i = 0; i < update.size(); i++) {
+                levels.add(update.getSide(i) + "@" + update.getPrice(i) + (update.isDeleted(i) ? "=deleted" : "=" + update.getQuantity(i)));
+            }
+        }, WaitStrategy.yielding());
+
+        // When
+        for (long orderId = 0; orderId < 1_000; orderId++) {
+            level2View.onNewOrder(Side.BID, 100L, 1, orderId);
+        }
+        level2View.onNewOrder(Side.BID, 99L, 1, 1_000);
+        level2View.onNewOrder(Side.ASK, 101L, 1, 1_001);
+        level2View.onCancelOrder(1_001);
+
+        // Then
+        assertTrue(consumer.poll());
+        assertEquals(List.of("BID@100=1000", "BID@99=1", "ASK@101=deleted"), levels);
+        assertFalse(consumer.poll());
+    }
+
+    @Test
+    @DisplayName("Then a consumer on its own thread mirrors the book, however slow it is")
+    void slowConsumerMirrorsBook() throws InterruptedException {
+        // Given
+        final Map<String, Long> mirror = new HashMap<>();
+        final long[] lastSequence = new long[1];
+        final ConflatingConsumer consumer = fanOut.addConsumer(update -> {
+            assertEquals(lastSequence[0] + 1, update.getFirstSequence());
+            lastSequence[0] = update.getLastSequence();
+            for (int i = 0; i < update.size(); i++) {
+                final String level = update.getSide(i) + "@" + update.getPrice(i);
+                if (update.isDeleted(i)) {
+                    mirror.remove(level);
+                } else {
+                    mirror.put(level, update.getQuantity(i));
+                }
+            }
+            try {
+                Thread.sleep(1); // much slower than the book
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, WaitStrategy.yielding());
+        final Thread consumerThread = new Thread(consumer, "slow-consumer");
+        consumerThread.start();
+        final Random random = new Random(11);
+
+        // When
+        for (long orderId = 0; orderId < 50_000; orderId++) {
+            final Side side = random.nextBoolean() ? Side.ASK : Side.BID;
+            level2View.onNewOrder(side, side == Side.ASK ? 200L + random.nextInt(20) : 100L + random.nextInt(20), 10, orderId);
+            if (orderId % 3 == 2) {
+                level2View.onCancelOrder(orderId - 1);
+            }
+        }
+        consumer.halt();
+        consumerThread.join();
+
+        // Then
+        int levels = 0;
+        for (final Side side : Side.values()) {
+            levels += level2View.getBookDepth(side);
+            for (long price = 100; price < 220; price++) {
+                final long size = level2View.getSizeForPriceLevel(side, price);
+                assertEquals(size == 0 ? null : size, mirror.get(side + "@" + price));
+            }
+        }
+        assertEquals(levels, mirror.size());
+    }
+}
@@ -0,0 +1,76 @@
+package com.marcolotz.orderbook.core.depth;
+
+import com.marcolotz.orderbook.core.SimpleLevel2View;
+import com.marcolotz.orderbook.core.orderbook.TreeOrderBook;
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import com.marcolotz.orderbook.port.Side;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("When publishing the depth of a book")
+class DepthSnapshotTest {
+
+    private SimpleLevel2View level2View;
+    private DepthSnapshot depthSnapshot;
+
+    @BeforeEach
+    void setUp() {
+        level2View = new SimpleLevel2View(PriceCodec.ofScale(2), new TreeOrderBook(Side.ASK), new TreeOrderBook(Side.BID));
+        level2View.onNewOrder(Side.BID, 100L, 10, 1);
+        depthSnapshot = new DepthSnapshot(level2View, 2);
+        level2View.subscribe(depthSnapshot);
+    }
+
+    @Test
+    @DisplayName("Then readers get the best levels of both sides")
+    void bestLevelsArePublished() {
+        // Given
+        final Depth depth = new Depth(2);
+        level2View.onNewOrder(Side.BID, 99L, 5, 2);
+        level2View.onNewOrder(Side.BID, 98L, 5, 3);
+        level2View.onNewOrder(Side.ASK, 101L, 7, 4);
+
+        // When
+        final long version = depthSnapshot.read(depth);
+
+        // Then
+        assertEquals(3, version);
+        assertEquals(version, depth.getVersion());
+        assertEquals(2, depth.getLevels(Side.BID));
+        assertEquals(100, depth.getPrice(Side.BID, 0));
+        assertEquals(10, depth.getSize(Side.BID, 0));
+        assertEquals(99, depth.getPrice(Side.BID, 1));
+        assertEquals(1, depth.getLevels(Side.ASK));
+        assertEquals(101, depth.getPrice(Side.ASK, 0));
+        assertEquals(7, depth.getSize(Side.ASK, 0));
+    }
+
+    @Test
+    @DisplayName("Then the version only moves when one of the best levels changes")
+    void versionFollowsBestLevels() {
+        // Given
+        level2View.onNewOrder(Side.BID, 99L, 5, 2);
+        final long version = depthSnapshot.getVersion();
+
+        // When
+        level2View.onNewOrder(Side.BID, 90L, 5, 3);
+        level2View.onCancelOrder(3);
+        final long deepChangeVersion = depthSnapshot.getVersion();
+        level2View.onTrade(1, 2);
+
+        // Then
+        assertEquals(version, deepChangeVersion);
+        assertEquals(4, depthSnapshot.getVersion());
+    }
+
+    @Test
+    @DisplayName("Then a copy too small for the snapshot is rejected")
+    void smallCopyIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> depthSnapshot.read(new Depth(1)));
+        assertThrows(IllegalArgumentException.class, () -> new DepthSnapshot(level2View, 0));
+    }
+}
@@ -0,0 +1,74 @@
+package com.marcolotz.orderbook.core.engine;
+
+import com.marcolotz.orderbook.core.SimpleLevel2View;
+import com.marcolotz.orderbook.core.orderbook.TreeOrderBook;
+import com.marcolotz.orderbook.core.ring.RingBuffer;
+import com.marcolotz.orderbook.core.ring.WaitStrategy;
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import com.marcolotz.orderbook.port.EventStatus;
+import com.marcolotz.orderbook.port.Side;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("When feeding a Level2View through a pipeline")
+class Level2PipelineTest {
+
+    @Test
+    @DisplayName("Then all events are applied in order by the consumer thread")
+    void eventsAreApplied() throws InterruptedException {
+        // Given
+        final PriceCodec priceCodec = PriceCodec.ofScale(2);
+        final SimpleLevel2View view = new SimpleLevel2View(priceCodec, new TreeOrderBook(Side.ASK), new TreeOrderBook(Side.BID));
+        final Level2Pipeline pipeline = new Level2Pipeline(view, priceCodec, 64, RingBuffer.ProducerType.SINGLE, WaitStrategy.yielding());
+        pipeline.start();
+
+        // When
+        for (long orderId = 0; orderId < 10_000; orderId++) {
+            pipeline.onNewOrder(Side.BID, 1_000 + orderId % 10, 10, orderId);
+        }
+        for (long orderId = 0; orderId < 10_000; orderId += 2) {
+            pipeline.onCancelOrder(orderId);
+        }
+        pipeline.onNewOrder(Side.ASK, BigDecimal.valueOf(11.5), 7, 20_000);
+        pipeline.onTrade(3, 20_000);
+        pipeline.onReplaceOrder(1_009, 5, 9_999);
+        pipeline.onCancelOrder(42); // already cancelled: rejected and skipped
+        pipeline.close();
+
+        // Then
+        assertEquals(1_009, view.getTopOfBookTicks(Side.BID));
+        assertEquals(10 * 999 + 5, view.getSizeForPriceLevel(Side.BID, 1_009));
+        assertEquals(0, view.getSizeForPriceLevel(Side.BID, 1_008));
+        assertEquals(4, view.getSizeForPriceLevel(Side.ASK, 1_150));
+        assertEquals(1, view.getRejectedCount(EventStatus.UNKNOWN_ORDER));
+    }
+
+    @Test
+    @DisplayName("Then invalid events are reported to the rejection listener on the consumer thread")
+    void rejectionsAreReported() throws InterruptedException {
+        // Given
+        final PriceCodec priceCodec = PriceCodec.ofScale(2);
+        final SimpleLevel2View view = new SimpleLevel2View(priceCodec, new TreeOrderBook(Side.ASK), new TreeOrderBook(Side.BID));
+        final List<EventStatus> rejections = new ArrayList<>();
+        final Level2Pipeline pipeline = new Level2Pipeline(view, priceCodec, 64, RingBuffer.ProducerType.SINGLE, WaitStrategy.yielding(),
+            false, (status, orderId) -> rejections.add(status));
+        pipeline.start();
+
+        // When
+        pipeline.onNewOrder(Side.BID, 1_000, 10, 1);
+        pipeline.onNewOrder(Side.BID, 1_001, 10, 1);
+        pipeline.onTrade(20, 1);
+        pipeline.onCancelOrder(1);
+        pipeline.close();
+
+        // Then
+        assertEquals(List.of(EventStatus.DUPLICATE_ORDER, EventStatus.OVERFILL), rejections);
+        assertEquals(0, view.getBookDepth(Side.BID));
+    }
+}
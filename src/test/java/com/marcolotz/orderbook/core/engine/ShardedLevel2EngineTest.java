@@ -0,0 +1,138 @@
+package com.marcolotz.orderbook.core.engine;
+
+import com.marcolotz.orderbook.core.SimpleLevel2View;
+import com.marcolotz.orderbook.core.orderbook.TreeOrderBook;
+import com.marcolotz.orderbook.core.ring.WaitStrategy;
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import com.marcolotz.orderbook.port.EventStatus;
+import com.marcolotz.orderbook.port.Level2View;
+import com.marcolotz.orderbook.port.Side;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("When using a sharded engine")
+class ShardedLevel2EngineTest {
+
+    private static final int INSTRUMENTS = 16;
+
+    private ShardedLevel2Engine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new ShardedLevel2Engine(4, 1024, WaitStrategy.yielding());
+        engine.start();
+        for (long instrumentId = 0; instrumentId < INSTRUMENTS; instrumentId++) {
+            engine.addInstrument(instrumentId, newView());
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        engine.close();
+    }
+
+    @Test
+    @DisplayName("Then events are applied to the book of their instrument")
+    void eventsAreRoutedByInstrument() throws Exception {
+        // Given
+        for (long instrumentId = 0; instrumentId < INSTRUMENTS; instrumentId++) {
+            engine.onNewOrder(instrumentId, Side.BID, 100 + instrumentId, 10, 1);
+            engine.onNewOrder(instrumentId, Side.BID, 200 + instrumentId, 10, 2);
+            engine.onNewOrder(instrumentId, Side.ASK, 300 + instrumentId, 10, 3);
+        }
+
+        // When
+        for (long instrumentId = 0; instrumentId < INSTRUMENTS; instrumentId++) {
+            engine.onCancelOrder(instrumentId, 2);
+            engine.onTrade(instrumentId, 4, 3);
+            engine.onReplaceOrder(instrumentId, 150 + instrumentId, 5, 1);
+        }
+
+        // Then
+        for (long instrumentId = 0; instrumentId < INSTRUMENTS; instrumentId++) {
+            final long askPrice = 300 + instrumentId;
+            final long topBid = get(engine.query(instrumentId, view -> view.getTopOfBookTicks(Side.BID)));
+            final long bidSize = get(engine.query(instrumentId, view -> view.getSizeForPriceLevel(Side.BID, topBid)));
+            final long askSize = get(engine.query(instrumentId, view -> view.getSizeForPriceLevel(Side.ASK, askPrice)));
+            assertEquals(150 + instrumentId, topBid);
+            assertEquals(5, bidSize);
+            assertEquals(6, askSize);
+        }
+    }
+
+    @Test
+    @DisplayName("Then an invalid event does not stop the shard")
+    void invalidEventsAreDropped() throws Exception {
+        // Given
+        engine.onCancelOrder(0, 42);
+        engine.onNewOrder(INSTRUMENTS + 1, Side.ASK, 10, 10, 1);
+
+        // When
+        engine.onNewOrder(0, Side.ASK, 10, 10, 1);
+
+        // Then
+        final long topAsk = get(engine.query(0, view -> view.getTopOfBookTicks(Side.ASK)));
+        assertEquals(10, topAsk);
+    }
+
+    @Test
+    @DisplayName("Then invalid events of an instrument are reported to its rejection listener")
+    void rejectionsAreReported() throws Exception {
+        // Given
+        final long instrumentId = INSTRUMENTS + 1;
+        final List<EventStatus> rejections = new ArrayList<>();
+        engine.addInstrument(instrumentId, (SimpleLevel2View) newView(), false, (status, orderId) -> rejections.add(status));
+
+        // When
+        engine.onCancelOrder(instrumentId, 42);
+        engine.onNewOrder(instrumentId, Side.ASK, 10, 10, 1);
+        engine.onNewOrder(instrumentId, Side.ASK, 11, 10, 1);
+
+        // Then
+        final long depth = get(engine.query(instrumentId, view -> view.getBookDepth(Side.ASK)));
+        assertEquals(1, depth);
+        assertEquals(List.of(EventStatus.UNKNOWN_ORDER, EventStatus.DUPLICATE_ORDER), rejections); // the query ran after them
+    }
+
+    @Test
+    @DisplayName("Then queries on unknown instruments fail")
+    void unknownInstrument() {
+        final ExecutionException exception =
+            assertThrows(ExecutionException.class, () -> get(engine.query(INSTRUMENTS + 1, view -> view.getBookDepth(Side.ASK))));
+        assertTrue(exception.getCause() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    @DisplayName("Then instruments are spread over all shards")
+    void instrumentsAreSpread() {
+        final boolean[] used = new boolean[engine.getShardCount()];
+        for (long instrumentId = 0; instrumentId < INSTRUMENTS; instrumentId++) {
+            used[engine.shardIndexOf(instrumentId)] = true;
+        }
+        for (final boolean shardUsed : used) {
+            assertTrue(shardUsed);
+        }
+    }
+
+    private static Level2View newView() {
+        return new SimpleLevel2View(PriceCodec.ofScale(2), new TreeOrderBook(Side.ASK), new TreeOrderBook(Side.BID));
+    }
+
+    private static <R> R get(final CompletableFuture<R> future)
+        throws InterruptedException, ExecutionException, TimeoutException {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+}
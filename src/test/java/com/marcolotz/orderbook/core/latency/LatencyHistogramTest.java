@@ -0,0 +1,62 @@
+package com.marcolotz.orderbook.core.latency;
+
+import com.marcolotz.orderbook.port.Side;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("When recording latencies")
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Then every value falls in a bucket whose upper bound is within 1/64 of it")
+    void bucketsAreLogLinear() {
+        // Given
+        long value = 0;
+
+        // When / Then
+        while (value <= LatencyHistogram.MAX_VALUE) {
+            final int index = LatencyHistogram.indexOf(value);
+            final long highest = LatencyHistogram.highestValueOf(index);
+            assertTrue(index < LatencyHistogram.BUCKETS);
+            assertTrue(highest >= value, () -> "bucket too low for " + highest);
+            assertTrue(highest - value <= value / 64, () -> "bucket too wide for " + highest);
+            assertEquals(index + 1, LatencyHistogram.indexOf(highest + 1));
+            value = value < 1_000 ? value + 1 : value + value / 7;
+        }
+    }
+
+    @Test
+    @DisplayName("Then each interval reports the percentiles of the values recorded since the previous one")
+    void intervalPercentiles() {
+        // Given
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final LatencyInterval interval = new LatencyInterval(histogram, ViewOperation.NEW_ORDER, Side.BID);
+        for (long nanos = 1; nanos <= 1_000; nanos++) {
+            histogram.record(nanos);
+        }
+
+        // When
+        final LatencySummary first = interval.next(2);
+        histogram.record(5);
+        final LatencySummary second = interval.next(1);
+        final LatencySummary third = interval.next(1);
+
+        // Then
+        assertEquals(ViewOperation.NEW_ORDER, first.getOperation());
+        assertEquals(Side.BID, first.getSide());
+        assertEquals(1_000, first.getCount());
+        assertEquals(500, first.getRatePerSecond());
+        assertEquals(503, first.getP50()); // bucket [500, 503]
+        assertEquals(991, first.getP99()); // bucket [984, 991]
+        assertEquals(999, first.getP999()); // bucket [992, 999]
+        assertEquals(1_007, first.getMax());
+        assertEquals(1, second.getCount());
+        assertEquals(5, second.getP50());
+        assertEquals(5, second.getMax());
+        assertNull(third);
+    }
+}
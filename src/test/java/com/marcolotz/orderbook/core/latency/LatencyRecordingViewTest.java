@@ -0,0 +1,86 @@
+package com.marcolotz.orderbook.core.latency;
+
+import com.marcolotz.orderbook.adapter.http.LatencyController;
+import com.marcolotz.orderbook.core.SimpleLevel2View;
+import com.marcolotz.orderbook.core.exceptions.InvalidOrderException;
+import com.marcolotz.orderbook.core.orderbook.TreeOrderBook;
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import com.marcolotz.orderbook.port.Side;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("When measuring the latency of a level 2 view")
+class LatencyRecordingViewTest {
+
+    private SimpleLevel2View delegate;
+    private LatencyRecordingView level2View;
+
+    @BeforeEach
+    void setUp() {
+        delegate = new SimpleLevel2View(PriceCodec.ofScale(2), new TreeOrderBook(Side.ASK), new TreeOrderBook(Side.BID));
+        delegate.setStrict(true);
+        level2View = new LatencyRecordingView(delegate);
+    }
+
+    @Test
+    @DisplayName("Then operations are applied to the view and reported per operation and side")
+    void operationsAreMeasured() {
+        // Given
+        level2View.onNewOrder(Side.BID, 100L, 10, 1);
+        level2View.onNewOrder(Side.BID, new BigDecimal("1.01"), 10, 2);
+        level2View.onNewOrder(Side.ASK, 105L, 10, 3);
+        level2View.onCancelOrder(1);
+        assertThrows(InvalidOrderException.class, () -> level2View.onCancelOrder(42));
+
+        // When
+        final long topOfBook = level2View.getTopOfBookTicks(Side.BID);
+        final Map<String, LatencySummary> summaries = new LatencyController(level2View).latency().getOperations().stream()
+                .collect(Collectors.toMap(summary -> summary.getOperation() + "/" + summary.getSide(), Function.identity()));
+
+        // Then
+        assertEquals(101, topOfBook);
+        assertEquals(1, delegate.getBookDepth(Side.BID));
+        assertEquals(5, summaries.size());
+        assertEquals(2, summaries.get("NEW_ORDER/BID").getCount());
+        assertEquals(1, summaries.get("NEW_ORDER/ASK").getCount());
+        assertEquals(1, summaries.get("CANCEL_ORDER/BID").getCount()); // side of the cancelled order
+        assertEquals(1, summaries.get("CANCEL_ORDER/null").getCount()); // the rejected cancel is measured too, without a side
+        assertEquals(1, summaries.get("TOP_OF_BOOK/BID").getCount());
+        final LatencySummary newOrders = summaries.get("NEW_ORDER/BID");
+        assertTrue(newOrders.getP50() <= newOrders.getP99() && newOrders.getP99() <= newOrders.getP999());
+        assertTrue(newOrders.getP999() <= newOrders.getMax());
+        assertTrue(newOrders.getRatePerSecond() > 0);
+    }
+
+    @Test
+    @DisplayName("Then a report only covers the operations since the previous report")
+    void reportsAreIntervals() {
+        // Given
+        level2View.onNewOrder(Side.ASK, 105L, 10, 1);
+        level2View.report();
+
+        // When
+        level2View.onNewOrder(Side.ASK, 106L, 10, 2);
+        level2View.onTrade(5, 1);
+        final LatencyReport report = level2View.report();
+
+        // Then
+        assertEquals(2, report.getOperations().size());
+        assertEquals(ViewOperation.NEW_ORDER, report.getOperations().get(0).getOperation());
+        assertEquals(1, report.getOperations().get(0).getCount());
+        assertEquals(ViewOperation.TRADE, report.getOperations().get(1).getOperation());
+        assertEquals(Side.ASK, report.getOperations().get(1).getSide());
+        assertTrue(report.getIntervalSeconds() > 0);
+        assertTrue(level2View.report().getOperations().isEmpty());
+    }
+}
@@ -0,0 +1,148 @@
+package com.marcolotz.orderbook.core.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.marcolotz.orderbook.port.Side.ASK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("When queueing orders on a price level")
+class PriceLevelTest {
+
+    PriceLevel level;
+    Order first;
+    Order second;
+    Order third;
+
+    @BeforeEach
+    void setUp() {
+        level = new PriceLevel(10);
+        first = new Order(1, ASK, 10, 10);
+        second = new Order(2, ASK, 10, 10);
+        third = new Order(3, ASK, 10, 10);
+        level.addLast(first);
+        level.addLast(second);
+        level.addLast(third);
+    }
+
+    @Test
+    @DisplayName("Then orders are kept in time priority")
+    void timePriority() {
+        assertSame(first, level.getHead());
+        assertSame(second, first.getNext());
+        assertSame(third, second.getNext());
+        assertSame(third, level.getTail());
+        assertSame(level, second.getLevel());
+        assertEquals(3, level.getOrderCount());
+        assertEquals(30, level.getTotalQuantity());
+    }
+
+    @Test
+    @DisplayName("Then orders can be unlinked from any position")
+    void remove() {
+        // When
+        level.remove(second);
+        level.remove(first);
+
+        // Then
+        assertSame(third, level.getHead());
+        assertSame(third, level.getTail());
+        assertNull(third.getPrevious());
+        assertNull(second.getLevel());
+        assertEquals(1, level.getOrderCount());
+        assertEquals(10, level.getTotalQuantity());
+
+        // When
+        level.remove(third);
+
+        // Then
+        assertTrue(level.isEmpty());
+        assertNull(level.getTail());
+        assertEquals(0, level.getTotalQuantity());
+    }
+
+    @Test
+    @DisplayName("Then a reduced order keeps its queue position")
+    void updateQuantity() {
+        // When
+        level.updateQuantity(second, 5);
+
+        // Then
+        assertSame(second, first.getNext());
+        assertEquals(5, second.getQuantity());
+        assertEquals(3, level.getOrderCount());
+        assertEquals(25, level.getTotalQuantity());
+    }
+
+    @Test
+    @DisplayName("Then a level can be reused for another price")
+    void reset() {
+        // When
+        level.reset(20);
+
+        // Then
+        assertTrue(level.isEmpty());
+        assertEquals(20, level.getPrice());
+        assertEquals(0, level.getOrderCount());
+        assertEquals(0, level.getTotalQuantity());
+    }
+
+    @Test
+    @DisplayName("Then the quantity and the orders ahead of an order are indexed")
+    void queuePosition() {
+        // When
+        level.updateQuantity(first, 4);
+
+        // Then
+        assertEquals(0, level.getQuantityAhead(first));
+        assertEquals(0, level.getQueuePosition(first));
+        assertEquals(4, level.getQuantityAhead(second));
+        assertEquals(14, level.getQuantityAhead(third));
+        assertEquals(2, level.getQueuePosition(third));
+
+        // When
+        level.remove(second);
+
+        // Then
+        assertEquals(4, level.getQuantityAhead(third));
+        assertEquals(1, level.getQueuePosition(third));
+    }
+
+    @Test
+    @DisplayName("Then queue positions survive compactions of the queue index")
+    void queuePositionAcrossCompactions() {
+        // Given
+        final Random random = new Random(42);
+        final List<Order> queue = new ArrayList<>(List.of(first, second, third));
+
+        for (int i = 0; i < 5_000; i++) {
+            // When
+            final int action = random.nextInt(3);
+            if (action == 0 || queue.isEmpty()) {
+                final Order order = new Order(100 + i, ASK, 1 + random.nextInt(50), 10);
+                level.addLast(order);
+                queue.add(order);
+            } else if (action == 1) {
+                level.remove(queue.remove(random.nextInt(queue.size())));
+            } else {
+                level.updateQuantity(queue.get(random.nextInt(queue.size())), 1 + random.nextInt(50));
+            }
+
+            // Then
+            if (!queue.isEmpty()) {
+                final int position = random.nextInt(queue.size());
+                final Order order = queue.get(position);
+                assertEquals(position, level.getQueuePosition(order));
+                assertEquals(queue.subList(0, position).stream().mapToLong(Order::getQuantity).sum(), level.getQuantityAhead(order));
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.marcolotz.orderbook.core.orderbook;
+
+import com.marcolotz.orderbook.core.model.Order;
+import com.marcolotz.orderbook.port.Side;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static com.marcolotz.orderbook.port.Side.ASK;
+import static com.marcolotz.orderbook.port.Side.BID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+@DisplayName("When testing an array based order book")
+public class ArrayOrderBookTest extends BaseOrderBookTest {
+
+    private static final int WINDOW_SIZE = 8;
+
+    @BeforeEach
+    void setUp() {
+        // BID ladder -> highest order first
+        orderBook = new ArrayOrderBook(Side.BID, WINDOW_SIZE);
+    }
+
+    @Test
+    @DisplayName("Then prices far from the touch are kept on the overflow")
+    void farPricesGoToOverflow() {
+        // Given
+        Order top = new Order(0, BID, 10, 100);
+        Order far = new Order(1, BID, 20, 10);
+        orderBook.addOrder(top);
+
+        // When
+        orderBook.addOrder(far);
+
+        // Then
+        assertSame(top, orderBook.getTopOrder());
+        assertEquals(2, orderBook.getBookDepth());
+        assertEquals(20, orderBook.getSizeForPriceLevel(10));
+    }
+
+    @Test
+    @DisplayName("Then the window re-centers on a new best price outside of it")
+    void recenterOnNewBestPrice() {
+        // Given
+        Order order1 = new Order(0, BID, 10, 100);
+        Order order2 = new Order(1, BID, 10, 99);
+        Order best = new Order(2, BID, 10, 200);
+        orderBook.addOrder(order1);
+        orderBook.addOrder(order2);
+
+        // When
+        orderBook.addOrder(best);
+        orderBook.removeOrder(best);
+
+        // Then
+        assertSame(order1, orderBook.getTopOrder());
+        orderBook.removeOrder(order1);
+        assertSame(order2, orderBook.getTopOrder());
+        assertEquals(1, orderBook.getBookDepth());
+    }
+
+    @Test
+    @DisplayName("Then the window re-centers on the overflow when it runs out of levels")
+    void recenterOnOverflowWhenWindowIsEmpty() {
+        // Given
+        Order top = new Order(0, BID, 10, 100);
+        Order far1 = new Order(1, BID, 10, 10);
+        Order far2 = new Order(2, BID, 10, 9);
+        orderBook.addOrder(top);
+        orderBook.addOrder(far2);
+        orderBook.addOrder(far1);
+
+        // When
+        orderBook.removeOrder(top);
+
+        // Then
+        assertSame(far1, orderBook.getTopOrder());
+        assertEquals(2, orderBook.getBookDepth());
+        orderBook.removeOrder(far1);
+        assertSame(far2, orderBook.getTopOrder());
+        orderBook.removeOrder(far2);
+        assertNull(orderBook.getTopOrder());
+        assertEquals(0, orderBook.getBookDepth());
+    }
+
+    @Test
+    @DisplayName("Then ask ladders keep the lowest price on top")
+    void askLadder() {
+        // Given
+        orderBook = new ArrayOrderBook(ASK, WINDOW_SIZE);
+        Order order1 = new Order(0, ASK, 10, 101);
+        Order order2 = new Order(1, ASK, 10, 100);
+        Order order3 = new Order(2, ASK, 10, 103);
+        orderBook.addOrder(order1);
+        orderBook.addOrder(order2);
+        orderBook.addOrder(order3);
+
+        // When
+        orderBook.removeOrder(order2);
+
+        // Then
+        assertSame(order1, orderBook.getTopOrder());
+        orderBook.removeOrder(order1);
+        assertSame(order3, orderBook.getTopOrder());
+    }
+}
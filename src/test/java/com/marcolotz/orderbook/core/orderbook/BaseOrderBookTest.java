@@ -5,13 +5,21 @@ import com.marcolotz.orderbook.port.OrderBook;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
 
+import static com.marcolotz.orderbook.port.Side.BID;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @DisplayName("When adding orders to order book")
 abstract class BaseOrderBookTest {
@@ -22,46 +30,42 @@ abstract class BaseOrderBookTest {
     @DisplayName("Then orders can be added to the book")
     void addOrder() {
         // Given
-        Order order = new Order(0, 10, new BigDecimal(0));
+        Order order = new Order(0, BID, 10, 0);
 
         // When
         orderBook.addOrder(order);
 
         // Then
-        assertTrue(orderBook.containsOrder(order.getId()));
         assertEquals(order, orderBook.getTopOrder());
         assertEquals(1, orderBook.getBookDepth());
-        assertEquals(order, orderBook.getOrderById(order.getId()));
-        assertEquals(1, orderBook.getSizeForPriceLevel(order.getPrice()));
+        assertEquals(10, orderBook.getSizeForPriceLevel(order.getPrice()));
     }
 
     @Test
     @DisplayName("Then higher price orders can be added to the book")
     void addHigherPriceOrder() {
         // Given
-        Order order1 = new Order(0, 10, new BigDecimal(0));
-        Order order2 = new Order(1, 10, new BigDecimal(1));
+        Order order1 = new Order(0, BID, 10, 0);
+        Order order2 = new Order(1, BID, 10, 1);
         orderBook.addOrder(order1);
 
         // When
         orderBook.addOrder(order2);
 
         // Then
-        assertTrue(orderBook.containsOrder(order2.getId()));
         assertEquals(order2, orderBook.getTopOrder());
         assertEquals(2, orderBook.getBookDepth());
-        assertEquals(order2, orderBook.getOrderById(order2.getId()));
-        assertEquals(order1, orderBook.getOrderById(order1.getId()));
-        assertEquals(1, orderBook.getSizeForPriceLevel(order2.getPrice()));
+        assertEquals(10, orderBook.getSizeForPriceLevel(order2.getPrice()));
+        assertEquals(10, orderBook.getSizeForPriceLevel(order1.getPrice()));
     }
 
     @Test
     @DisplayName("Then orders without the top price won't change top price")
     void addNonTopPrice() {
         // Given
-        Order order1 = new Order(0, 10, new BigDecimal(0));
-        Order order2 = new Order(1, 10, new BigDecimal(1));
-        Order order3 = new Order(2, 10, new BigDecimal(0));
+        Order order1 = new Order(0, BID, 10, 0);
+        Order order2 = new Order(1, BID, 10, 1);
+        Order order3 = new Order(2, BID, 10, 0);
 
         orderBook.addOrder(order1);
         orderBook.addOrder(order2);
@@ -70,45 +74,39 @@ abstract class BaseOrderBookTest {
         orderBook.addOrder(order3);
 
         // Then
-        assertTrue(orderBook.containsOrder(order3.getId()));
         assertEquals(order2, orderBook.getTopOrder());
         assertEquals(2, orderBook.getBookDepth());
-        assertEquals(order3, orderBook.getOrderById(order3.getId()));
-        assertEquals(2, orderBook.getSizeForPriceLevel(order3.getPrice()));
+        assertEquals(20, orderBook.getSizeForPriceLevel(order3.getPrice()));
     }
 
     @Test
     @DisplayName("Then no mutation is performed for non-existing order")
     void whenRemovingNotFoundOrderThenNoMutation() {
         // Given
-        Order order = new Order(0, 10, new BigDecimal(0));
+        Order order = new Order(0, BID, 10, 0);
         orderBook.addOrder(order);
         // When
-        assertDoesNotThrow(() -> orderBook.removeOrder(1));
+        assertDoesNotThrow(() -> orderBook.removeOrder(new Order(1, BID, 10, 0)));
 
         // Expect
-        assertTrue(orderBook.containsOrder(order.getId()));
         assertEquals(order, orderBook.getTopOrder());
         assertEquals(1, orderBook.getBookDepth());
-        assertEquals(order, orderBook.getOrderById(order.getId()));
-        assertEquals(1, orderBook.getSizeForPriceLevel(order.getPrice()));
+        assertEquals(10, orderBook.getSizeForPriceLevel(order.getPrice()));
     }
 
     @Test
     @DisplayName("Then can empty a tree with a single order")
     void canRemoveSingleOrder() {
         // Given
-        Order order = new Order(0, 10, new BigDecimal(0));
+        Order order = new Order(0, BID, 10, 0);
         orderBook.addOrder(order);
 
         // When
-        orderBook.removeOrder(0);
+        orderBook.removeOrder(order);
 
         // Expect
-        assertFalse(orderBook.containsOrder(order.getId()));
         assertNull(orderBook.getTopOrder());
         assertEquals(0, orderBook.getBookDepth());
-        assertNull(orderBook.getOrderById(order.getId()));
         assertEquals(0, orderBook.getSizeForPriceLevel(order.getPrice()));
     }
 
@@ -116,65 +114,365 @@ abstract class BaseOrderBookTest {
     @DisplayName("Then can remove order in the same price")
     void canRemoveSamePrice() {
         // Given
-        Order order1 = new Order(0, 10, new BigDecimal(0));
-        Order order2 = new Order(1, 10, new BigDecimal(0));
+        Order order1 = new Order(0, BID, 10, 0);
+        Order order2 = new Order(1, BID, 10, 0);
         orderBook.addOrder(order1);
         orderBook.addOrder(order2);
 
         // When
-        orderBook.removeOrder(1);
+        orderBook.removeOrder(order2);
 
         // Expect
-        assertTrue(orderBook.containsOrder(order1.getId()));
-        assertFalse(orderBook.containsOrder(order2.getId()));
         assertEquals(order1, orderBook.getTopOrder());
         assertEquals(1, orderBook.getBookDepth());
-        assertEquals(order1, orderBook.getOrderById(order1.getId()));
-        assertNull(orderBook.getOrderById(order2.getId()));
-        assertEquals(1, orderBook.getSizeForPriceLevel(order1.getPrice()));
+        assertEquals(10, orderBook.getSizeForPriceLevel(order1.getPrice()));
     }
 
     @Test
     @DisplayName("Then can remove multiple orders with different prices")
     void canRemoveMultipleOrders() {
         // Given
-        Order order1 = new Order(1, 10, new BigDecimal(0));
-        Order order2 = new Order(2, 10, new BigDecimal(0));
-        Order order3 = new Order(3, 10, new BigDecimal(2));
+        Order order1 = new Order(1, BID, 10, 0);
+        Order order2 = new Order(2, BID, 10, 0);
+        Order order3 = new Order(3, BID, 10, 2);
         orderBook.addOrder(order1);
         orderBook.addOrder(order2);
         orderBook.addOrder(order3);
 
         // When
-        orderBook.removeOrder(3);
+        orderBook.removeOrder(order3);
 
         // Expect
-        assertTrue(orderBook.containsOrder(order1.getId()));
-        assertTrue(orderBook.containsOrder(order2.getId()));
-        assertFalse(orderBook.containsOrder(order3.getId()));
         assertEquals(order1, orderBook.getTopOrder());
         assertEquals(1, orderBook.getBookDepth());
-        assertEquals(order1, orderBook.getOrderById(order1.getId()));
-        assertNull(orderBook.getOrderById(order3.getId()));
-        assertEquals(2, orderBook.getSizeForPriceLevel(order1.getPrice()));
+        assertEquals(20, orderBook.getSizeForPriceLevel(order1.getPrice()));
+        assertEquals(0, orderBook.getSizeForPriceLevel(order3.getPrice()));
     }
 
     @Test
     @DisplayName("Then orders can be replaced")
     void canReplaceOrders() {
         // Given
-        Order order = new Order(0, 10, new BigDecimal(0));
-        Order order2 = new Order(order.getId(), order.getQuantity() + 10, order.getPrice().plus());
+        Order order = new Order(0, BID, 10, 0);
         orderBook.addOrder(order);
 
         // When
-        orderBook.replaceOrder(order2);
+        orderBook.replaceOrder(order, order.getPrice(), order.getQuantity() + 10);
 
         // Then
-        assertTrue(orderBook.containsOrder(order2.getId()));
-        assertEquals(order2, orderBook.getTopOrder());
+        assertEquals(new Order(0, BID, 20, 0), orderBook.getTopOrder());
+        assertEquals(1, orderBook.getBookDepth());
+        assertEquals(20, orderBook.getSizeForPriceLevel(order.getPrice()));
+    }
+
+    @Test
+    @DisplayName("Then partially filled orders keep their time priority")
+    void reducedOrdersKeepPriority() {
+        // Given
+        Order order1 = new Order(0, BID, 10, 0);
+        Order order2 = new Order(1, BID, 10, 0);
+        orderBook.addOrder(order1);
+        orderBook.addOrder(order2);
+
+        // When
+        orderBook.replaceOrder(order1, order1.getPrice(), 5);
+
+        // Then
+        assertSame(order1, orderBook.getTopOrder());
+        assertEquals(5, order1.getQuantity());
+        assertEquals(15, orderBook.getSizeForPriceLevel(order1.getPrice()));
+    }
+
+    @Test
+    @DisplayName("Then orders with increased quantity lose their time priority")
+    void increasedOrdersLosePriority() {
+        // Given
+        Order order1 = new Order(0, BID, 10, 0);
+        Order order2 = new Order(1, BID, 10, 0);
+        orderBook.addOrder(order1);
+        orderBook.addOrder(order2);
+
+        // When
+        orderBook.replaceOrder(order1, order1.getPrice(), 20);
+
+        // Then
+        assertSame(order2, orderBook.getTopOrder());
+        assertEquals(30, orderBook.getSizeForPriceLevel(order1.getPrice()));
+    }
+
+    @Test
+    @DisplayName("Then orders can be moved to another price")
+    void canRepriceOrders() {
+        // Given
+        Order order1 = new Order(0, BID, 10, 0);
+        Order order2 = new Order(1, BID, 10, 1);
+        orderBook.addOrder(order1);
+        orderBook.addOrder(order2);
+
+        // When
+        orderBook.replaceOrder(order1, 1, 10);
+
+        // Then
+        assertEquals(1, orderBook.getBookDepth());
+        assertEquals(20, orderBook.getSizeForPriceLevel(1));
+        assertEquals(0, orderBook.getSizeForPriceLevel(0));
+        assertSame(order2, orderBook.getTopOrder());
+    }
+
+    @Test
+    @DisplayName("Then the next best price becomes the top when the best level empties")
+    void nextBestPriceAfterTopLevelEmpties() {
+        // Given
+        Order order1 = new Order(0, BID, 10, 0);
+        Order order2 = new Order(1, BID, 10, 1);
+        Order order3 = new Order(2, BID, 10, 2);
+        Order order4 = new Order(3, BID, 10, 3);
+        orderBook.addOrder(order2);
+        orderBook.addOrder(order1);
+        orderBook.addOrder(order4);
+        orderBook.addOrder(order3);
+
+        // When
+        orderBook.removeOrder(order4);
+
+        // Then
+        assertSame(order3, orderBook.getTopOrder());
+        orderBook.removeOrder(order3);
+        assertSame(order2, orderBook.getTopOrder());
+        orderBook.removeOrder(order2);
+        assertSame(order1, orderBook.getTopOrder());
+        assertEquals(1, orderBook.getBookDepth());
+    }
+
+    @Test
+    @DisplayName("Then levels emptied and filled again within a batch keep their orders")
+    void batchKeepsRefilledLevels() {
+        // Given
+        Order order1 = new Order(0, BID, 10, 5);
+        Order order2 = new Order(1, BID, 10, 4);
+        Order order3 = new Order(2, BID, 7, 5);
+        orderBook.addOrder(order1);
+        orderBook.addOrder(order2);
+
+        // When
+        orderBook.beginBatch();
+        orderBook.removeOrder(order1);
+        orderBook.addOrder(order3);
+        orderBook.removeOrder(order2);
+        orderBook.endBatch();
+
+        // Then
+        assertSame(order3, orderBook.getTopOrder());
+        assertEquals(1, orderBook.getBookDepth());
+        assertEquals(7, orderBook.getSizeForPriceLevel(5));
+        assertEquals(0, orderBook.getSizeForPriceLevel(4));
+        orderBook.removeOrder(order3);
+        assertNull(orderBook.getTopOrder());
+        assertEquals(0, orderBook.getBookDepth());
+    }
+
+    @Test
+    @DisplayName("Then queries within a batch skip the levels it emptied")
+    void queriesWithinBatch() {
+        // Given
+        Order order1 = new Order(0, BID, 10, 5);
+        Order order2 = new Order(1, BID, 10, 4);
+        Order order3 = new Order(2, BID, 7, 5);
+        orderBook.addOrder(order1);
+        orderBook.addOrder(order2);
+        orderBook.beginBatch();
+
+        // When
+        orderBook.removeOrder(order1);
+
+        // Then
+        assertSame(order2, orderBook.getTopOrder());
         assertEquals(1, orderBook.getBookDepth());
-        assertEquals(order2, orderBook.getOrderById(order.getId()));
-        assertEquals(1, orderBook.getSizeForPriceLevel(order.getPrice()));
+
+        // When
+        orderBook.addOrder(order3);
+
+        // Then
+        assertSame(order3, orderBook.getTopOrder());
+        assertEquals(2, orderBook.getBookDepth());
+
+        // When
+        orderBook.removeOrder(order3);
+        orderBook.removeOrder(order2);
+
+        // Then
+        assertNull(orderBook.getTopOrder());
+        assertEquals(0, orderBook.getBookDepth());
+        orderBook.endBatch();
+        assertEquals(0, orderBook.getBookDepth());
+    }
+
+    @Test
+    @DisplayName("Then the best levels can be walked in order, up to the requested depth")
+    void getDepth() {
+        // Given
+        orderBook.addOrder(new Order(0, BID, 10, 100));
+        orderBook.addOrder(new Order(1, BID, 5, 98));
+        orderBook.addOrder(new Order(2, BID, 7, 98));
+        orderBook.addOrder(new Order(3, BID, 3, 97));
+        orderBook.addOrder(new Order(4, BID, 20, 20)); // far from the touch
+        final long[] prices = new long[10];
+        final long[] sizes = new long[10];
+
+        // When
+        final int topLevels = orderBook.getDepth(3, prices, sizes);
+
+        // Then
+        assertEquals(3, topLevels);
+        assertArrayEquals(new long[] {100, 98, 97}, Arrays.copyOf(prices, 3));
+        assertArrayEquals(new long[] {10, 12, 3}, Arrays.copyOf(sizes, 3));
+        assertEquals(4, orderBook.getDepth(10, prices, sizes));
+        assertEquals(20, prices[3]);
+        assertEquals(20, sizes[3]);
+    }
+
+    @Test
+    @DisplayName("Then levels are visited from the best price to the worst")
+    void forEachLevel() {
+        // Given
+        orderBook.addOrder(new Order(0, BID, 10, 98));
+        orderBook.addOrder(new Order(1, BID, 10, 20)); // far from the touch
+        orderBook.addOrder(new Order(2, BID, 10, 100));
+        final List<Long> prices = new ArrayList<>();
+
+        // When
+        orderBook.forEachLevel(level -> prices.add(level.getPrice()));
+
+        // Then
+        assertEquals(List.of(100L, 98L, 20L), prices);
+    }
+
+    @Test
+    @DisplayName("Then range, cumulative and sweep queries sum the levels from the top of the book")
+    void rangeQueries() {
+        // Given
+        orderBook.addOrder(new Order(0, BID, 10, 100));
+        orderBook.addOrder(new Order(1, BID, 5, 98));
+        orderBook.addOrder(new Order(2, BID, 7, 98));
+        orderBook.addOrder(new Order(3, BID, 3, 97));
+        orderBook.addOrder(new Order(4, BID, 20, 20)); // far from the touch
+        orderBook.removeOrder(orderBook.getTopOrder());
+        orderBook.addOrder(new Order(5, BID, 10, 100));
+        final long[] result = new long[] {-1, -1};
+
+        // When
+        final boolean swept = orderBook.sweep(20, result);
+
+        // Then
+        assertEquals(15, orderBook.getSizeBetween(97, 98));
+        assertEquals(15, orderBook.getSizeBetween(99, 97));
+        assertEquals(45, orderBook.getSizeBetween(10, 1_000));
+        assertEquals(0, orderBook.getSizeBetween(99, 99));
+        assertEquals(22, orderBook.getCumulativeSize(98));
+        assertEquals(25, orderBook.getCumulativeSize(21));
+        assertEquals(45, orderBook.getCumulativeSize(20));
+        assertEquals(0, orderBook.getCumulativeSize(101));
+        assertTrue(swept);
+        assertArrayEquals(new long[] {98, 10 * 100 + 10 * 98}, result);
+        assertTrue(orderBook.sweep(45, result));
+        assertArrayEquals(new long[] {20, 10 * 100 + 12 * 98 + 3 * 97 + 20 * 20}, result);
+        assertFalse(orderBook.sweep(46, result));
+        assertArrayEquals(new long[] {20, 10 * 100 + 12 * 98 + 3 * 97 + 20 * 20}, result);
+    }
+
+    @Test
+    @DisplayName("Then the queue position of a resting order is kept across replaces")
+    void queuePosition() {
+        // Given
+        final Order first = new Order(0, BID, 10, 98);
+        final Order second = new Order(1, BID, 5, 98);
+        final Order third = new Order(2, BID, 7, 98);
+        final Order other = new Order(3, BID, 3, 97);
+        orderBook.addOrder(first);
+        orderBook.addOrder(second);
+        orderBook.addOrder(third);
+        orderBook.addOrder(other);
+
+        // When
+        orderBook.replaceOrder(second, 98, 2);
+        orderBook.replaceOrder(first, 97, 10);
+
+        // Then
+        assertEquals(0, orderBook.getQuantityAhead(second));
+        assertEquals(2, orderBook.getQuantityAhead(third));
+        assertEquals(1, orderBook.getQueuePosition(third));
+        assertEquals(0, orderBook.getOrdersBehind(third));
+        assertEquals(1, orderBook.getOrdersBehind(second));
+        assertEquals(3, orderBook.getQuantityAhead(first));
+        assertEquals(1, orderBook.getQueuePosition(first));
+        assertEquals(0, orderBook.getQueuePosition(other));
+
+        // When
+        orderBook.removeOrder(third);
+
+        // Then
+        assertThrows(IllegalArgumentException.class, () -> orderBook.getQueuePosition(third));
+    }
+
+    @Test
+    @DisplayName("Then random adds, removals and replaces, in and out of batches, match a sorted map of the levels")
+    void randomOperations() {
+        // Given
+        final TreeMap<Long, Long> expected = new TreeMap<>();
+        final List<Order> resting = new ArrayList<>();
+        final Random random = new Random(1);
+        boolean inBatch = false;
+
+        for (int i = 0; i < 20_000; i++) {
+            // When
+            if (i % 8 == 0) {
+                if (inBatch) {
+                    orderBook.endBatch();
+                }
+                inBatch = random.nextBoolean();
+                if (inBatch) {
+                    orderBook.beginBatch();
+                }
+            }
+            final int operation = random.nextInt(10);
+            if (resting.isEmpty() || operation < 4) {
+                // mostly around a drifting touch, sometimes far from it
+                final long price = random.nextInt(10) == 0 ? random.nextInt(1_000) : 500 + random.nextInt(30) + i / 500;
+                final Order order = new Order(i, BID, 1 + random.nextInt(100), price);
+                orderBook.addOrder(order);
+                resting.add(order);
+                expected.merge(price, order.getQuantity(), Long::sum);
+            } else if (operation < 7) {
+                final Order order = resting.remove(random.nextInt(resting.size()));
+                removeLevelQuantity(expected, order);
+                orderBook.removeOrder(order);
+            } else {
+                final Order order = resting.get(random.nextInt(resting.size()));
+                final long price = random.nextBoolean() ? order.getPrice() : 500 + random.nextInt(60);
+                final long quantity = 1 + random.nextInt(100);
+                removeLevelQuantity(expected, order);
+                orderBook.replaceOrder(order, price, quantity);
+                expected.merge(price, quantity, Long::sum);
+            }
+
+            // Then
+            assertEquals(expected.size(), orderBook.getBookDepth());
+            if (expected.isEmpty()) {
+                assertNull(orderBook.getTopOrder());
+            } else {
+                assertEquals(expected.lastKey(), orderBook.getTopOrder().getPrice());
+            }
+            final long price = 480 + random.nextInt(100);
+            assertEquals(expected.getOrDefault(price, 0L), orderBook.getSizeForPriceLevel(price));
+        }
+    }
+
+    private static void removeLevelQuantity(final TreeMap<Long, Long> levels, final Order order) {
+        final long remaining = levels.get(order.getPrice()) - order.getQuantity();
+        if (remaining == 0) {
+            levels.remove(order.getPrice());
+        } else {
+            levels.put(order.getPrice(), remaining);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,92 @@
+package com.marcolotz.orderbook.core.ring;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("When using a ring buffer")
+class RingBufferTest {
+
+    private static final int EVENTS_PER_PRODUCER = 50_000;
+
+    static class LongEvent {
+        int producer;
+        long value;
+    }
+
+    static Stream<WaitStrategy> waitStrategies() {
+        return Stream.of(WaitStrategy.busySpin(), WaitStrategy.yielding(), WaitStrategy.parking(1_000));
+    }
+
+    @ParameterizedTest
+    @MethodSource("waitStrategies")
+    @DisplayName("Then a single producer hands all events over in order")
+    void singleProducer(final WaitStrategy waitStrategy) throws InterruptedException {
+        final long[] received = transfer(RingBuffer.ProducerType.SINGLE, 1, waitStrategy);
+
+        assertArrayEquals(new long[] {EVENTS_PER_PRODUCER}, received);
+    }
+
+    @ParameterizedTest
+    @MethodSource("waitStrategies")
+    @DisplayName("Then many producers hand all events over, in order for each producer")
+    void multipleProducers(final WaitStrategy waitStrategy) throws InterruptedException {
+        final long[] received = transfer(RingBuffer.ProducerType.MULTI, 4, waitStrategy);
+
+        assertArrayEquals(new long[] {EVENTS_PER_PRODUCER, EVENTS_PER_PRODUCER, EVENTS_PER_PRODUCER, EVENTS_PER_PRODUCER}, received);
+    }
+
+    @Test
+    @DisplayName("Then the capacity must be a power of two")
+    void capacityIsPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new RingBuffer<>(LongEvent::new, 1000, RingBuffer.ProducerType.SINGLE, WaitStrategy.busySpin()));
+    }
+
+    /***
+     * @return number of events received from each producer - each producer sends 1, 2, 3... and the consumer checks the order
+     */
+    private static long[] transfer(final RingBuffer.ProducerType producerType, final int producers, final WaitStrategy waitStrategy)
+        throws InterruptedException {
+        final RingBuffer<LongEvent> ringBuffer = new RingBuffer<>(LongEvent::new, 1024, producerType, waitStrategy);
+        final long[] lastValues = new long[producers];
+        final long[] outOfOrder = new long[1];
+        final EventProcessor<LongEvent> processor = new EventProcessor<>(ringBuffer, (event, sequence, endOfBatch) -> {
+            if (event.value != lastValues[event.producer] + 1) {
+                outOfOrder[0]++;
+            }
+            lastValues[event.producer] = event.value;
+        }, waitStrategy);
+        final Thread consumer = new Thread(processor);
+        consumer.start();
+
+        final Thread[] producerThreads = new Thread[producers];
+        for (int producer = 0; producer < producers; producer++) {
+            final int producerId = producer;
+            producerThreads[producer] = new Thread(() -> {
+                for (long value = 1; value <= EVENTS_PER_PRODUCER; value++) {
+                    final long sequence = ringBuffer.next();
+                    final LongEvent event = ringBuffer.get(sequence);
+                    event.producer = producerId;
+                    event.value = value;
+                    ringBuffer.publish(sequence);
+                }
+            });
+            producerThreads[producer].start();
+        }
+        for (final Thread producerThread : producerThreads) {
+            producerThread.join();
+        }
+        processor.halt();
+        consumer.join();
+        assertEquals(0, outOfOrder[0]);
+        return lastValues;
+    }
+}
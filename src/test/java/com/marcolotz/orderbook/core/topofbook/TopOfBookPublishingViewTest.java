@@ -0,0 +1,71 @@
+package com.marcolotz.orderbook.core.topofbook;
+
+import com.marcolotz.orderbook.core.SimpleLevel2View;
+import com.marcolotz.orderbook.core.orderbook.TreeOrderBook;
+import com.marcolotz.orderbook.core.util.PriceCodec;
+import com.marcolotz.orderbook.port.Side;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("When publishing the top of book of a view")
+class TopOfBookPublishingViewTest {
+
+    private TopOfBookPublishingView view;
+    private final TopOfBook topOfBook = new TopOfBook();
+
+    @BeforeEach
+    void setUp() {
+        view = new TopOfBookPublishingView(
+            new SimpleLevel2View(PriceCodec.ofScale(2), new TreeOrderBook(Side.ASK), new TreeOrderBook(Side.BID)));
+    }
+
+    @Test
+    @DisplayName("Then an empty book is published as empty")
+    void emptyBook() {
+        view.getSnapshot().read(topOfBook);
+
+        assertTrue(topOfBook.isEmpty(Side.BID));
+        assertTrue(topOfBook.isEmpty(Side.ASK));
+    }
+
+    @Test
+    @DisplayName("Then the top of book is published after every event")
+    void publishedAfterEvents() {
+        // Given
+        view.onNewOrder(Side.BID, 99L, 10, 1);
+        view.onNewOrder(Side.BID, 98L, 10, 2);
+        view.onNewOrder(Side.ASK, 101L, 5, 3);
+
+        // When
+        view.onTrade(4, 1);
+        view.onNewOrder(Side.ASK, 101L, 7, 4);
+        view.getSnapshot().read(topOfBook);
+
+        // Then
+        assertEquals(99, topOfBook.getPrice(Side.BID));
+        assertEquals(6, topOfBook.getSize(Side.BID));
+        assertEquals(2, topOfBook.getDepth(Side.BID));
+        assertEquals(101, topOfBook.getPrice(Side.ASK));
+        assertEquals(12, topOfBook.getSize(Side.ASK));
+        assertEquals(1, topOfBook.getDepth(Side.ASK));
+    }
+
+    @Test
+    @DisplayName("Then events that do not change the top of book are not published")
+    void unchangedTopIsNotPublished() {
+        // Given
+        view.onNewOrder(Side.BID, 99L, 10, 1);
+        view.onNewOrder(Side.BID, 98L, 10, 2);
+        final long version = view.getSnapshot().getVersion();
+
+        // When
+        view.onReplaceOrder(98L, 5, 2);
+
+        // Then
+        assertEquals(version, view.getSnapshot().getVersion());
+    }
+}
@@ -0,0 +1,84 @@
+package com.marcolotz.orderbook.core.topofbook;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("When reading a top of book snapshot")
+class TopOfBookSnapshotTest {
+
+    private static final int PUBLISHES = 2_000_000;
+    private static final int READERS = 2;
+
+    @Test
+    @DisplayName("Then the last published values are read")
+    void readPublished() {
+        // Given
+        final TopOfBookSnapshot snapshot = new TopOfBookSnapshot();
+        final TopOfBook topOfBook = new TopOfBook();
+
+        // When
+        snapshot.publish(99, 10, 1, 101, 20, 2);
+        final long version = snapshot.read(topOfBook);
+
+        // Then
+        assertEquals(2, version);
+        assertEquals(99, topOfBook.getBidPrice());
+        assertEquals(10, topOfBook.getBidSize());
+        assertEquals(1, topOfBook.getBidDepth());
+        assertEquals(101, topOfBook.getAskPrice());
+        assertEquals(20, topOfBook.getAskSize());
+        assertEquals(2, topOfBook.getAskDepth());
+    }
+
+    @Test
+    @DisplayName("Then concurrent readers never see a torn top of book")
+    void concurrentReadersSeeConsistentValues() throws InterruptedException {
+        // Given
+        final TopOfBookSnapshot snapshot = new TopOfBookSnapshot();
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final AtomicLong inconsistentReads = new AtomicLong();
+        final AtomicLong reads = new AtomicLong();
+        final Thread[] readers = new Thread[READERS];
+        for (int i = 0; i < READERS; i++) {
+            readers[i] = new Thread(() -> {
+                final TopOfBook topOfBook = new TopOfBook();
+                long count = 0;
+                while (writing.get()) {
+                    if (snapshot.read(topOfBook) == 0) {
+                        continue; // nothing published yet
+                    }
+                    // every publish writes values derived from a single counter
+                    final long value = topOfBook.getBidPrice();
+                    if (topOfBook.getBidSize() != value * 2 || topOfBook.getBidDepth() != value * 3
+                        || topOfBook.getAskPrice() != value + 1 || topOfBook.getAskSize() != value * 5
+                        || topOfBook.getAskDepth() != value * 7) {
+                        inconsistentReads.incrementAndGet();
+                    }
+                    count++;
+                }
+                reads.addAndGet(count);
+            });
+            readers[i].start();
+        }
+
+        // When
+        for (long value = 1; value <= PUBLISHES; value++) {
+            snapshot.publish(value, value * 2, value * 3, value + 1, value * 5, value * 7);
+        }
+        writing.set(false);
+        for (final Thread reader : readers) {
+            reader.join();
+        }
+
+        // Then
+        assertEquals(0, inconsistentReads.get());
+        assertTrue(reads.get() > 0);
+        assertEquals(2L * PUBLISHES, snapshot.getVersion());
+    }
+}
@@ -0,0 +1,70 @@
+package com.marcolotz.orderbook.core.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("When using a long to int hash map")
+class LongIntHashMapTest {
+
+    @Test
+    @DisplayName("Then values can be added, updated through their slot and removed")
+    void putFindRemove() {
+        // Given
+        final LongIntHashMap map = new LongIntHashMap(4);
+
+        // When
+        map.put(1L, 10);
+        map.put(-1L, 20);
+        map.put(1L, 30);
+        map.setValueAt(map.find(-1L), 40);
+
+        // Then
+        assertEquals(2, map.size());
+        assertEquals(30, map.valueAt(map.find(1L)));
+        assertEquals(40, map.valueAt(map.find(-1L)));
+        assertEquals(-1, map.find(2L));
+        map.removeAt(map.find(1L));
+        assertEquals(-1, map.find(1L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    @DisplayName("Then random mutations, clears and growth behave as a HashMap")
+    void randomMutations() {
+        // Given
+        final LongIntHashMap map = new LongIntHashMap(0);
+        final Map<Long, Integer> expected = new HashMap<>();
+        final Random random = new Random(42);
+
+        // When
+        for (int i = 0; i < 200_000; i++) {
+            final long key = random.nextInt(5_000);
+            final int slot = map.find(key);
+            assertEquals(expected.containsKey(key), slot >= 0);
+            if (random.nextInt(10_000) == 0) {
+                map.clear();
+                expected.clear();
+            } else if (slot >= 0 && random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.valueAt(slot));
+                map.removeAt(slot);
+            } else {
+                final int value = random.nextInt();
+                map.put(key, value);
+                expected.put(key, value);
+            }
+        }
+
+        // Then
+        assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 5_000; key++) {
+            final int slot = map.find(key);
+            assertEquals(expected.get(key), slot < 0 ? null : map.valueAt(slot));
+        }
+    }
+}
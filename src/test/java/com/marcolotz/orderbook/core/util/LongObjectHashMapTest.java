@@ -0,0 +1,111 @@
+package com.marcolotz.orderbook.core.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("When using a long keyed hash map")
+class LongObjectHashMapTest {
+
+    @Test
+    @DisplayName("Then values can be added, replaced and removed")
+    void putGetRemove() {
+        // Given
+        final LongObjectHashMap<String> map = new LongObjectHashMap<>(4);
+
+        // When
+        assertNull(map.put(1L, "a"));
+        assertNull(map.put(-1L, "b"));
+        assertEquals("a", map.put(1L, "c"));
+
+        // Then
+        assertEquals(2, map.size());
+        assertEquals("c", map.get(1L));
+        assertEquals("b", map.get(-1L));
+        assertTrue(map.containsKey(-1L));
+        assertFalse(map.containsKey(2L));
+        assertEquals("c", map.remove(1L));
+        assertNull(map.remove(1L));
+        assertNull(map.get(1L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    @DisplayName("Then null values are rejected")
+    void nullValues() {
+        final LongObjectHashMap<String> map = new LongObjectHashMap<>(4);
+
+        assertThrows(NullPointerException.class, () -> map.put(1L, null));
+    }
+
+    @Test
+    @DisplayName("Then entries survive incremental resizes")
+    void incrementalResize() {
+        // Given
+        final LongObjectHashMap<Long> map = new LongObjectHashMap<>(0);
+        final int entries = 100_000;
+
+        // When
+        for (long key = 0; key < entries; key++) {
+            map.put(key, key);
+        }
+
+        // Then
+        assertEquals(entries, map.size());
+        for (long key = 0; key < entries; key++) {
+            assertEquals(key, map.get(key));
+        }
+    }
+
+    @Test
+    @DisplayName("Then random mutations behave as a HashMap")
+    void randomMutations() {
+        // Given
+        final LongObjectHashMap<Long> map = new LongObjectHashMap<>(0);
+        final Map<Long, Long> expected = new HashMap<>();
+        final Random random = new Random(42);
+
+        // When
+        for (int i = 0; i < 500_000; i++) {
+            final long key = random.nextInt(20_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                final long value = random.nextLong();
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+
+        // Then
+        assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 20_000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    @DisplayName("Then the map can be cleared")
+    void clear() {
+        // Given
+        final LongObjectHashMap<Long> map = new LongObjectHashMap<>(0);
+        for (long key = 0; key < 1000; key++) {
+            map.put(key, key);
+        }
+
+        // When
+        map.clear();
+
+        // Then
+        assertTrue(map.isEmpty());
+        assertNull(map.get(10L));
+    }
+}
@@ -0,0 +1,154 @@
+package com.marcolotz.orderbook.core.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static com.marcolotz.orderbook.core.util.LongRedBlackTree.NIL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("When using a long keyed red-black tree")
+class LongRedBlackTreeTest {
+
+    @Test
+    @DisplayName("Then descending trees put the highest key first")
+    void descendingOrder() {
+        // Given
+        final LongRedBlackTree<String> tree = new LongRedBlackTree<>(true, 4);
+
+        // When
+        final int node5 = tree.insert(5L, "5");
+        final int node1 = tree.insert(1L, "1");
+        final int node9 = tree.insert(9L, "9");
+
+        // Then
+        assertEquals(node9, tree.first());
+        assertEquals(node5, tree.next(node9));
+        assertEquals(node1, tree.next(node5));
+        assertEquals(NIL, tree.next(node1));
+        assertEquals("5", tree.value(tree.search(5L)));
+        assertEquals(1, tree.numSmaller(5L));
+        assertEquals(1, tree.numGreater(5L));
+    }
+
+    @Test
+    @DisplayName("Then random inserts and removals keep order, threading and statistics")
+    void randomOperations() {
+        // Given
+        final LongRedBlackTree<Long> tree = new LongRedBlackTree<>(false, 0);
+        final TreeMap<Long, Integer> expected = new TreeMap<>();
+        final Random random = new Random(11);
+
+        // When
+        for (int i = 0; i < 50_000; i++) {
+            final long key = random.nextInt(3_000);
+            final Integer node = expected.remove(key);
+            if (node == null) {
+                expected.put(key, tree.insert(key, key));
+            } else {
+                tree.removeNode(node);
+            }
+        }
+
+        // Then
+        assertEquals(expected.size(), tree.size());
+        final List<Long> threaded = new ArrayList<>();
+        for (int node = tree.first(); node != NIL; node = tree.next(node)) {
+            assertEquals(tree.key(node), tree.value(node));
+            threaded.add(tree.key(node));
+        }
+        assertEquals(new ArrayList<>(expected.keySet()), threaded);
+        for (long key = -1; key < 3_001; key += 13) {
+            assertEquals(expected.headMap(key, false).size(), tree.numSmaller(key));
+            assertEquals(expected.tailMap(key, false).size(), tree.numGreater(key));
+        }
+    }
+
+    @Test
+    @DisplayName("Then weight and notional sums follow random inserts, removals and weight changes")
+    void randomWeights() {
+        // Given
+        final LongRedBlackTree<Long> tree = new LongRedBlackTree<>(true, 0);
+        final TreeMap<Long, Integer> nodes = new TreeMap<>();
+        final TreeMap<Long, Long> weights = new TreeMap<>();
+        final Random random = new Random(17);
+
+        // When
+        for (int i = 0; i < 20_000; i++) {
+            final long key = random.nextInt(500);
+            final Integer node = nodes.get(key);
+            if (node == null) {
+                nodes.put(key, tree.insert(key, key));
+                weights.put(key, 0L);
+            } else if (random.nextInt(3) == 0) {
+                tree.removeNode(nodes.remove(key));
+                weights.remove(key);
+            } else {
+                final long weight = random.nextInt(1_000);
+                tree.setWeight(node, weight);
+                weights.put(key, weight);
+            }
+        }
+
+        // Then - the tree is descending: keys before a key are the higher ones
+        assertEquals(weights.values().stream().mapToLong(Long::longValue).sum(), tree.totalWeight());
+        for (long key = -1; key < 501; key += 7) {
+            final long[] before = sums(weights.tailMap(key, false));
+            final long[] upTo = sums(weights.tailMap(key, true));
+            assertEquals(before[0], tree.weightBefore(key, false));
+            assertEquals(before[1], tree.notionalBefore(key, false));
+            assertEquals(upTo[0], tree.weightBefore(key, true));
+            assertEquals(upTo[1], tree.notionalBefore(key, true));
+        }
+        long cumulative = 0;
+        for (final long key : weights.descendingKeySet()) {
+            final long weight = weights.get(key);
+            if (weight > 0) {
+                assertEquals(key, tree.key(tree.findCumulativeWeight(cumulative + 1)));
+                assertEquals(key, tree.key(tree.findCumulativeWeight(cumulative + weight)));
+            }
+            cumulative += weight;
+        }
+        assertEquals(NIL, tree.findCumulativeWeight(cumulative + 1));
+    }
+
+    @Test
+    @DisplayName("Then removed nodes are reused")
+    void nodesAreReused() {
+        // Given
+        final LongRedBlackTree<Long> tree = new LongRedBlackTree<>(false, 4);
+        final List<Integer> nodes = new ArrayList<>();
+        for (long key = 0; key < 4; key++) {
+            nodes.add(tree.insert(key, key));
+        }
+
+        // When
+        Collections.reverse(nodes);
+        nodes.forEach(tree::removeNode);
+        final List<Integer> reused = new ArrayList<>();
+        for (long key = 0; key < 4; key++) {
+            reused.add(tree.insert(key, key));
+        }
+
+        // Then
+        assertEquals(4, tree.size());
+        assertTrue(reused.containsAll(nodes));
+    }
+
+    // sum of the weights and of key x weight
+    private static long[] sums(final Map<Long, Long> weights) {
+        final long[] sums = new long[2];
+        weights.forEach((key, weight) -> {
+            sums[0] += weight;
+            sums[1] += key * weight;
+        });
+        return sums;
+    }
+}
@@ -0,0 +1,67 @@
+package com.marcolotz.orderbook.core.util;
+
+import com.marcolotz.orderbook.core.exceptions.InvalidOrderException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("When converting prices to ticks")
+class PriceCodecTest {
+
+    @Test
+    @DisplayName("Then decimal prices are converted to the number of ticks")
+    void toTicks() {
+        // Given
+        final PriceCodec codec = new PriceCodec(new BigDecimal("0.05"));
+
+        // Expect
+        assertEquals(201, codec.toTicks(new BigDecimal("10.05")));
+        assertEquals(201, codec.toTicks(new BigDecimal("10.0500")));
+        assertEquals(-2, codec.toTicks(new BigDecimal("-0.1")));
+    }
+
+    @Test
+    @DisplayName("Then ticks are converted back to decimal prices")
+    void toPrice() {
+        // Given
+        final PriceCodec codec = PriceCodec.ofScale(2);
+
+        // Expect
+        assertEquals(new BigDecimal("10.25"), codec.toPrice(1025));
+        assertEquals(1025, codec.toTicks(codec.toPrice(1025)));
+    }
+
+    @Test
+    @DisplayName("Then prices outside of the tick grid are rejected")
+    void invalidTick() {
+        // Given
+        final PriceCodec codec = PriceCodec.ofScale(2);
+
+        // Expect
+        assertThrows(InvalidOrderException.class, () -> codec.toTicks(new BigDecimal("10.255")));
+    }
+
+    @Test
+    @DisplayName("Then prices outside of the tick grid can be rounded to a tick for queries")
+    void roundedTicks() {
+        // Given
+        final PriceCodec codec = PriceCodec.ofScale(2);
+
+        // Expect
+        assertEquals(1025, codec.toTicks(new BigDecimal("10.255"), RoundingMode.FLOOR));
+        assertEquals(1026, codec.toTicks(new BigDecimal("10.255"), RoundingMode.CEILING));
+        assertEquals(1025, codec.toTicks(new BigDecimal("10.25"), RoundingMode.CEILING));
+        assertThrows(IllegalArgumentException.class, () -> codec.toTicks(new BigDecimal("1e30"), RoundingMode.FLOOR));
+    }
+
+    @Test
+    @DisplayName("Then non positive tick sizes are rejected")
+    void invalidTickSize() {
+        assertThrows(IllegalArgumentException.class, () -> new PriceCodec(BigDecimal.ZERO));
+    }
+}
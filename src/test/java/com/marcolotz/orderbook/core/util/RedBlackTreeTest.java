@@ -0,0 +1,72 @@
+package com.marcolotz.orderbook.core.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DisplayName("When using a red-black tree")
+class RedBlackTreeTest {
+
+    @Test
+    @DisplayName("Then nodes are threaded in order")
+    void threading() {
+        // Given
+        final RedBlackTree<Long> tree = new RedBlackTree<>(Long::compare);
+
+        // When
+        final RedBlackNode<Long> node5 = tree.insert(5L);
+        final RedBlackNode<Long> node1 = tree.insert(1L);
+        final RedBlackNode<Long> node9 = tree.insert(9L);
+        final RedBlackNode<Long> node3 = tree.insert(3L);
+
+        // Then
+        assertNull(node1.getPrevious());
+        assertEquals(node3, node1.getNext());
+        assertEquals(node5, node3.getNext());
+        assertEquals(node9, node5.getNext());
+        assertNull(node9.getNext());
+        assertEquals(node5, node9.getPrevious());
+    }
+
+    @Test
+    @DisplayName("Then removing nodes by handle keeps order, threading and statistics")
+    void removeNode() {
+        // Given
+        final RedBlackTree<Long> tree = new RedBlackTree<>(Long::compare);
+        final TreeSet<Long> expected = new TreeSet<>();
+        final List<RedBlackNode<Long>> nodes = new ArrayList<>();
+        final Random random = new Random(7);
+        for (long value = 0; value < 2_000; value++) {
+            nodes.add(tree.insert(value * 2));
+            expected.add(value * 2);
+        }
+        Collections.shuffle(nodes, random);
+
+        // When
+        for (int i = 0; i < 1_500; i++) {
+            final RedBlackNode<Long> node = nodes.get(i);
+            expected.remove(node.value);
+            tree.removeNode(node);
+        }
+
+        // Then
+        assertEquals(expected.size(), tree.size());
+        final List<Long> threaded = new ArrayList<>();
+        for (RedBlackNode<Long> node = tree.search(tree.first()); node != null; node = node.getNext()) {
+            threaded.add(node.value);
+        }
+        assertEquals(new ArrayList<>(expected), threaded);
+        for (long value = -1; value < 4_001; value += 37) {
+            assertEquals(expected.headSet(value, false).size(), tree.numSmaller(value));
+            assertEquals(expected.tailSet(value, false).size(), tree.numGreater(value));
+        }
+    }
+}
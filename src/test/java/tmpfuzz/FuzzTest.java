@@ -0,0 +1,47 @@
+package tmpfuzz;
+
+import com.marcolotz.orderbook.core.model.Order;
+import com.marcolotz.orderbook.core.orderbook.ArrayOrderBook;
+import com.marcolotz.orderbook.core.orderbook.TreeOrderBook;
+import com.marcolotz.orderbook.port.OrderBook;
+import com.marcolotz.orderbook.port.Side;
+import org.junit.jupiter.api.Test;
+import java.util.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FuzzTest {
+    @Test void array() { for (Side s : Side.values()) run(new ArrayOrderBook(s, 16), s); }
+    @Test void tree() { for (Side s : Side.values()) run(new TreeOrderBook(s), s); }
+
+    void run(OrderBook book, Side side) {
+        Random r = new Random(1);
+        TreeMap<Long, Long> ref = new TreeMap<>();
+        List<Order> live = new ArrayList<>();
+        long id = 0;
+        for (int i = 0; i < 200000; i++) {
+            int op = r.nextInt(10);
+            if (live.isEmpty() || op < 4) {
+                long price = r.nextInt(10) == 0 ? r.nextInt(1000) : 500 + r.nextInt(30) + (i / 5000);
+                long q = 1 + r.nextInt(100);
+                Order o = new Order(id++, side, q, price);
+                book.addOrder(o); live.add(o); ref.merge(price, q, Long::sum);
+            } else if (op < 7) {
+                Order o = live.remove(r.nextInt(live.size()));
+                ref.merge(o.getPrice(), -o.getQuantity(), Long::sum); if (ref.get(o.getPrice()) == 0) ref.remove(o.getPrice());
+                book.removeOrder(o);
+            } else {
+                Order o = live.get(r.nextInt(live.size()));
+                long price = r.nextBoolean() ? o.getPrice() : 500 + r.nextInt(60);
+                long q = 1 + r.nextInt(100);
+                ref.merge(o.getPrice(), -o.getQuantity(), Long::sum); if (ref.get(o.getPrice()) == 0) ref.remove(o.getPrice());
+                book.replaceOrder(o, price, q);
+                ref.merge(price, q, Long::sum);
+            }
+            assertEquals(ref.size(), book.getBookDepth(), "depth at " + i);
+            if (ref.isEmpty()) assertNull(book.getTopOrder());
+            else assertEquals((long) (side == Side.ASK ? ref.firstKey() : ref.lastKey()), book.getTopOrder().getPrice(), "top at " + i);
+            long p = 480 + r.nextInt(100);
+            assertEquals(ref.getOrDefault(p, 0L), book.getSizeForPriceLevel(p));
+        }
+    }
+}